@@ -44,6 +44,7 @@ import com.microsoft.identity.common.internal.ui.browser.BrowserSelector;
 
 import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Set;
 import org.junit.Before;
@@ -54,7 +55,11 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
 import static org.junit.Assert.assertNotNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @RunWith(AndroidJUnit4.class)
@@ -103,6 +108,48 @@ public class BrowserSelectorTest {
     public void setUp() {
         MockitoAnnotations.initMocks(this);
         when(mContext.getPackageManager()).thenReturn(mPackageManager);
+        when(mContext.getApplicationContext()).thenReturn(mContext);
+        BrowserSelector.clearCache();
+    }
+
+    @Test
+    public void testGetAllBrowsers_cachedWhileDefaultBrowserUnchanged() {
+        when(mPackageManager.queryIntentActivities(any(Intent.class), anyInt()))
+                .thenReturn(Arrays.asList(CHROME.mResolveInfo, FIREFOX.mResolveInfo));
+        when(mPackageManager.resolveActivity(any(Intent.class), anyInt()))
+                .thenReturn(CHROME.mResolveInfo);
+
+        BrowserSelector.getAllBrowsers(mContext);
+        BrowserSelector.getAllBrowsers(mContext);
+
+        verify(mPackageManager, times(1)).queryIntentActivities(any(Intent.class), anyInt());
+    }
+
+    @Test
+    public void testGetAllBrowsers_resolvedAgainWhenDefaultBrowserChanges() {
+        when(mPackageManager.queryIntentActivities(any(Intent.class), anyInt()))
+                .thenReturn(Arrays.asList(CHROME.mResolveInfo, FIREFOX.mResolveInfo))
+                .thenReturn(Arrays.asList(FIREFOX.mResolveInfo, CHROME.mResolveInfo));
+        when(mPackageManager.resolveActivity(any(Intent.class), anyInt()))
+                .thenReturn(CHROME.mResolveInfo)
+                .thenReturn(FIREFOX.mResolveInfo);
+
+        BrowserSelector.getAllBrowsers(mContext);
+        BrowserSelector.getAllBrowsers(mContext);
+
+        verify(mPackageManager, times(2)).queryIntentActivities(any(Intent.class), anyInt());
+    }
+
+    @Test
+    public void testGetAllBrowsers_resolvedAgainAfterClearCache() {
+        when(mPackageManager.queryIntentActivities(any(Intent.class), anyInt()))
+                .thenReturn(Arrays.asList(CHROME.mResolveInfo, FIREFOX.mResolveInfo));
+
+        BrowserSelector.getAllBrowsers(mContext);
+        BrowserSelector.clearCache();
+        BrowserSelector.getAllBrowsers(mContext);
+
+        verify(mPackageManager, times(2)).queryIntentActivities(any(Intent.class), anyInt());
     }
 
     @Test
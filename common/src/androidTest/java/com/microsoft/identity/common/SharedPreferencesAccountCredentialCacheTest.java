@@ -44,6 +44,9 @@ import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
 import java.util.List;
 
 import static com.microsoft.identity.common.internal.cache.CacheKeyValueDelegate.CACHE_VALUE_SEPARATOR;
@@ -51,6 +54,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 @RunWith(AndroidJUnit4.class)
 public class SharedPreferencesAccountCredentialCacheTest extends AndroidSecretKeyEnabledHelper {
@@ -1407,6 +1411,105 @@ public class SharedPreferencesAccountCredentialCacheTest extends AndroidSecretKe
         assertTrue(mSharedPreferencesAccountCredentialCache.getCredentials().isEmpty());
     }
 
+    @Test
+    public void exportAndImport() throws IOException {
+        final AccountRecord account = new AccountRecord();
+        account.setHomeAccountId(HOME_ACCOUNT_ID);
+        account.setEnvironment(ENVIRONMENT);
+        account.setRealm(REALM);
+        account.setLocalAccountId(LOCAL_ACCOUNT_ID);
+        account.setUsername(USERNAME);
+        account.setAuthorityType(AUTHORITY_TYPE);
+        mSharedPreferencesAccountCredentialCache.saveAccount(account);
+
+        final RefreshTokenRecord refreshToken = new RefreshTokenRecord();
+        refreshToken.setCredentialType(CredentialType.RefreshToken.name());
+        refreshToken.setEnvironment(ENVIRONMENT);
+        refreshToken.setHomeAccountId(HOME_ACCOUNT_ID);
+        refreshToken.setClientId(CLIENT_ID);
+        refreshToken.setSecret(SECRET);
+        refreshToken.setTarget(TARGET);
+        mSharedPreferencesAccountCredentialCache.saveCredential(refreshToken);
+
+        final StringWriter snapshot = new StringWriter();
+        mSharedPreferencesAccountCredentialCache.exportTo(snapshot);
+
+        // Replace the contents of the cache with the snapshot
+        final AccountRecord otherAccount = new AccountRecord();
+        otherAccount.setHomeAccountId(HOME_ACCOUNT_ID);
+        otherAccount.setEnvironment(ENVIRONMENT);
+        otherAccount.setRealm(REALM2);
+        otherAccount.setLocalAccountId(LOCAL_ACCOUNT_ID);
+        otherAccount.setUsername(USERNAME);
+        otherAccount.setAuthorityType(AUTHORITY_TYPE);
+        mSharedPreferencesAccountCredentialCache.saveAccount(otherAccount);
+        mSharedPreferencesAccountCredentialCache.importFrom(new StringReader(snapshot.toString()));
+
+        final List<AccountRecord> accounts = mSharedPreferencesAccountCredentialCache.getAccounts();
+        assertEquals(1, accounts.size());
+        assertEquals(account, accounts.get(0));
+
+        final List<Credential> credentials = mSharedPreferencesAccountCredentialCache.getCredentials();
+        assertEquals(1, credentials.size());
+        assertEquals(refreshToken, credentials.get(0));
+    }
+
+    @Test
+    public void importMalformedSnapshotLeavesCacheUntouched() {
+        final AccountRecord account = new AccountRecord();
+        account.setHomeAccountId(HOME_ACCOUNT_ID);
+        account.setEnvironment(ENVIRONMENT);
+        account.setRealm(REALM);
+        account.setLocalAccountId(LOCAL_ACCOUNT_ID);
+        account.setUsername(USERNAME);
+        account.setAuthorityType(AUTHORITY_TYPE);
+        mSharedPreferencesAccountCredentialCache.saveAccount(account);
+
+        try {
+            mSharedPreferencesAccountCredentialCache.importFrom(
+                    new StringReader("{\"version\":1,\"entries\":[{\"key\":\"foo\",\"value\":\"bar\"}]}")
+            );
+            fail("Expected an IOException.");
+        } catch (final IOException e) {
+            // Expected
+        }
+
+        assertEquals(1, mSharedPreferencesAccountCredentialCache.getAccounts().size());
+    }
+
+    @Test
+    public void importSnapshotWithInvalidVersionOrKeyLeavesCacheUntouched() {
+        final AccountRecord account = new AccountRecord();
+        account.setHomeAccountId(HOME_ACCOUNT_ID);
+        account.setEnvironment(ENVIRONMENT);
+        account.setRealm(REALM);
+        account.setLocalAccountId(LOCAL_ACCOUNT_ID);
+        account.setUsername(USERNAME);
+        account.setAuthorityType(AUTHORITY_TYPE);
+        mSharedPreferencesAccountCredentialCache.saveAccount(account);
+
+        final String entries = "\"entries\":[{\"key\":\"home-environment-realm\",\"value\":{}}]";
+        final String[] snapshots = {
+                "{\"version\":\"one\"," + entries + "}",
+                "{\"version\":1.5," + entries + "}",
+                "{\"version\":0," + entries + "}",
+                "{\"version\":-1," + entries + "}",
+                "{" + entries + "}",
+                "{\"version\":1,\"entries\":[{\"key\":\"foo\",\"value\":{}}]}"
+        };
+
+        for (final String snapshot : snapshots) {
+            try {
+                mSharedPreferencesAccountCredentialCache.importFrom(new StringReader(snapshot));
+                fail("Expected an IOException for " + snapshot);
+            } catch (final IOException e) {
+                // Expected
+            }
+        }
+
+        assertEquals(1, mSharedPreferencesAccountCredentialCache.getAccounts().size());
+    }
+
     @Test(expected = RuntimeException.class) // TODO Should this *really* throw a RuntimeException
     public void testThrowsExceptionForMalformedCredentialCacheKey() {
         mSharedPreferencesAccountCredentialCache.getCredential("Malformed cache key");
@@ -36,6 +36,8 @@ import org.junit.runner.RunWith;
 import org.junit.runners.Parameterized;
 
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
 
 import static junit.framework.Assert.assertEquals;
 import static junit.framework.Assert.assertFalse;
@@ -113,6 +115,18 @@ public class SharedPreferencesFileManagerTests extends AndroidSecretKeyEnabledHe
         assertEquals(expectedSize, mSharedPreferencesFileManager.getAll().size());
     }
 
+    @Test
+    public void testPutStrings() {
+        final Map<String, String> entries = new HashMap<>();
+        entries.put("1", sTEST_VALUE);
+        entries.put("2", sTEST_VALUE);
+        entries.put("3", "c");
+
+        mSharedPreferencesFileManager.putStrings(entries);
+
+        assertEquals(entries, mSharedPreferencesFileManager.getAll());
+    }
+
     @Test
     public void testContainsTrue() {
         mSharedPreferencesFileManager.putString(sTEST_KEY, sTEST_VALUE);
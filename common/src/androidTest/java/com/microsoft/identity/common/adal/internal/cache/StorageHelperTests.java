@@ -24,6 +24,7 @@ package com.microsoft.identity.common.adal.internal.cache;
 
 import android.annotation.TargetApi;
 import android.content.Context;
+import android.content.SharedPreferences;
 import android.os.Build;
 import android.util.Base64;
 import android.util.Log;
@@ -35,7 +36,9 @@ import com.microsoft.identity.common.adal.internal.AndroidSecretKeyEnabledHelper
 import com.microsoft.identity.common.adal.internal.AndroidTestHelper;
 import com.microsoft.identity.common.adal.internal.AuthenticationConstants;
 import com.microsoft.identity.common.adal.internal.AuthenticationSettings;
+import com.microsoft.identity.common.internal.cache.SharedPreferencesFileManager;
 
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -81,6 +84,12 @@ public class StorageHelperTests extends AndroidSecretKeyEnabledHelper {
         storageHelper.resetKeyPairFromAndroidKeyStore();
 
         AuthenticationSettings.INSTANCE.clearSecretKeysForTestCases();
+        AuthenticationSettings.INSTANCE.setUseAuthenticatedEncryption(false);
+    }
+
+    @After
+    public void tearDown() {
+        AuthenticationSettings.INSTANCE.setUseAuthenticatedEncryption(false);
     }
 
     @Test
@@ -194,6 +203,37 @@ public class StorageHelperTests extends AndroidSecretKeyEnabledHelper {
         String encrypted = storageHelper.encrypt(clearText);
         assertNotNull("encrypted string is not null", encrypted);
         assertFalse("encrypted string is not same as cleartext", encrypted.equals(clearText));
+        assertTrue("Encrypted in the legacy format", encrypted.startsWith("cE1"));
+
+        String decrypted = storageHelper.decrypt(encrypted);
+        assertTrue("Same without Tampering", decrypted.equals(clearText));
+        final String flagVersion = encrypted.substring(0, 3);
+        final byte[] bytes = Base64.decode(encrypted.substring(3), Base64.DEFAULT);
+        final int randomlyChosenByte = 15;
+        bytes[randomlyChosenByte]++;
+        final String modified = new String(Base64.encode(bytes, Base64.NO_WRAP), "UTF-8");
+        assertThrowsException(GeneralSecurityException.class, null, new ThrowableRunnable() {
+            @Override
+            public void run() throws Exception {
+                storageHelper.decrypt(flagVersion + modified);
+            }
+        });
+    }
+
+    @Test
+    public void testTamperingAuthenticatedEncryption() throws GeneralSecurityException, IOException {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.KITKAT) {
+            return;
+        }
+
+        AuthenticationSettings.INSTANCE.setUseAuthenticatedEncryption(true);
+        final Context context = getInstrumentation().getTargetContext();
+        final StorageHelper storageHelper = new StorageHelper(context);
+        String clearText = "AAAAAAAA2pILN0mn3wlYIlWk7lqOZ5qjRWXH";
+        String encrypted = storageHelper.encrypt(clearText);
+        assertNotNull("encrypted string is not null", encrypted);
+        assertFalse("encrypted string is not same as cleartext", encrypted.equals(clearText));
+        assertTrue("Encrypted in the authenticated format", encrypted.startsWith("cE2"));
 
         String decrypted = storageHelper.decrypt(encrypted);
         assertTrue("Same without Tampering", decrypted.equals(clearText));
@@ -441,6 +481,59 @@ public class StorageHelperTests extends AndroidSecretKeyEnabledHelper {
         assertTrue("Decrypted data is same", decryptedValue.equals(unencryptedValue));
     }
 
+    @Test
+    public void testLegacyEncodingIsDecryptedAndReEncrypted() throws IOException, GeneralSecurityException {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.KITKAT) {
+            return;
+        }
+
+        class LegacyEncodingStorageHelperMock extends StorageHelper {
+            public LegacyEncodingStorageHelperMock(@NonNull Context context) {
+                super(context);
+            }
+
+            @Override
+            protected boolean isAuthenticatedEncryptionSupported() {
+                return false;
+            }
+        }
+
+        final Context context = getInstrumentation().getTargetContext();
+        final StorageHelper storageHelper = new StorageHelper(context);
+        final String unencryptedValue = "SomeValue1234";
+
+        // Without the opt-in, values keep the legacy format and are not rewritten.
+        final String defaultEncryptedValue = storageHelper.encrypt(unencryptedValue);
+        assertTrue("Encrypted in the legacy format by default", defaultEncryptedValue.startsWith("cE1"));
+        assertFalse("Legacy format is not re-encrypted by default", storageHelper.needsReEncryption(defaultEncryptedValue));
+
+        AuthenticationSettings.INSTANCE.setUseAuthenticatedEncryption(true);
+        final String legacyEncryptedValue = new LegacyEncodingStorageHelperMock(context).encrypt(unencryptedValue);
+        assertTrue("Encrypted in the legacy format", legacyEncryptedValue.startsWith("cE1"));
+        assertTrue("Legacy format is re-encrypted", storageHelper.needsReEncryption(legacyEncryptedValue));
+        assertEquals(unencryptedValue, storageHelper.decrypt(legacyEncryptedValue));
+
+        final String encryptedValue = storageHelper.encrypt(unencryptedValue);
+        assertTrue("Encrypted in the authenticated format", encryptedValue.startsWith("cE2"));
+        assertFalse("Authenticated format is not re-encrypted", storageHelper.needsReEncryption(encryptedValue));
+        assertFalse("Clear text is not re-encrypted", storageHelper.needsReEncryption(unencryptedValue));
+        assertEquals(unencryptedValue, storageHelper.decrypt(encryptedValue));
+
+        // Values read in the legacy format are stored again in the authenticated format.
+        final String sharedPreferencesName = "com.microsoft.test.reencryption";
+        final String key = "test_key";
+        new SharedPreferencesFileManager(context, sharedPreferencesName, new LegacyEncodingStorageHelperMock(context))
+                .putString(key, unencryptedValue);
+        final SharedPreferences sharedPreferences = context.getSharedPreferences(sharedPreferencesName, Context.MODE_PRIVATE);
+        assertTrue(sharedPreferences.getString(key, null).startsWith("cE1"));
+
+        final SharedPreferencesFileManager fileManager = new SharedPreferencesFileManager(context, sharedPreferencesName, storageHelper);
+        assertEquals(unencryptedValue, fileManager.getString(key));
+        assertTrue(sharedPreferences.getString(key, null).startsWith("cE2"));
+        assertEquals(unencryptedValue, fileManager.getString(key));
+        fileManager.clear();
+    }
+
     @Test
     public void testSecretKeySerialization() throws UnsupportedEncodingException {
         final Context context = getInstrumentation().getTargetContext();
@@ -0,0 +1,185 @@
+// Copyright (c) Microsoft Corporation.
+// All rights reserved.
+//
+// This code is licensed under the MIT License.
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files(the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and / or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions :
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+package com.microsoft.identity.common.internal.broker;
+
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.Intent;
+import android.content.ServiceConnection;
+import android.os.IBinder;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.microsoft.identity.common.exception.ClientException;
+import com.microsoft.identity.common.internal.controllers.TaskCompletedCallbackWithError;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(AndroidJUnit4.class)
+public class BoundServiceConnectionPoolTest {
+
+    private static final String BROKER_PACKAGE = "com.azure.authenticator";
+
+    @Mock
+    Context mContext;
+
+    private ComponentName mComponent;
+    private Intent mIntent;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        when(mContext.getApplicationContext()).thenReturn(mContext);
+        when(mContext.bindService(any(Intent.class), any(ServiceConnection.class), anyInt()))
+                .thenReturn(true);
+
+        // The pool is static: use a new component per test, so that bindings do not leak between
+        // tests.
+        mComponent = new ComponentName(BROKER_PACKAGE, "Service" + UUID.randomUUID());
+        mIntent = new Intent().setComponent(mComponent);
+    }
+
+    @Test
+    public void testLeasesShareOneBinding() throws Exception {
+        final BoundServiceConnectionPool.Lease first = BoundServiceConnectionPool.acquire(mContext, mIntent);
+        final BoundServiceConnectionPool.Lease second = BoundServiceConnectionPool.acquire(mContext, mIntent);
+        final IBinder binder = mock(IBinder.class);
+
+        captureConnection().onServiceConnected(mComponent, binder);
+
+        assertSame(binder, first.getBinder().get());
+        assertSame(binder, second.getBinder().get());
+        verify(mContext, times(1)).bindService(any(Intent.class), any(ServiceConnection.class), anyInt());
+
+        first.release();
+        second.release();
+    }
+
+    @Test
+    public void testFailedBindReturnsNoLease() {
+        when(mContext.bindService(any(Intent.class), any(ServiceConnection.class), anyInt()))
+                .thenReturn(false);
+
+        assertNull(BoundServiceConnectionPool.acquire(mContext, mIntent));
+    }
+
+    @Test
+    public void testNullBindingFailsLease() {
+        final BoundServiceConnectionPool.Lease lease = BoundServiceConnectionPool.acquire(mContext, mIntent);
+        final ServiceConnection connection = captureConnection();
+
+        connection.onNullBinding(mComponent);
+
+        assertBoundServiceUnavailable(lease);
+        verify(mContext, never()).unbindService(connection);
+
+        lease.release();
+
+        verify(mContext).unbindService(connection);
+    }
+
+    @Test
+    public void testBindingDiedFailsLeaseAndRebinds() {
+        final BoundServiceConnectionPool.Lease lease = BoundServiceConnectionPool.acquire(mContext, mIntent);
+        final ServiceConnection connection = captureConnection();
+
+        connection.onBindingDied(mComponent);
+
+        assertBoundServiceUnavailable(lease);
+        lease.release();
+        verify(mContext).unbindService(connection);
+
+        // The dead binding is no longer shared.
+        final BoundServiceConnectionPool.Lease next = BoundServiceConnectionPool.acquire(mContext, mIntent);
+
+        assertNotNull(next);
+        assertFalse(next.getBinder().isDone());
+        verify(mContext, times(2)).bindService(any(Intent.class), any(ServiceConnection.class), anyInt());
+        next.release();
+    }
+
+    @Test
+    public void testCancellingLeaseKeepsOtherLeases() throws Exception {
+        final BoundServiceConnectionPool.Lease first = BoundServiceConnectionPool.acquire(mContext, mIntent);
+        final BoundServiceConnectionPool.Lease second = BoundServiceConnectionPool.acquire(mContext, mIntent);
+        final ServiceConnection connection = captureConnection();
+        final IBinder binder = mock(IBinder.class);
+
+        first.getBinder().cancel(true);
+        connection.onServiceConnected(mComponent, binder);
+
+        assertTrue(first.getBinder().isCancelled());
+        assertSame(binder, second.getBinder().get());
+        verify(mContext, never()).unbindService(connection);
+
+        second.release();
+    }
+
+    private ServiceConnection captureConnection() {
+        final ArgumentCaptor<ServiceConnection> connection = ArgumentCaptor.forClass(ServiceConnection.class);
+        verify(mContext).bindService(any(Intent.class), connection.capture(), anyInt());
+        return connection.getValue();
+    }
+
+    private static void assertBoundServiceUnavailable(final BoundServiceConnectionPool.Lease lease) {
+        final AtomicReference<Throwable> error = new AtomicReference<>();
+        lease.getBinder().addListener(new TaskCompletedCallbackWithError<IBinder, Throwable>() {
+            @Override
+            public void onTaskCompleted(final IBinder binder) {
+            }
+
+            @Override
+            public void onError(final Throwable throwable) {
+                error.set(throwable);
+            }
+        });
+
+        assertTrue(error.get() instanceof ClientException);
+        assertEquals(
+                ClientException.BOUND_SERVICE_UNAVAILABLE,
+                ((ClientException) error.get()).getErrorCode()
+        );
+    }
+}
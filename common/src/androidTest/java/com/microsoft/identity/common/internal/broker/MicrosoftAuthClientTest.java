@@ -0,0 +1,111 @@
+// Copyright (c) Microsoft Corporation.
+// All rights reserved.
+//
+// This code is licensed under the MIT License.
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files(the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and / or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions :
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+package com.microsoft.identity.common.internal.broker;
+
+import android.accounts.AccountManager;
+import android.accounts.AuthenticatorDescription;
+import android.content.Context;
+import android.content.Intent;
+import android.content.ServiceConnection;
+import android.content.pm.PackageManager;
+import android.content.pm.ResolveInfo;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.microsoft.identity.common.adal.internal.AuthenticationConstants;
+import com.microsoft.identity.common.exception.ClientException;
+import com.microsoft.identity.common.internal.request.Deadline;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.Collections;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.when;
+
+@RunWith(AndroidJUnit4.class)
+public class MicrosoftAuthClientTest {
+
+    private static final String BROKER_PACKAGE = "com.azure.authenticator";
+
+    @Mock
+    Context mContext;
+
+    @Mock
+    AccountManager mAccountManager;
+
+    @Mock
+    PackageManager mPackageManager;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        when(mContext.getApplicationContext()).thenReturn(mContext);
+        when(mContext.getSystemService(Context.ACCOUNT_SERVICE)).thenReturn(mAccountManager);
+        when(mContext.getPackageManager()).thenReturn(mPackageManager);
+        when(mAccountManager.getAuthenticatorTypes()).thenReturn(new AuthenticatorDescription[]{
+                new AuthenticatorDescription(AuthenticationConstants.Broker.BROKER_ACCOUNT_TYPE, BROKER_PACKAGE, 0, 0, 0, 0)
+        });
+        when(mPackageManager.queryIntentServices(any(Intent.class), anyInt()))
+                .thenReturn(Collections.singletonList(new ResolveInfo()));
+
+        // The service is bound, but never connects.
+        when(mContext.bindService(any(Intent.class), any(ServiceConnection.class), anyInt()))
+                .thenReturn(true);
+    }
+
+    @After
+    public void tearDown() {
+        Deadline.enter(null);
+    }
+
+    @Test
+    public void testConnectFailsWithDeadlineExceededOnceTheDeadlineExpires() throws Exception {
+        Deadline.enter(Deadline.after(0, TimeUnit.MILLISECONDS));
+        final MicrosoftAuthClient client = new MicrosoftAuthClient(mContext);
+
+        try {
+            client.connect().get(5, TimeUnit.SECONDS);
+            fail("The connection should fail once the deadline expires.");
+        } catch (final ExecutionException e) {
+            assertTrue(e.getCause() instanceof ClientException);
+            assertEquals(
+                    ClientException.DEADLINE_EXCEEDED,
+                    ((ClientException) e.getCause()).getErrorCode()
+            );
+        } finally {
+            client.disconnect();
+        }
+    }
+}
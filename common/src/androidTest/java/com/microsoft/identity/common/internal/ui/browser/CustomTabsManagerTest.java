@@ -0,0 +1,163 @@
+// Copyright (c) Microsoft Corporation.
+// All rights reserved.
+//
+// This code is licensed under the MIT License.
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files(the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and / or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions :
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+package com.microsoft.identity.common.internal.ui.browser;
+
+import android.content.Context;
+import android.content.Intent;
+import android.content.ServiceConnection;
+import android.net.Uri;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(AndroidJUnit4.class)
+public class CustomTabsManagerTest {
+
+    private static final String CHROME = "com.android.chrome";
+    private static final String FIREFOX = "org.mozilla.firefox";
+
+    @Mock
+    Context mContext;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        when(mContext.getApplicationContext()).thenReturn(mContext);
+        when(mContext.bindService(any(Intent.class), any(ServiceConnection.class), anyInt()))
+                .thenReturn(true);
+    }
+
+    @After
+    public void tearDown() {
+        CustomTabsManager.cancelPrewarm();
+    }
+
+    @Test
+    public void testPrewarmedManagerIsTakenOnceForSameBrowser() {
+        CustomTabsManager.prewarm(mContext, CHROME, null);
+
+        assertNull(CustomTabsManager.takePrewarmed(FIREFOX));
+        assertNotNull(CustomTabsManager.takePrewarmed(CHROME));
+        assertNull(CustomTabsManager.takePrewarmed(CHROME));
+    }
+
+    @Test
+    public void testCancelPrewarmReleasesConnection() {
+        CustomTabsManager.prewarm(mContext, CHROME, null);
+
+        CustomTabsManager.cancelPrewarm();
+
+        verify(mContext).unbindService(any(ServiceConnection.class));
+        assertNull(CustomTabsManager.takePrewarmed(CHROME));
+    }
+
+    @Test
+    public void testUnclaimedPrewarmIsReleased() {
+        CustomTabsManager.prewarm(mContext, CHROME, null, 50);
+
+        verify(mContext, timeout(2000)).unbindService(any(ServiceConnection.class));
+        assertNull(CustomTabsManager.takePrewarmed(CHROME));
+    }
+
+    @Test
+    public void testClaimedPrewarmIsNotReleased() throws InterruptedException {
+        CustomTabsManager.prewarm(mContext, CHROME, null, 50);
+        assertNotNull(CustomTabsManager.takePrewarmed(CHROME));
+
+        Thread.sleep(200);
+
+        verify(mContext, never()).unbindService(any(ServiceConnection.class));
+    }
+
+    @Test
+    public void testBindRetriesFailedPrewarmBind() {
+        when(mContext.bindService(any(Intent.class), any(ServiceConnection.class), anyInt()))
+                .thenReturn(false)
+                .thenReturn(true);
+        CustomTabsManager.prewarm(mContext, CHROME, null);
+
+        final CustomTabsManager manager = CustomTabsManager.takePrewarmed(CHROME);
+        assertNotNull(manager);
+        manager.bind(CHROME);
+
+        verify(mContext, times(2)).bindService(any(Intent.class), any(ServiceConnection.class), anyInt());
+        manager.unbind();
+    }
+
+    @Test
+    public void testBindReusesPrewarmedConnection() {
+        CustomTabsManager.prewarm(mContext, CHROME, null);
+
+        final CustomTabsManager manager = CustomTabsManager.takePrewarmed(CHROME);
+        assertNotNull(manager);
+        manager.bind(CHROME);
+
+        verify(mContext, times(1)).bindService(any(Intent.class), any(ServiceConnection.class), anyInt());
+        manager.unbind();
+        verify(mContext).unbindService(any(ServiceConnection.class));
+    }
+
+    @Test
+    public void testWaitingForConnectionDoesNotBlockManager() throws InterruptedException {
+        // The service never connects: bind() waits for the connection timeout.
+        final CustomTabsManager manager = new CustomTabsManager(mContext);
+        final CountDownLatch bindStarted = new CountDownLatch(1);
+        final Thread binder = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                bindStarted.countDown();
+                manager.bind(CHROME);
+            }
+        });
+        binder.start();
+        assertTrue(bindStarted.await(1, TimeUnit.SECONDS));
+        Thread.sleep(100);
+
+        final long start = System.nanoTime();
+        manager.mayLaunchUrl(Uri.parse("https://login.microsoftonline.com/common/oauth2/v2.0/authorize"));
+
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 500);
+        binder.join();
+        manager.unbind();
+    }
+}
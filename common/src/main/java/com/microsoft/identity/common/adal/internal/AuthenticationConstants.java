@@ -1065,6 +1065,16 @@ public final class AuthenticationConstants {
          */
         public static final String BROKER_RESULT_V2 = "broker_result_v2";
 
+        /**
+         * String to send Msal V2 Request params in the compact IPC encoding.
+         */
+        public static final String BROKER_REQUEST_V2_COMPACT = "broker_request_v2_compact";
+
+        /**
+         * String to return Msal V2 response in the compact IPC encoding.
+         */
+        public static final String BROKER_RESULT_V2_COMPACT = "broker_result_v2_compact";
+
         /**
          * Represents the broker device mode boolean (true = shared device mode).
          * This is used to determine what PublicClientApplication MSAL will return to its caller.
@@ -82,6 +82,11 @@ public enum AuthenticationSettings {
 
     private int mReadTimeOut = DEFAULT_READ_CONNECT_TIMEOUT;
 
+    /**
+     * Set to false by default: cache values are encrypted with AES/CBC and signed with HmacSHA256.
+     */
+    private boolean mUseAuthenticatedEncryption = false;
+
     /**
      * Get bytes to derive secretKey to use in encrypt/decrypt.
      *
@@ -279,6 +284,28 @@ public enum AuthenticationSettings {
         mUseBroker = useBroker;
     }
 
+    /**
+     * Get whether cache values are encrypted with AES/GCM.
+     *
+     * @return true if cache values are encrypted with AES/GCM.
+     */
+    public boolean getUseAuthenticatedEncryption() {
+        return mUseAuthenticatedEncryption;
+    }
+
+    /**
+     * Set flag to encrypt cache values with AES/GCM, on API 19 and above. Values already stored
+     * with AES/CBC are encrypted again when they are read.
+     * By default, the flag value is false. Values stored with AES/GCM cannot be read by versions
+     * of the library that do not support it, so only set it once all the apps sharing the cache
+     * can read them. Turning it off again does not prevent reading them.
+     *
+     * @param useAuthenticatedEncryption True to encrypt cache values with AES/GCM
+     */
+    public void setUseAuthenticatedEncryption(boolean useAuthenticatedEncryption) {
+        mUseAuthenticatedEncryption = useAuthenticatedEncryption;
+    }
+
     /**
      * Sets package name to use {@link DefaultTokenCacheStore} with sharedUserId
      * apps.
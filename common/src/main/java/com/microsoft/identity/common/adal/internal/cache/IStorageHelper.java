@@ -48,6 +48,15 @@ public interface IStorageHelper {
      */
     String decrypt(String encryptedBlob) throws GeneralSecurityException, IOException;
 
+    /**
+     * Tells if the supplied blob is encrypted in a legacy format, and should be encrypted again
+     * with {@link #encrypt(String)} once decrypted.
+     *
+     * @param encryptedBlob The encrypted blob.
+     * @return True, if the blob should be encrypted again.
+     */
+    boolean needsReEncryption(String encryptedBlob);
+
     /**
      * Get Secret Key based on API level to use in encryption. Decryption key
      * depends on version# since user can migrate to new Android.OS
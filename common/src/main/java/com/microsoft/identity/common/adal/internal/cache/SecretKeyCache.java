@@ -0,0 +1,146 @@
+// Copyright (c) Microsoft Corporation.
+// All rights reserved.
+//
+// This code is licensed under the MIT License.
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files(the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and / or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions :
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+package com.microsoft.identity.common.adal.internal.cache;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.crypto.SecretKey;
+
+/**
+ * Process-wide cache of the keys used by {@link StorageHelper}, shared by all of its instances.
+ * <p>
+ * Unwrapping the keystore-encrypted key takes a read of the AndroidKeyStore and an RSA
+ * operation, each of which can cost tens of milliseconds. An unwrapped key is cached along with
+ * the wrapped key it was unwrapped from, and is only returned for the same wrapped key: a key file
+ * rewritten by another instance or process is unwrapped again.
+ */
+final class SecretKeyCache {
+
+    /**
+     * The maximum number of derived HMAC keys to retain.
+     */
+    private static final int MAX_HMAC_KEYS = 8;
+
+    private static final Map<String, UnwrappedKey> sUnwrappedKeys = new HashMap<>();
+
+    private static final Map<SecretKey, SecretKey> sHMacKeys =
+            new LinkedHashMap<SecretKey, SecretKey>(MAX_HMAC_KEYS, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(final Map.Entry<SecretKey, SecretKey> eldest) {
+                    return size() > MAX_HMAC_KEYS;
+                }
+            };
+
+    private SecretKeyCache() {
+        // Utility class.
+    }
+
+    /**
+     * Returns the key previously unwrapped from the supplied wrapped key.
+     *
+     * @param keyFilePath The path of the file holding the wrapped key.
+     * @param wrappedKey  The current contents of that file.
+     * @return The unwrapped key, or null if it is not cached or the file has changed since.
+     */
+    @Nullable
+    static synchronized SecretKey getUnwrappedKey(@NonNull final String keyFilePath,
+                                                  @NonNull final byte[] wrappedKey) {
+        final UnwrappedKey unwrappedKey = sUnwrappedKeys.get(keyFilePath);
+
+        if (unwrappedKey == null || !Arrays.equals(unwrappedKey.mWrappedKey, wrappedKey)) {
+            return null;
+        }
+
+        return unwrappedKey.mKey;
+    }
+
+    /**
+     * Caches the key unwrapped from, or wrapped into, the supplied wrapped key.
+     *
+     * @param keyFilePath The path of the file holding the wrapped key.
+     * @param wrappedKey  The contents of that file.
+     * @param key         The unwrapped key.
+     */
+    static synchronized void putUnwrappedKey(@NonNull final String keyFilePath,
+                                             @NonNull final byte[] wrappedKey,
+                                             @NonNull final SecretKey key) {
+        sUnwrappedKeys.put(keyFilePath, new UnwrappedKey(wrappedKey.clone(), key));
+    }
+
+    /**
+     * Drops the unwrapped key cached for the supplied key file, so that it is read and unwrapped
+     * again on next use.
+     *
+     * @param keyFilePath The path of the file holding the wrapped key.
+     */
+    static synchronized void invalidate(@NonNull final String keyFilePath) {
+        final UnwrappedKey unwrappedKey = sUnwrappedKeys.remove(keyFilePath);
+
+        if (unwrappedKey != null) {
+            sHMacKeys.remove(unwrappedKey.mKey);
+        }
+    }
+
+    /**
+     * @param key The key the HMAC key is derived from.
+     * @return The HMAC key previously derived from the supplied key, or null.
+     */
+    @Nullable
+    static synchronized SecretKey getHMacKey(@NonNull final SecretKey key) {
+        return sHMacKeys.get(key);
+    }
+
+    /**
+     * @param key     The key the HMAC key is derived from.
+     * @param hmacKey The derived HMAC key.
+     */
+    static synchronized void putHMacKey(@NonNull final SecretKey key,
+                                        @NonNull final SecretKey hmacKey) {
+        sHMacKeys.put(key, hmacKey);
+    }
+
+    /**
+     * Clears all cached keys.
+     */
+    static synchronized void clear() {
+        sUnwrappedKeys.clear();
+        sHMacKeys.clear();
+    }
+
+    private static final class UnwrappedKey {
+
+        private final byte[] mWrappedKey;
+        private final SecretKey mKey;
+
+        UnwrappedKey(@NonNull final byte[] wrappedKey, @NonNull final SecretKey key) {
+            mWrappedKey = wrappedKey;
+            mKey = key;
+        }
+    }
+}
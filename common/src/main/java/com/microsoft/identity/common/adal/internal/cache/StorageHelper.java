@@ -72,6 +72,7 @@ import javax.crypto.Cipher;
 import javax.crypto.KeyGenerator;
 import javax.crypto.Mac;
 import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
 import javax.crypto.spec.IvParameterSpec;
 import javax.crypto.spec.SecretKeySpec;
 import javax.security.auth.x500.X500Principal;
@@ -149,9 +150,29 @@ public class StorageHelper implements IStorageHelper {
 
     /**
      * To keep track of encoding version and related flags.
+     * Blobs of this version are encrypted with {@link #CIPHER_ALGORITHM} and signed with
+     * {@link #HMAC_ALGORITHM}.
      */
     private static final String ENCODE_VERSION = "E1";
 
+    /**
+     * Encoding version of blobs encrypted with {@link #GCM_CIPHER_ALGORITHM}, which authenticates
+     * the data in the same pass. Blobs are laid out as keyVersion-iv-encryptedData-tag.
+     */
+    private static final String ENCODE_VERSION_GCM = "E2";
+
+    private static final String GCM_CIPHER_ALGORITHM = "AES/GCM/NoPadding";
+
+    /**
+     * IV length recommended for AES/GCM.
+     */
+    private static final int GCM_IV_LENGTH = 12;
+
+    /**
+     * Length of the AES/GCM authentication tag, in bits.
+     */
+    private static final int GCM_TAG_LENGTH = 128;
+
     private static final int KEY_FILE_SIZE = 1024;
 
     private static final String ANDROID_KEY_STORE = "AndroidKeyStore";
@@ -230,6 +251,10 @@ public class StorageHelper implements IStorageHelper {
         mEncryptionKey = loadSecretKeyForEncryption();
         mEncryptionHMACKey = getHMacKey(mEncryptionKey);
 
+        if (shouldEncryptWithAuthenticatedCipher()) {
+            return encryptWithAuthenticatedCipher(clearText);
+        }
+
         Logger.verbose(TAG + methodName, "Encrypt version:" + mBlobVersion);
         final byte[] blobVersion = mBlobVersion.getBytes(AuthenticationConstants.ENCODING_UTF8);
         final byte[] bytes = clearText.getBytes(AuthenticationConstants.ENCODING_UTF8);
@@ -273,6 +298,74 @@ public class StorageHelper implements IStorageHelper {
         return getEncodeVersionLengthPrefix() + ENCODE_VERSION + encryptedText;
     }
 
+    @TargetApi(Build.VERSION_CODES.KITKAT)
+    private String encryptWithAuthenticatedCipher(@NonNull final String clearText)
+            throws GeneralSecurityException, IOException {
+        final String methodName = ":encryptWithAuthenticatedCipher";
+
+        Logger.verbose(TAG + methodName, "Encrypt version:" + mBlobVersion);
+        final byte[] blobVersion = mBlobVersion.getBytes(AuthenticationConstants.ENCODING_UTF8);
+        final byte[] bytes = clearText.getBytes(AuthenticationConstants.ENCODING_UTF8);
+
+        final byte[] iv = new byte[GCM_IV_LENGTH];
+        mRandom.nextBytes(iv);
+
+        // The key version is authenticated along with the encrypted data.
+        final Cipher cipher = Cipher.getInstance(GCM_CIPHER_ALGORITHM);
+        cipher.init(Cipher.ENCRYPT_MODE, mEncryptionKey, new GCMParameterSpec(GCM_TAG_LENGTH, iv));
+        cipher.updateAAD(blobVersion);
+        final byte[] encryptedAndTag = cipher.doFinal(bytes);
+
+        final byte[] blobVerAndIVAndEncryptedDataAndTag =
+                new byte[blobVersion.length + iv.length + encryptedAndTag.length];
+        System.arraycopy(blobVersion, 0, blobVerAndIVAndEncryptedDataAndTag, 0,
+                blobVersion.length);
+        System.arraycopy(iv, 0, blobVerAndIVAndEncryptedDataAndTag, blobVersion.length,
+                iv.length);
+        System.arraycopy(encryptedAndTag, 0, blobVerAndIVAndEncryptedDataAndTag,
+                blobVersion.length + iv.length, encryptedAndTag.length);
+
+        final String encryptedText = new String(Base64.encode(blobVerAndIVAndEncryptedDataAndTag,
+                Base64.NO_WRAP), AuthenticationConstants.ENCODING_UTF8);
+        Logger.verbose(TAG + methodName, "Finished encryption");
+
+        return getEncodeVersionLengthPrefix() + ENCODE_VERSION_GCM + encryptedText;
+    }
+
+    /**
+     * Tells if the platform supports {@link #GCM_CIPHER_ALGORITHM}. If it does not, values are
+     * encrypted with {@link #CIPHER_ALGORITHM} and signed with {@link #HMAC_ALGORITHM}.
+     * Exposed to be overridden by mock tests.
+     */
+    protected boolean isAuthenticatedEncryptionSupported() {
+        return Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT;
+    }
+
+    /**
+     * Tells if new values are encrypted with {@link #GCM_CIPHER_ALGORITHM}: only if enabled with
+     * {@link AuthenticationSettings#setUseAuthenticatedEncryption(boolean)} and supported by the
+     * platform. Blobs encrypted with it are decrypted either way.
+     */
+    private boolean shouldEncryptWithAuthenticatedCipher() {
+        return AuthenticationSettings.INSTANCE.getUseAuthenticatedEncryption()
+                && isAuthenticatedEncryptionSupported();
+    }
+
+    @Override
+    public boolean needsReEncryption(@NonNull final String encryptedBlob) {
+        if (!shouldEncryptWithAuthenticatedCipher()
+                || StringExtensions.isNullOrBlank(encryptedBlob)) {
+            return false;
+        }
+
+        try {
+            return ENCODE_VERSION.equals(getEncodeVersion(encryptedBlob));
+        } catch (final RuntimeException e) {
+            // Not an encrypted blob.
+            return false;
+        }
+    }
+
     @Override
     public String decrypt(final String encryptedBlob) throws GeneralSecurityException, IOException {
         final String methodName = ":decrypt";
@@ -290,6 +383,7 @@ public class StorageHelper implements IStorageHelper {
         final String packageName = getPackageName();
         final List<KeyType> keysForDecryptionType = getKeysForDecryptionType(encryptedBlob, packageName);
 
+        final boolean isAuthenticated = ENCODE_VERSION_GCM.equals(getEncodeVersion(encryptedBlob));
         final byte[] bytes = getByteArrayFromEncryptedBlob(encryptedBlob);
         for (final KeyType keyType : keysForDecryptionType) {
             try {
@@ -298,11 +392,18 @@ public class StorageHelper implements IStorageHelper {
                     continue;
                 }
 
-                String result = decryptWithSecretKey(bytes, secretKey);
+                String result = isAuthenticated
+                        ? decryptWithAuthenticatedCipher(bytes, secretKey)
+                        : decryptWithSecretKey(bytes, secretKey);
                 Logger.verbose(TAG + methodName, "Finished decryption with keyType:" + keyType.name());
                 return result;
             } catch (GeneralSecurityException | IOException e) {
                 emitDecryptionFailureTelemetryIfNeeded(keyType, e);
+
+                if (keyType == KeyType.KEYSTORE_ENCRYPTED_KEY) {
+                    // The key file may have been rewritten by another instance or process.
+                    invalidateKeyStoreEncryptedKey();
+                }
             }
         }
 
@@ -380,15 +481,22 @@ public class StorageHelper implements IStorageHelper {
     }
 
     private byte[] getByteArrayFromEncryptedBlob(@NonNull final String encryptedBlob) {
-        int encodeVersionLength = encryptedBlob.charAt(0) - 'a';
-        validateEncodeVersion(encryptedBlob, encodeVersionLength);
+        final String encodeVersion = getEncodeVersion(encryptedBlob);
 
         return Base64.decode(
-                encryptedBlob.substring(1 + encodeVersionLength),
+                encryptedBlob.substring(1 + encodeVersion.length()),
                 Base64.DEFAULT
         );
     }
 
+    @NonNull
+    private String getEncodeVersion(@NonNull final String encryptedBlob) {
+        int encodeVersionLength = encryptedBlob.charAt(0) - 'a';
+        validateEncodeVersion(encryptedBlob, encodeVersionLength);
+
+        return encryptedBlob.substring(1, 1 + encodeVersionLength);
+    }
+
     /**
      * Get all the key type that could be potential candidates for decryption.
      **/
@@ -466,6 +574,37 @@ public class StorageHelper implements IStorageHelper {
         return decrypted;
     }
 
+    @NonNull
+    @TargetApi(Build.VERSION_CODES.KITKAT)
+    private String decryptWithAuthenticatedCipher(@NonNull final byte[] bytes,
+                                                  @NonNull final SecretKey secretKey)
+            throws GeneralSecurityException, IOException {
+        if (!isAuthenticatedEncryptionSupported()) {
+            throw new NoSuchAlgorithmException(GCM_CIPHER_ALGORITHM + " is not supported.");
+        }
+
+        // byte input array: keyVersion-iv-encryptedData-tag
+        final int encryptedIndex = KEY_VERSION_BLOB_LENGTH + GCM_IV_LENGTH;
+
+        if (bytes.length < encryptedIndex + GCM_TAG_LENGTH / Byte.SIZE) {
+            throw new IOException("Invalid byte array input for decryption.");
+        }
+
+        // Verifies the tag, over the key version and the encrypted data, while decrypting.
+        final Cipher cipher = Cipher.getInstance(GCM_CIPHER_ALGORITHM);
+        cipher.init(
+                Cipher.DECRYPT_MODE,
+                secretKey,
+                new GCMParameterSpec(GCM_TAG_LENGTH, bytes, KEY_VERSION_BLOB_LENGTH, GCM_IV_LENGTH)
+        );
+        cipher.updateAAD(bytes, 0, KEY_VERSION_BLOB_LENGTH);
+
+        return new String(
+                cipher.doFinal(bytes, encryptedIndex, bytes.length - encryptedIndex),
+                AuthenticationConstants.ENCODING_UTF8
+        );
+    }
+
     private void validateEncodeVersion(String encryptedBlob, int encodeVersionLength) {
         if (encodeVersionLength <= 0) {
             throw new IllegalArgumentException(
@@ -476,11 +615,14 @@ public class StorageHelper implements IStorageHelper {
             );
         }
 
-        if (!encryptedBlob.substring(1, 1 + encodeVersionLength).equals(ENCODE_VERSION)) {
+        final String encodeVersion = encryptedBlob.substring(1, 1 + encodeVersionLength);
+
+        if (!encodeVersion.equals(ENCODE_VERSION) && !encodeVersion.equals(ENCODE_VERSION_GCM)) {
             throw new IllegalArgumentException(
                     String.format(
-                            "Unsupported encode version received. Encode version supported is: '%s'",
-                            ENCODE_VERSION
+                            "Unsupported encode version received. Encode versions supported are: '%s', '%s'",
+                            ENCODE_VERSION,
+                            ENCODE_VERSION_GCM
                     )
             );
         }
@@ -583,6 +725,7 @@ public class StorageHelper implements IStorageHelper {
 
         final byte[] keyWrapped = wrap(unencryptedKey);
         writeKeyData(keyWrapped);
+        SecretKeyCache.putUnwrappedKey(getKeyFile().getPath(), keyWrapped, unencryptedKey);
     }
 
     /**
@@ -632,6 +775,15 @@ public class StorageHelper implements IStorageHelper {
         return mCachedKeyStoreEncryptedKey;
     }
 
+    /**
+     * Drops the keystore-encrypted key cached by this instance, so that the key file is read again
+     * on next use. The key is only unwrapped again if the file has changed, see
+     * {@link SecretKeyCache}.
+     */
+    private synchronized void invalidateKeyStoreEncryptedKey() {
+        mCachedKeyStoreEncryptedKey = null;
+    }
+
     @TargetApi(Build.VERSION_CODES.JELLY_BEAN_MR2)
     private synchronized KeyPair generateKeyPairFromAndroidKeyStore()
             throws GeneralSecurityException, IOException {
@@ -749,11 +901,18 @@ public class StorageHelper implements IStorageHelper {
      * @throws NoSuchAlgorithmException
      */
     private SecretKey getHMacKey(final SecretKey key) throws NoSuchAlgorithmException {
+        final SecretKey cachedHMacKey = SecretKeyCache.getHMacKey(key);
+        if (cachedHMacKey != null) {
+            return cachedHMacKey;
+        }
+
         // Some keys may not produce byte[] with getEncoded
         final byte[] encodedKey = key.getEncoded();
         if (encodedKey != null) {
             final MessageDigest digester = MessageDigest.getInstance(HMAC_KEY_HASH_ALGORITHM);
-            return new SecretKeySpec(digester.digest(encodedKey), KEYSPEC_ALGORITHM);
+            final SecretKey hmacKey = new SecretKeySpec(digester.digest(encodedKey), KEYSPEC_ALGORITHM);
+            SecretKeyCache.putHMacKey(key, hmacKey);
+            return hmacKey;
         }
 
         return key;
@@ -807,6 +966,14 @@ public class StorageHelper implements IStorageHelper {
             return null;
         }
 
+        // The key may already have been unwrapped by another instance.
+        final String keyFilePath = getKeyFile().getPath();
+        final SecretKey cachedSecretKey = SecretKeyCache.getUnwrappedKey(keyFilePath, wrappedSecretKey);
+        if (cachedSecretKey != null) {
+            Logger.verbose(TAG + methodName, "Using cached SecretKey");
+            return cachedSecretKey;
+        }
+
         // androidKeyStore can store app specific self signed cert.
         // Asymmetric cryptography is used to protect the session key
         // used for Encryption and HMac
@@ -816,6 +983,7 @@ public class StorageHelper implements IStorageHelper {
         }
 
         unwrappedSecretKey = unwrap(wrappedSecretKey);
+        SecretKeyCache.putUnwrappedKey(keyFilePath, wrappedSecretKey, unwrappedSecretKey);
         Logger.verbose(TAG + methodName, "Finished reading SecretKey");
         return unwrappedSecretKey;
     }
@@ -823,8 +991,8 @@ public class StorageHelper implements IStorageHelper {
     protected void deleteKeyFile() {
         final String methodName = ":deleteKeyFile";
 
-        final File keyFile = new File(mContext.getDir(getPackageName(),
-                Context.MODE_PRIVATE), ADALKS);
+        final File keyFile = getKeyFile();
+        SecretKeyCache.invalidate(keyFile.getPath());
         if (keyFile.exists()) {
             Logger.verbose(TAG + methodName, "Delete KeyFile");
             if (!keyFile.delete()) {
@@ -836,6 +1004,9 @@ public class StorageHelper implements IStorageHelper {
     @TargetApi(Build.VERSION_CODES.JELLY_BEAN_MR2)
     protected synchronized void resetKeyPairFromAndroidKeyStore() throws KeyStoreException,
             NoSuchAlgorithmException, CertificateException, IOException {
+        // The key file can no longer be unwrapped with a new key entry.
+        SecretKeyCache.invalidate(getKeyFile().getPath());
+
         final KeyStore keyStore = KeyStore.getInstance(ANDROID_KEY_STORE);
         keyStore.load(null);
         keyStore.deleteEntry(KEY_STORE_CERT_ALIAS);
@@ -877,8 +1048,7 @@ public class StorageHelper implements IStorageHelper {
         final String methodName = ":writeKeyData";
 
         Logger.verbose(TAG + methodName, "Writing key data to a file");
-        final File keyFile = new File(mContext.getDir(getPackageName(), Context.MODE_PRIVATE),
-                ADALKS);
+        final File keyFile = getKeyFile();
         final OutputStream out = new FileOutputStream(keyFile);
         try {
             out.write(data);
@@ -891,8 +1061,7 @@ public class StorageHelper implements IStorageHelper {
     private byte[] readKeyData() throws IOException {
         final String methodName = ":readKeyData";
 
-        final File keyFile = new File(mContext.getDir(getPackageName(), Context.MODE_PRIVATE),
-                ADALKS);
+        final File keyFile = getKeyFile();
         if (!keyFile.exists()) {
             return null;
         }
@@ -913,6 +1082,10 @@ public class StorageHelper implements IStorageHelper {
         }
     }
 
+    private File getKeyFile() {
+        return new File(mContext.getDir(getPackageName(), Context.MODE_PRIVATE), ADALKS);
+    }
+
     public String serializeSecretKey(@NonNull final SecretKey key) {
         return Base64.encodeToString(key.getEncoded(), Base64.DEFAULT);
     }
@@ -24,6 +24,8 @@ package com.microsoft.identity.common.adal.internal.net;
 
 import androidx.annotation.VisibleForTesting;
 
+import com.microsoft.identity.common.internal.net.HttpTransport;
+
 import java.io.IOException;
 import java.net.HttpURLConnection;
 import java.net.URL;
@@ -71,7 +73,7 @@ public final class HttpUrlConnectionFactory {
             return sMockedConnection;
         }
 
-        return (HttpURLConnection) url.openConnection();
+        return HttpTransport.openConnection(url);
     }
 
     /**
@@ -28,18 +28,14 @@ import android.os.Debug;
 import com.microsoft.identity.common.adal.internal.AuthenticationSettings;
 import com.microsoft.identity.common.exception.ClientException;
 import com.microsoft.identity.common.exception.ErrorStrings;
+import com.microsoft.identity.common.internal.net.HttpTransport;
+import com.microsoft.identity.common.internal.net.NetworkStateMonitor;
 
-import java.io.BufferedReader;
-import java.io.Closeable;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.io.OutputStream;
 import java.net.HttpURLConnection;
 import java.net.URL;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.Set;
 
 /**
  * Webrequest are called in background thread from API level. HttpWebRequest
@@ -108,23 +104,7 @@ public class HttpWebRequest {
         }
         HttpURLConnection.setFollowRedirects(true);
         final HttpURLConnection connection = HttpUrlConnectionFactory.createHttpUrlConnection(mUrl);
-        connection.setConnectTimeout(CONNECT_TIME_OUT);
-        connection.setRequestProperty("Connection", "close");
-
-
-        // Apply the request headers
-        final Set<Map.Entry<String, String>> headerEntries = mRequestHeaders.entrySet();
-        for (final Map.Entry<String, String> entry : headerEntries) {
-            connection.setRequestProperty(entry.getKey(), entry.getValue());
-        }
-
-        connection.setReadTimeout(READ_TIME_OUT);
-        connection.setInstanceFollowRedirects(true);
-        connection.setUseCaches(false);
-        connection.setRequestMethod(mRequestMethod);
-        connection.setDoInput(true); // it will at least read status
-        // code. Default is true.
-        setRequestBody(connection, mRequestContent, mRequestContentType);
+        HttpTransport.configure(connection, mRequestHeaders, CONNECT_TIME_OUT, READ_TIME_OUT, false);
 
         return connection;
     }
@@ -137,46 +117,31 @@ public class HttpWebRequest {
      */
     public HttpWebResponse send() throws IOException {
         final HttpURLConnection connection = setupConnection();
-        final HttpWebResponse response;
-        InputStream responseStream = null;
-        try {
+        // GET request reads status after getInputStream to make
+        // this work for different SDKs
+        final HttpTransport.Response response = HttpTransport.execute(
+                connection,
+                mRequestMethod,
+                mRequestContent,
+                mRequestContentType,
+                true
+        );
+
+        // It will only run in debugger and set from outside for testing
+        if (Debug.isDebuggerConnected() && DEBUG_SIMULATE_DELAY > 0) {
+            // sleep background thread in debugging mode
             try {
-                responseStream = connection.getInputStream();
-            } catch (IOException ex) {
-                // If it does not get the error stream, it will return
-                // exception in the httpresponse
-                responseStream = connection.getErrorStream();
-                if (responseStream == null) {
-                    throw ex;
-                }
+                Thread.sleep(DEBUG_SIMULATE_DELAY);
+            } catch (InterruptedException e) {
+                // Do nothing.
             }
-            // GET request should read status after getInputStream to make
-            // this work for different SDKs
-            final int statusCode = connection.getResponseCode();
-            final String responseBody = convertStreamToString(responseStream);
-
-            // It will only run in debugger and set from outside for testing
-            if (Debug.isDebuggerConnected() && DEBUG_SIMULATE_DELAY > 0) {
-                // sleep background thread in debugging mode
-                try {
-                    Thread.sleep(DEBUG_SIMULATE_DELAY);
-                } catch (InterruptedException e) {
-                    // Do nothing.
-                }
-            }
-
-            response = new HttpWebResponse(statusCode, responseBody, connection.getHeaderFields());
-        } finally {
-            safeCloseStream(responseStream);
-            // We are not disconnecting from network to allow connection to be returned into the
-            // connection pool. If we call disconnect due to buggy implementation we are not reusing
-            // connections.
-            //if (connection != null) {
-            //	connection.disconnect();
-            //}
         }
 
-        return response;
+        return new HttpWebResponse(
+                response.getStatusCode(),
+                HttpTransport.joinLines(response.getBody()),
+                response.getHeaders()
+        );
     }
 
     /**
@@ -189,8 +154,8 @@ public class HttpWebRequest {
      * @throws ClientException throw network exception
      */
     public static void throwIfNetworkNotAvailable(final Context context) throws ClientException {
-        final DefaultConnectionService connectionService = new DefaultConnectionService(context);
-        if (!connectionService.isConnectionAvailable()) {
+        if (!NetworkStateMonitor.getInstance(context).isConnectionAvailable()) {
+            final DefaultConnectionService connectionService = new DefaultConnectionService(context);
             if (connectionService.isNetworkDisabledFromOptimizations()) {
                 final ClientException dozeModeException = new ClientException(
                         ErrorStrings.NO_NETWORK_CONNECTION_POWER_OPTIMIZATION,
@@ -205,69 +170,4 @@ public class HttpWebRequest {
             }
         }
     }
-
-    /**
-     * Convert stream into the string.
-     *
-     * @param inputStream {@link InputStream} to be converted to be a string.
-     * @return The converted string
-     * @throws IOException Thrown when failing to access inputStream stream.
-     */
-    private static String convertStreamToString(InputStream inputStream) throws IOException {
-        BufferedReader reader = null;
-        try {
-            reader = new BufferedReader(new InputStreamReader(inputStream));
-            StringBuilder sb = new StringBuilder();
-            String line;
-            while ((line = reader.readLine()) != null) {
-                if (sb.length() > 0) {
-                    sb.append('\n');
-                }
-                sb.append(line);
-            }
-
-            return sb.toString();
-        } finally {
-            if (reader != null) {
-                reader.close();
-            }
-        }
-    }
-
-    private static void setRequestBody(HttpURLConnection connection, byte[] contentRequest, String requestContentType) throws IOException {
-        if (null != contentRequest) {
-            connection.setDoOutput(true);
-
-            if (null != requestContentType && !requestContentType.isEmpty()) {
-                connection.setRequestProperty("Content-Type", requestContentType);
-            }
-
-            connection.setRequestProperty("Content-Length",
-                    Integer.toString(contentRequest.length));
-            connection.setFixedLengthStreamingMode(contentRequest.length);
-
-            OutputStream out = null;
-            try {
-                out = connection.getOutputStream();
-                out.write(contentRequest);
-            } finally {
-                safeCloseStream(out);
-            }
-        }
-    }
-
-    /**
-     * Close the stream safely.
-     *
-     * @param stream stream to be closed
-     */
-    private static void safeCloseStream(Closeable stream) {
-        if (stream != null) {
-            try {
-                stream.close();
-            } catch (IOException e) {
-                // swallow error in this case
-            }
-        }
-    }
 }
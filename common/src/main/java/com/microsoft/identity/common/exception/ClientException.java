@@ -127,6 +127,17 @@ public class ClientException extends BaseException {
      */
     public static final String UNKNOWN_ERROR = "unknown_error";
 
+    /**
+     * The request did not complete before its deadline, see
+     * {@link com.microsoft.identity.common.internal.request.Deadline}.
+     */
+    public static final String DEADLINE_EXCEEDED = "deadline_exceeded";
+
+    /**
+     * The bound service returned no binder, or its binding died before the service connected.
+     */
+    public static final String BOUND_SERVICE_UNAVAILABLE = "bound_service_unavailable";
+
     /**
      * Temporary non-exposed error code to indicate that ADFS authority validation fails. ADFS as authority is not supported
      * for preview.
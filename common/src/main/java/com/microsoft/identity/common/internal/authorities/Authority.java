@@ -29,15 +29,20 @@ import android.text.TextUtils;
 
 import com.google.gson.annotations.SerializedName;
 import com.microsoft.identity.common.exception.ClientException;
+import com.microsoft.identity.common.internal.logging.DiagnosticContextExecutor;
 import com.microsoft.identity.common.internal.logging.Logger;
 import com.microsoft.identity.common.internal.providers.microsoft.azureactivedirectory.AzureActiveDirectory;
 import com.microsoft.identity.common.internal.providers.oauth2.OAuth2Strategy;
+import com.microsoft.identity.common.internal.providers.oauth2.OpenIdProviderConfiguration;
+import com.microsoft.identity.common.internal.providers.oauth2.OpenIdProviderConfigurationClient;
 
 import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public abstract class Authority {
 
@@ -247,6 +252,48 @@ public abstract class Authority {
 
     private static List<Authority> knownAuthorities = new ArrayList<>();
     private static Object sLock = new Object();
+    private static final ExecutorService sPrefetchExecutor = new DiagnosticContextExecutor(Executors.newCachedThreadPool());
+
+    /**
+     * Starts loading, concurrently and in the background, the metadata a cold start needs before
+     * its first token request: the cloud instance discovery and, if an issuer is supplied, the
+     * OpenID provider configuration. Both results are cached in memory, so the token request that
+     * follows does not wait for these round trips one after the other. With an HTTP/2
+     * {@link com.microsoft.identity.common.internal.net.HttpTransport.IConnectionProvider}, the
+     * requests share one multiplexed connection.
+     *
+     * @param openIdIssuer The issuer whose OpenID configuration should be loaded, may be null.
+     */
+    public static void prefetchMetadata(@Nullable final String openIdIssuer) {
+        final String methodName = ":prefetchMetadata";
+
+        sPrefetchExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    performCloudDiscovery();
+                } catch (final IOException e) {
+                    Logger.warn(TAG + methodName, "Unable to prefetch cloud discovery metadata.");
+                }
+            }
+        });
+
+        if (!TextUtils.isEmpty(openIdIssuer)) {
+            new OpenIdProviderConfigurationClient(openIdIssuer).loadOpenIdProviderConfiguration(
+                    new OpenIdProviderConfigurationClient.OpenIdProviderConfigurationCallback() {
+                        @Override
+                        public void onTaskCompleted(final OpenIdProviderConfiguration configuration) {
+                            Logger.verbose(TAG + methodName, "OpenID provider configuration prefetched.");
+                        }
+
+                        @Override
+                        public void onError(final Exception exception) {
+                            Logger.warn(TAG + methodName, "Unable to prefetch OpenID provider configuration.");
+                        }
+                    }
+            );
+        }
+    }
 
     private static void performCloudDiscovery() throws IOException {
         final String methodName = ":performCloudDiscovery";
@@ -0,0 +1,308 @@
+// Copyright (c) Microsoft Corporation.
+// All rights reserved.
+//
+// This code is licensed under the MIT License.
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files(the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and / or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions :
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+package com.microsoft.identity.common.internal.broker;
+
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.Intent;
+import android.content.ServiceConnection;
+import android.os.IBinder;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.microsoft.identity.common.exception.ClientException;
+import com.microsoft.identity.common.internal.controllers.TaskCompletedCallbackWithError;
+import com.microsoft.identity.common.internal.logging.Logger;
+import com.microsoft.identity.common.internal.result.ResultFuture;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Keeps broker services bound across consecutive calls.
+ * <p>
+ * Each service (identified by its component) is bound at most once. Concurrent callers share the
+ * binding through reference-counted {@link Lease}s, and the service stays bound for
+ * {@link #IDLE_TIMEOUT_MILLIS} after the last lease is released, so bursts of brokered requests
+ * pay the bind latency (and the broker process startup) only once.
+ */
+public final class BoundServiceConnectionPool {
+
+    private static final String TAG = BoundServiceConnectionPool.class.getSimpleName();
+
+    /**
+     * How long a service stays bound once it has no lease left.
+     */
+    public static final long IDLE_TIMEOUT_MILLIS = 30000;
+
+    private static final Map<ComponentName, Binding> sBindings = new HashMap<>();
+
+    private static final ScheduledExecutorService sIdleScheduler =
+            Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(@NonNull final Runnable runnable) {
+                    final Thread thread = new Thread(runnable, TAG);
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+
+    private BoundServiceConnectionPool() {
+        // Utility class.
+    }
+
+    /**
+     * Leases the binding to the service targeted by the supplied intent, binding it if needed.
+     *
+     * @param context The context used to bind; its application context holds the binding.
+     * @param intent  An explicit intent for the service.
+     * @return The lease, or null if the service is unavailable or does not support binding.
+     */
+    @Nullable
+    public static Lease acquire(@NonNull final Context context, @Nullable final Intent intent) {
+        final String methodName = ":acquire";
+
+        if (intent == null || intent.getComponent() == null) {
+            Logger.warn(TAG + methodName, "No service to bind to.");
+            return null;
+        }
+
+        final ComponentName component = intent.getComponent();
+
+        synchronized (sBindings) {
+            Binding binding = sBindings.get(component);
+
+            if (binding == null) {
+                binding = new Binding(context.getApplicationContext(), component);
+                final boolean bound = binding.mContext.bindService(intent, binding, Context.BIND_AUTO_CREATE);
+
+                Logger.verbose(
+                        TAG + methodName,
+                        "The status for the " + component.getShortClassName()
+                                + " bindService call is: " + bound
+                );
+
+                if (!bound) {
+                    return null;
+                }
+
+                sBindings.put(component, binding);
+            }
+
+            binding.retain();
+            return new Lease(binding);
+        }
+    }
+
+    /**
+     * Unbinds the supplied binding if it is still idle.
+     */
+    private static void unbindIfIdle(@NonNull final Binding binding) {
+        synchronized (sBindings) {
+            if (binding.mReferences > 0) {
+                return;
+            }
+
+            if (sBindings.get(binding.mComponent) == binding) {
+                sBindings.remove(binding.mComponent);
+            }
+
+            binding.unbind();
+        }
+    }
+
+    /**
+     * A reference to a shared service binding. Each lease must be released exactly once; extra
+     * calls to {@link #release()} are ignored.
+     */
+    public static final class Lease {
+
+        private final Binding mBinding;
+        private final ResultFuture<IBinder> mBinderFuture = new ResultFuture<>();
+        private final AtomicBoolean mReleased = new AtomicBoolean();
+
+        private Lease(@NonNull final Binding binding) {
+            mBinding = binding;
+
+            // Cancelling the future of this lease gives up on the service, without affecting the
+            // other leases of the binding.
+            mBinderFuture.whenCancelled(new Runnable() {
+                @Override
+                public void run() {
+                    release();
+                }
+            });
+
+            binding.mBinderFuture.addListener(new TaskCompletedCallbackWithError<IBinder, Throwable>() {
+                @Override
+                public void onTaskCompleted(final IBinder binder) {
+                    mBinderFuture.setResult(binder);
+                }
+
+                @Override
+                public void onError(final Throwable error) {
+                    mBinderFuture.setException(error);
+                }
+            });
+        }
+
+        /**
+         * @return A future completed with the binder of the service once it is connected.
+         */
+        @NonNull
+        public ResultFuture<IBinder> getBinder() {
+            return mBinderFuture;
+        }
+
+        /**
+         * Releases the lease. The service is unbound once it has been idle for
+         * {@link #IDLE_TIMEOUT_MILLIS}.
+         */
+        public void release() {
+            if (mReleased.compareAndSet(false, true)) {
+                mBinding.release();
+            }
+        }
+    }
+
+    private static final class Binding implements ServiceConnection {
+
+        private final Context mContext;
+        private final ComponentName mComponent;
+        private final ResultFuture<IBinder> mBinderFuture = new ResultFuture<>();
+
+        // Guarded by sBindings.
+        private int mReferences;
+        private ScheduledFuture<?> mIdleUnbind;
+        private boolean mUnbound;
+
+        Binding(@NonNull final Context context, @NonNull final ComponentName component) {
+            mContext = context;
+            mComponent = component;
+        }
+
+        void retain() {
+            mReferences++;
+
+            if (mIdleUnbind != null) {
+                mIdleUnbind.cancel(false);
+                mIdleUnbind = null;
+            }
+        }
+
+        void release() {
+            synchronized (sBindings) {
+                mReferences--;
+
+                if (mReferences > 0) {
+                    return;
+                }
+
+                if (sBindings.get(mComponent) != this) {
+                    // The service disconnected, no need to keep this binding around.
+                    unbind();
+                    return;
+                }
+
+                mIdleUnbind = sIdleScheduler.schedule(new Runnable() {
+                    @Override
+                    public void run() {
+                        unbindIfIdle(Binding.this);
+                    }
+                }, IDLE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        void unbind() {
+            if (mUnbound) {
+                return;
+            }
+
+            mUnbound = true;
+            mBinderFuture.cancel(false);
+            mContext.unbindService(this);
+            Logger.verbose(TAG, mComponent.getShortClassName() + " is unbound.");
+        }
+
+        @Override
+        public void onServiceConnected(final ComponentName name, final IBinder service) {
+            Logger.verbose(TAG, name.getShortClassName() + " is connected.");
+            mBinderFuture.setResult(service);
+        }
+
+        @Override
+        public void onServiceDisconnected(final ComponentName name) {
+            Logger.verbose(TAG, name.getShortClassName() + " is disconnected.");
+
+            // The service process went away: new leases bind again, and this binding is
+            // released along with its last lease.
+            discard();
+        }
+
+        @Override
+        public void onBindingDied(final ComponentName name) {
+            Logger.warn(TAG, "The binding to " + name.getShortClassName() + " died.");
+
+            // The binding will not reconnect, e.g. the service package was updated: fail the
+            // leases still waiting for it, and let new leases bind again.
+            mBinderFuture.setException(new ClientException(
+                    ClientException.BOUND_SERVICE_UNAVAILABLE,
+                    "The binding to " + name.getShortClassName() + " died."
+            ));
+            discard();
+        }
+
+        @Override
+        public void onNullBinding(final ComponentName name) {
+            Logger.warn(TAG, name.getShortClassName() + " returned a null binding.");
+
+            // The service will never connect.
+            mBinderFuture.setException(new ClientException(
+                    ClientException.BOUND_SERVICE_UNAVAILABLE,
+                    name.getShortClassName() + " does not support binding."
+            ));
+            discard();
+        }
+
+        /**
+         * Removes this binding from the pool, and unbinds it once it has no lease left.
+         */
+        private void discard() {
+            synchronized (sBindings) {
+                if (sBindings.get(mComponent) == this) {
+                    sBindings.remove(mComponent);
+                }
+
+                if (mReferences == 0) {
+                    unbind();
+                }
+            }
+        }
+    }
+}
@@ -24,52 +24,11 @@
 package com.microsoft.identity.common.internal.broker;
 
 import com.microsoft.aad.adal.IBrokerAccountService;
-import com.microsoft.identity.client.IMicrosoftAuthService;
+import com.microsoft.identity.common.internal.result.ResultFuture;
 
-import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Future;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
-
-public class BrokerAccountServiceFuture implements Future<IBrokerAccountService> {
-
-    private final CountDownLatch mCountDownLatch = new CountDownLatch(1);
-    private IBrokerAccountService mBrokerAccountService;
-
-    @Override
-    public boolean cancel(boolean b) {
-        return false;
-    }
-
-    @Override
-    public boolean isCancelled() {
-        return false;
-    }
-
-    @Override
-    public boolean isDone() {
-        return mCountDownLatch.getCount() == 0;
-    }
-
-    @Override
-    public IBrokerAccountService get() throws InterruptedException, ExecutionException {
-        mCountDownLatch.await();
-        return mBrokerAccountService;
-    }
-
-    @Override
-    public IBrokerAccountService get(long l, TimeUnit timeUnit) throws InterruptedException, ExecutionException, TimeoutException {
-        if (mCountDownLatch.await(l, timeUnit)) {
-            return mBrokerAccountService;
-        } else {
-            throw new TimeoutException();
-        }
-
-    }
+public class BrokerAccountServiceFuture extends ResultFuture<IBrokerAccountService> {
 
     public void setBrokerAccountService(IBrokerAccountService brokerAccountService) {
-        mBrokerAccountService = brokerAccountService;
-        mCountDownLatch.countDown();
+        setResult(brokerAccountService);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,194 @@
+// Copyright (c) Microsoft Corporation.
+// All rights reserved.
+//
+// This code is licensed under the MIT License.
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files(the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and / or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions :
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+package com.microsoft.identity.common.internal.broker;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import com.microsoft.identity.common.adal.internal.AuthenticationConstants;
+import com.microsoft.identity.common.internal.cache.ICacheRecord;
+import com.microsoft.identity.common.internal.logging.Logger;
+import com.microsoft.identity.common.internal.util.ICacheRecordGsonAdapter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.reflect.Type;
+import java.nio.charset.Charset;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Serializer for the compact encoding of {@link BrokerRequest} and {@link BrokerResult} sent
+ * over broker IPC.
+ * <p>
+ * The payload is a byte array made of a two byte header (format version, flags) followed by the
+ * UTF-8 JSON form of the object, deflated when it is larger than {@link #COMPRESSION_THRESHOLD_BYTES}.
+ * Tokens and the duplicated id tokens of tenantProfileData compress well, which keeps multi-tenant
+ * results far from the Binder transaction limit. The JSON form is streamed straight into the
+ * (compressed) byte buffer, without building an intermediate String.
+ * <p>
+ * This library reads the compact encoding of {@link AuthenticationConstants.Broker#BROKER_REQUEST_V2_COMPACT}
+ * and {@link AuthenticationConstants.Broker#BROKER_RESULT_V2_COMPACT}, but does not write it yet:
+ * requests and results are still sent as the plain JSON string, and
+ * {@link AuthenticationConstants.Broker#BROKER_PROTOCOL_VERSION_CODE} does not advertise it.
+ */
+public final class BrokerIpcSerializer {
+
+    private static final String TAG = BrokerIpcSerializer.class.getSimpleName();
+
+    /**
+     * Current version of the compact encoding, written as the first byte of every payload.
+     */
+    static final byte FORMAT_VERSION = 1;
+
+    /**
+     * Flag set in the second byte of the header when the JSON body is deflated.
+     */
+    static final byte FLAG_DEFLATED = 0x01;
+
+    /**
+     * Payloads smaller than this are not worth the deflate overhead.
+     */
+    static final int COMPRESSION_THRESHOLD_BYTES = 1024;
+
+    private static final int HEADER_LENGTH = 2;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final Gson sGson = new GsonBuilder()
+            .registerTypeAdapter(ICacheRecord.class, new ICacheRecordGsonAdapter())
+            .create();
+
+    private BrokerIpcSerializer() {
+        // Utility class.
+    }
+
+    /**
+     * @return the shared Gson instance used for broker IPC, able to deserialize {@link ICacheRecord}.
+     */
+    public static Gson getGson() {
+        return sGson;
+    }
+
+    /**
+     * Serializes the supplied object into the compact encoding.
+     *
+     * @param object The object to serialize.
+     * @param type   The type of the object.
+     * @return The encoded payload.
+     */
+    public static byte[] serialize(@NonNull final Object object, @NonNull final Type type) {
+        final ByteArrayOutputStream json = new ByteArrayOutputStream();
+
+        try {
+            final Writer writer = new OutputStreamWriter(json, UTF_8);
+            sGson.toJson(object, type, writer);
+            writer.flush();
+        } catch (final IOException e) {
+            // ByteArrayOutputStream does not throw.
+            throw new IllegalStateException("Unable to serialize broker payload", e);
+        }
+
+        final boolean deflate = json.size() >= COMPRESSION_THRESHOLD_BYTES;
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(
+                deflate ? json.size() / 2 + HEADER_LENGTH : json.size() + HEADER_LENGTH
+        );
+        out.write(FORMAT_VERSION);
+        out.write(deflate ? FLAG_DEFLATED : 0);
+
+        if (deflate) {
+            final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+
+            try {
+                final DeflaterOutputStream deflaterStream = new DeflaterOutputStream(out, deflater);
+                json.writeTo(deflaterStream);
+                deflaterStream.finish();
+            } catch (final IOException e) {
+                throw new IllegalStateException("Unable to compress broker payload", e);
+            } finally {
+                deflater.end();
+            }
+        } else {
+            out.write(json.toByteArray(), 0, json.size());
+        }
+
+        return out.toByteArray();
+    }
+
+    /**
+     * Deserializes a payload produced by {@link #serialize(Object, Type)}.
+     *
+     * @param payload The encoded payload, may be null.
+     * @param type    The type to deserialize to.
+     * @param <T>     The type to deserialize to.
+     * @return The deserialized object, or null if the payload is null.
+     * @throws JsonParseException if the payload is not in a supported format or cannot be
+     *                            decoded, like the JSON encoding.
+     */
+    @Nullable
+    public static <T> T deserialize(@Nullable final byte[] payload, @NonNull final Type type) {
+        final String methodName = ":deserialize";
+
+        if (payload == null) {
+            return null;
+        }
+
+        if (payload.length < HEADER_LENGTH || payload[0] != FORMAT_VERSION) {
+            throw new JsonParseException(
+                    "Unsupported compact broker payload, format version: "
+                            + (payload.length > 0 ? payload[0] : -1)
+            );
+        }
+
+        InputStream body = new ByteArrayInputStream(payload, HEADER_LENGTH, payload.length - HEADER_LENGTH);
+
+        if ((payload[1] & FLAG_DEFLATED) != 0) {
+            body = new InflaterInputStream(body);
+        }
+
+        final Reader reader = new InputStreamReader(body, UTF_8);
+
+        try {
+            return sGson.fromJson(reader, type);
+        } catch (final JsonParseException e) {
+            Logger.error(TAG + methodName, "Unable to decode compact broker payload.", e);
+            throw e;
+        } finally {
+            try {
+                reader.close();
+            } catch (final IOException e) {
+                Logger.warn(TAG + methodName, "Unable to close compact broker payload reader.");
+            }
+        }
+    }
+}
@@ -25,6 +25,7 @@ package com.microsoft.identity.common.internal.broker;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
+import com.google.gson.annotations.JsonAdapter;
 import com.google.gson.annotations.SerializedName;
 import com.microsoft.identity.common.internal.cache.ICacheRecord;
 
@@ -295,8 +296,12 @@ public class BrokerResult implements Serializable {
     private String mCliTelemSubErrorCode;
 
 
+    /**
+     * Tenant profile cache records, decoded on first access when read from broker IPC.
+     */
     @Nullable
     @SerializedName(SerializedNames.TENANT_PROFILE_CACHE_RECORDS)
+    @JsonAdapter(LazyCacheRecordList.GsonAdapter.class)
     private final List<ICacheRecord> mTenantProfileData;
 
 
@@ -25,49 +25,38 @@ package com.microsoft.identity.common.internal.broker;
 
 import android.os.Bundle;
 
-import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.Future;
+import com.microsoft.identity.common.internal.result.ResultFuture;
+
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
-public class BrokerResultFuture implements Future<Bundle> {
-
-    private final CountDownLatch mCountDownLatch = new CountDownLatch(1);
-    private Bundle mResultBundle;
-
-    @Override
-    public boolean cancel(boolean b) {
-        return false;
-    }
-
-    @Override
-    public boolean isCancelled() {
-        return false;
-    }
-
-    @Override
-    public boolean isDone() {
-        return mCountDownLatch.getCount() == 0;
-    }
+/**
+ * Keeps the signatures of {@link #get()} and {@link #get(long, TimeUnit)} this class had before
+ * extending {@link ResultFuture}: failures are reported as the cause of an
+ * {@link IllegalStateException}.
+ */
+public class BrokerResultFuture extends ResultFuture<Bundle> {
 
     @Override
     public Bundle get() throws InterruptedException {
-        mCountDownLatch.await();
-        return mResultBundle;
+        try {
+            return super.get();
+        } catch (final ExecutionException e) {
+            throw new IllegalStateException("Failed to receive the broker result.", e.getCause());
+        }
     }
 
     @Override
     public Bundle get(long l, TimeUnit timeUnit) throws InterruptedException, TimeoutException {
-        if (mCountDownLatch.await(l, timeUnit)) {
-            return mResultBundle;
-        } else {
-            throw new TimeoutException();
+        try {
+            return super.get(l, timeUnit);
+        } catch (final ExecutionException e) {
+            throw new IllegalStateException("Failed to receive the broker result.", e.getCause());
         }
-
     }
 
     public void setResultBundle(final Bundle resultBundle) {
-        mResultBundle = resultBundle;
-        mCountDownLatch.countDown();
+        setResult(resultBundle);
     }
 }
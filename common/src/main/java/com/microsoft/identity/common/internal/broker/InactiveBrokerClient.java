@@ -2,11 +2,16 @@ package com.microsoft.identity.common.internal.broker;
 
 import android.content.Context;
 import android.content.Intent;
+import android.os.IBinder;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
+import com.microsoft.aad.adal.IBrokerAccountService;
 import com.microsoft.identity.common.exception.ClientException;
+import com.microsoft.identity.common.internal.controllers.TaskCompletedCallbackWithError;
 import com.microsoft.identity.common.internal.logging.Logger;
+import com.microsoft.identity.common.internal.request.Deadline;
+
 
 /**
  * Use for communicating with inactive broker only.
@@ -20,8 +25,7 @@ public class InactiveBrokerClient {
 
     private Context mContext;
     private String mInactiveBrokerPackageName;
-    private BrokerAccountServiceConnection mBrokerAccountServiceConnection;
-    private Boolean mBound = false;
+    private BoundServiceConnectionPool.Lease mLease;
 
     /**
      * Constructor for the BrokerAccountServiceClient
@@ -36,32 +40,60 @@ public class InactiveBrokerClient {
     }
 
     /**
-     * Binds to the service and returns a future that provides the proxy for the calling the BrokerAccountService
+     * Binds to the service and returns a future that provides the proxy for the calling the BrokerAccountService.
+     * The binding is shared with other clients through {@link BoundServiceConnectionPool}.
      *
      * @return BrokerAccountServiceFuture
      */
     @NonNull
     public BrokerAccountServiceFuture connect() throws ClientException {
         final BrokerAccountServiceFuture future = new BrokerAccountServiceFuture();
-        mBrokerAccountServiceConnection = new BrokerAccountServiceConnection(future);
-
-        mBound = mContext.bindService(getIntentForBrokerAccountService(), mBrokerAccountServiceConnection, Context.BIND_AUTO_CREATE);
-        Logger.verbose(TAG + "connect", "The status for BrokerAccountService bindService call is: " + Boolean.valueOf(mBound));
+        mLease = BoundServiceConnectionPool.acquire(mContext, getIntentForBrokerAccountService());
+        Logger.verbose(TAG + "connect", "The status for BrokerAccountService bindService call is: " + Boolean.valueOf(mLease != null));
 
-        if (!mBound) {
+        if (mLease == null) {
             throw new ClientException("Service is unavailable or does not support binding. BrokerAccountService.");
         }
 
+        mLease.getBinder().addListener(new TaskCompletedCallbackWithError<IBinder, Throwable>() {
+            @Override
+            public void onTaskCompleted(final IBinder binder) {
+                future.setBrokerAccountService(IBrokerAccountService.Stub.asInterface(binder));
+            }
+
+            @Override
+            public void onError(final Throwable error) {
+                future.setException(error);
+            }
+        });
+
+        // Release the binding if the caller gives up on the service before it connects.
+        future.whenCancelled(new Runnable() {
+            @Override
+            public void run() {
+                disconnect();
+            }
+        });
+
+        // Give up on the service, and release the binding, once the deadline of the request
+        // in progress expires. The future then fails with ClientException#DEADLINE_EXCEEDED.
+        final Deadline deadline = Deadline.current();
+
+        if (deadline != null) {
+            future.setDeadline(deadline, "the connection to the BrokerAccountService");
+        }
+
         return future;
     }
 
     /**
-     * Disconnects (unbinds) from the bound BrokerAccountService
+     * Disconnects from the bound BrokerAccountService. The service is unbound once no client
+     * has used it for {@link BoundServiceConnectionPool#IDLE_TIMEOUT_MILLIS}.
      */
     public void disconnect() {
-        if (mBound) {
-            mContext.unbindService(mBrokerAccountServiceConnection);
-            mBound = false;
+        if (mLease != null) {
+            mLease.release();
+            mLease = null;
         }
     }
 
@@ -0,0 +1,187 @@
+// Copyright (c) Microsoft Corporation.
+// All rights reserved.
+//
+// This code is licensed under the MIT License.
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files(the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and / or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions :
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+package com.microsoft.identity.common.internal.broker;
+
+import androidx.annotation.NonNull;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.microsoft.identity.common.internal.cache.ICacheRecord;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.io.StringWriter;
+import java.lang.reflect.Type;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The tenant profile cache records of a {@link BrokerResult}, decoded on first access.
+ * <p>
+ * The records carry every token and account of the result once per tenant, and make up most of
+ * the payload of a broker result. Reading a result only copies their JSON text, without building
+ * a JSON tree or any {@link ICacheRecord}; the records are bound the first time the list is
+ * accessed. Records received from the other side of the IPC and sent on unchanged are written
+ * back as the same text, without ever being bound.
+ */
+final class LazyCacheRecordList extends AbstractList<ICacheRecord> implements Serializable {
+
+    private static final long serialVersionUID = -1954391213380247519L;
+
+    private static final Type LIST_OF_CACHE_RECORDS = new TypeToken<List<ICacheRecord>>() {
+    }.getType();
+
+    private final String mJson;
+    private List<ICacheRecord> mRecords;
+
+    private LazyCacheRecordList(@NonNull final String json) {
+        mJson = json;
+    }
+
+    @Override
+    public ICacheRecord get(final int index) {
+        return decoded().get(index);
+    }
+
+    @Override
+    public int size() {
+        return decoded().size();
+    }
+
+    /**
+     * @return true once the records have been decoded.
+     */
+    synchronized boolean isDecoded() {
+        return mRecords != null;
+    }
+
+    @NonNull
+    private synchronized List<ICacheRecord> decoded() {
+        if (mRecords == null) {
+            final List<ICacheRecord> records = BrokerIpcSerializer.getGson().fromJson(
+                    mJson,
+                    LIST_OF_CACHE_RECORDS
+            );
+            mRecords = records == null ? Collections.<ICacheRecord>emptyList() : records;
+        }
+
+        return mRecords;
+    }
+
+    /**
+     * Serializes as a plain list, which peers predating this class can read.
+     */
+    private Object writeReplace() {
+        return new ArrayList<>(decoded());
+    }
+
+    /**
+     * Keeps the records in their JSON text form when reading a result, and writes them as the
+     * plain JSON array {@link BrokerResult} has always used.
+     */
+    static final class GsonAdapter extends TypeAdapter<List<ICacheRecord>> {
+
+        @Override
+        public void write(@NonNull final JsonWriter out,
+                          @NonNull final List<ICacheRecord> value) throws IOException {
+            if (value instanceof LazyCacheRecordList) {
+                try {
+                    out.jsonValue(((LazyCacheRecordList) value).mJson);
+                    return;
+                } catch (final UnsupportedOperationException e) {
+                    // Writers building a JSON tree, e.g. Gson#toJsonTree(), cannot take raw JSON.
+                }
+            }
+
+            BrokerIpcSerializer.getGson().toJson(value, LIST_OF_CACHE_RECORDS, out);
+        }
+
+        @Override
+        public List<ICacheRecord> read(@NonNull final JsonReader in) throws IOException {
+            final StringWriter json = new StringWriter();
+            copyValue(in, new JsonWriter(json));
+            return new LazyCacheRecordList(json.toString());
+        }
+
+        /**
+         * Copies the next value of the reader, token by token.
+         */
+        private static void copyValue(@NonNull final JsonReader in,
+                                      @NonNull final JsonWriter out) throws IOException {
+            int depth = 0;
+
+            do {
+                final JsonToken token = in.peek();
+
+                switch (token) {
+                    case BEGIN_ARRAY:
+                        in.beginArray();
+                        out.beginArray();
+                        depth++;
+                        break;
+                    case END_ARRAY:
+                        in.endArray();
+                        out.endArray();
+                        depth--;
+                        break;
+                    case BEGIN_OBJECT:
+                        in.beginObject();
+                        out.beginObject();
+                        depth++;
+                        break;
+                    case END_OBJECT:
+                        in.endObject();
+                        out.endObject();
+                        depth--;
+                        break;
+                    case NAME:
+                        out.name(in.nextName());
+                        break;
+                    case STRING:
+                        out.value(in.nextString());
+                        break;
+                    case NUMBER:
+                        // Keeps the number as written, e.g. without turning longs into doubles.
+                        out.jsonValue(in.nextString());
+                        break;
+                    case BOOLEAN:
+                        out.value(in.nextBoolean());
+                        break;
+                    case NULL:
+                        in.nextNull();
+                        out.nullValue();
+                        break;
+                    default:
+                        throw new IOException("Unexpected token: " + token);
+                }
+            } while (depth > 0);
+
+            out.flush();
+        }
+    }
+}
@@ -29,11 +29,15 @@ import android.content.Context;
 import android.content.Intent;
 import android.content.pm.PackageManager;
 import android.content.pm.ResolveInfo;
+import android.os.IBinder;
 import androidx.annotation.NonNull;
 
+import com.microsoft.identity.client.IMicrosoftAuthService;
 import com.microsoft.identity.common.adal.internal.AuthenticationConstants;
 import com.microsoft.identity.common.exception.ClientException;
+import com.microsoft.identity.common.internal.controllers.TaskCompletedCallbackWithError;
 import com.microsoft.identity.common.internal.logging.Logger;
+import com.microsoft.identity.common.internal.request.Deadline;
 
 import java.util.List;
 
@@ -47,9 +51,8 @@ public class MicrosoftAuthClient {
     private static final String MICROSOFT_AUTH_SERVICE_CLASS_NAME = "com.microsoft.identity.client.MicrosoftAuthService";
 
     private Context mContext;
-    private MicrosoftAuthServiceConnection mMicrosoftAuthServiceConnection;
+    private BoundServiceConnectionPool.Lease mLease;
     private Intent mMicrosoftAuthServiceIntent;
-    private Boolean mBound = false;
 
     /**
      * Constructor for the Microsoft Auth Client
@@ -62,32 +65,60 @@ public class MicrosoftAuthClient {
     }
 
     /**
-     * Binds to the service and returns a future that provides the proxy for the calling the Microsoft auth service
+     * Binds to the service and returns a future that provides the proxy for the calling the Microsoft auth service.
+     * The binding is shared with other clients through {@link BoundServiceConnectionPool}.
      *
      * @return MicrosoftAuthServiceFuture
      */
     public MicrosoftAuthServiceFuture connect() throws ClientException {
 
-        MicrosoftAuthServiceFuture future = new MicrosoftAuthServiceFuture();
-        mMicrosoftAuthServiceConnection = new MicrosoftAuthServiceConnection(future);
+        final MicrosoftAuthServiceFuture future = new MicrosoftAuthServiceFuture();
+        mLease = BoundServiceConnectionPool.acquire(mContext, mMicrosoftAuthServiceIntent);
+        Logger.info(TAG + "connect", "The status for MicrosoftAuthService bindService call is: " + Boolean.valueOf(mLease != null));
 
-        mBound = mContext.bindService(mMicrosoftAuthServiceIntent, mMicrosoftAuthServiceConnection, Context.BIND_AUTO_CREATE);
-        Logger.info(TAG + "connect", "The status for MicrosoftAuthService bindService call is: " + Boolean.valueOf(mBound));
-
-        if (!mBound) {
+        if (mLease == null) {
             throw new ClientException("Service is unavailable or does not support binding.  Microsoft Auth Service.");
         }
 
+        mLease.getBinder().addListener(new TaskCompletedCallbackWithError<IBinder, Throwable>() {
+            @Override
+            public void onTaskCompleted(final IBinder binder) {
+                future.setMicrosoftAuthService(IMicrosoftAuthService.Stub.asInterface(binder));
+            }
+
+            @Override
+            public void onError(final Throwable error) {
+                future.setException(error);
+            }
+        });
+
+        // Release the binding if the caller gives up on the service before it connects.
+        future.whenCancelled(new Runnable() {
+            @Override
+            public void run() {
+                disconnect();
+            }
+        });
+
+        // Give up on the service, and release the binding, once the deadline of the request
+        // in progress expires. The future then fails with ClientException#DEADLINE_EXCEEDED.
+        final Deadline deadline = Deadline.current();
+
+        if (deadline != null) {
+            future.setDeadline(deadline, "the connection to the MicrosoftAuthService");
+        }
+
         return future;
     }
 
     /**
-     * Disconnects (unbinds) from the bound Microsoft Auth Service
+     * Disconnects from the bound Microsoft Auth Service. The service is unbound once no client
+     * has used it for {@link BoundServiceConnectionPool#IDLE_TIMEOUT_MILLIS}.
      */
     public void disconnect() {
-        if(mBound) {
-            mContext.unbindService(mMicrosoftAuthServiceConnection);
-            mBound = false;
+        if (mLease != null) {
+            mLease.release();
+            mLease = null;
         }
     }
 
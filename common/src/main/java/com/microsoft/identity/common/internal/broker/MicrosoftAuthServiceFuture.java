@@ -24,51 +24,11 @@
 package com.microsoft.identity.common.internal.broker;
 
 import com.microsoft.identity.client.IMicrosoftAuthService;
+import com.microsoft.identity.common.internal.result.ResultFuture;
 
-import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Future;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
-
-public class MicrosoftAuthServiceFuture implements Future<IMicrosoftAuthService> {
-
-    private final CountDownLatch mCountDownLatch = new CountDownLatch(1);
-    private IMicrosoftAuthService mMicrosoftAuthService;
-
-    @Override
-    public boolean cancel(boolean b) {
-        return false;
-    }
-
-    @Override
-    public boolean isCancelled() {
-        return false;
-    }
-
-    @Override
-    public boolean isDone() {
-        return mCountDownLatch.getCount() == 0;
-    }
-
-    @Override
-    public IMicrosoftAuthService get() throws InterruptedException, ExecutionException {
-        mCountDownLatch.await();
-        return mMicrosoftAuthService;
-    }
-
-    @Override
-    public IMicrosoftAuthService get(long l, TimeUnit timeUnit) throws InterruptedException, ExecutionException, TimeoutException {
-        if (mCountDownLatch.await(l, timeUnit)) {
-            return mMicrosoftAuthService;
-        } else {
-            throw new TimeoutException();
-        }
-
-    }
+public class MicrosoftAuthServiceFuture extends ResultFuture<IMicrosoftAuthService> {
 
     public void setMicrosoftAuthService(IMicrosoftAuthService result) {
-        mMicrosoftAuthService = result;
-        mCountDownLatch.countDown();
+        setResult(result);
     }
 }
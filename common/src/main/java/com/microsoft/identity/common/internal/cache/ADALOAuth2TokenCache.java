@@ -52,7 +52,9 @@ import com.microsoft.identity.common.internal.providers.oauth2.RefreshToken;
 
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -141,6 +143,10 @@ public class ADALOAuth2TokenCache
         final ADALTokenCacheItem cacheItem = new ADALTokenCacheItem(strategy, request, response);
         logTokenCacheItem(cacheItem);
 
+        // The same items are stored under the keys of every user identifier: serialize them once
+        // and write all of the keys in a single commit.
+        final CacheItemWriter writer = new CacheItemWriter(cacheItem);
+
         //There is more than one valid user identifier for some accounts... AAD Accounts as of this writing have 3
         Logger.info(TAG + ":" + methodName, "Setting items to cache for user...");
         for (final String cacheIdentifier : account.getCacheIdentifiers()) {
@@ -153,13 +159,14 @@ public class ADALOAuth2TokenCache
             Logger.infoPII(TAG + ":" + methodName, "clientId: [" + clientId + "]");
             Logger.infoPII(TAG + ":" + methodName, "cacheIdentifier: [" + cacheIdentifier + "]");
 
-            setItemToCacheForUser(issuerCacheIdentifier, scope, clientId, cacheItem, cacheIdentifier);
+            setItemToCacheForUser(issuerCacheIdentifier, scope, clientId, writer, cacheIdentifier);
         }
 
         //For legacy reasons creating a cache entry where the userid is null
         //ADAL supported a single user mode where it was not necessary for the developer to provide the user id
         //on calls to acquireTokenSilentAsync
-        setItemToCacheForUser(issuerCacheIdentifier, request.getScope(), request.getClientId(), cacheItem, null);
+        setItemToCacheForUser(issuerCacheIdentifier, request.getScope(), request.getClientId(), writer, null);
+        mISharedPreferencesFileManager.putStrings(writer.getEntries());
 
         // TODO At some point, the type-safety of this call needs to get beefed-up
         Logger.info(TAG + ":" + methodName, "Syncing SSO state to caches...");
@@ -320,28 +327,73 @@ public class ADALOAuth2TokenCache
     private void setItemToCacheForUser(final String issuer,
                                        final String resource,
                                        final String clientId,
-                                       final ADALTokenCacheItem cacheItem,
+                                       final CacheItemWriter writer,
                                        final String userId) {
         final String methodName = "setItemToCacheForUser";
+        final ADALTokenCacheItem cacheItem = writer.mCacheItem;
 
         Logger.info(TAG + ":" + methodName, "Setting cacheitem for RT entry.");
-        setItem(CacheKey.createCacheKeyForRTEntry(issuer, resource, clientId, userId), cacheItem);
+        writer.setRefreshTokenItem(CacheKey.createCacheKeyForRTEntry(issuer, resource, clientId, userId));
 
         if (cacheItem.getIsMultiResourceRefreshToken()) {
             Logger.info(TAG + ":" + methodName, "CacheItem is an MRRT.");
-            setItem(CacheKey.createCacheKeyForMRRT(issuer, clientId, userId), ADALTokenCacheItem.getAsMRRTTokenCacheItem(cacheItem));
+            writer.setMultiResourceRefreshTokenItem(CacheKey.createCacheKeyForMRRT(issuer, clientId, userId));
         }
 
         if (!StringExtensions.isNullOrBlank(cacheItem.getFamilyClientId())) {
             Logger.info(TAG + ":" + methodName, "CacheItem is an FRT.");
-            setItem(CacheKey.createCacheKeyForFRT(issuer, cacheItem.getFamilyClientId(), userId), ADALTokenCacheItem.getAsFRTTokenCacheItem(cacheItem));
+            writer.setFamilyRefreshTokenItem(CacheKey.createCacheKeyForFRT(issuer, cacheItem.getFamilyClientId(), userId));
         }
     }
 
-    private void setItem(final String key, final ADALTokenCacheItem cacheItem) {
-        Logger.info(TAG, "Setting item to cache");
-        String json = mGson.toJson(cacheItem);
-        mISharedPreferencesFileManager.putString(key, json);
+    /**
+     * Collects the entries written for one token response. The RT, MRRT and FRT forms of the
+     * item are each serialized once, however many keys they are stored under.
+     */
+    private final class CacheItemWriter {
+
+        private final ADALTokenCacheItem mCacheItem;
+        private final Map<String, String> mEntries = new LinkedHashMap<>();
+        private String mRefreshTokenJson;
+        private String mMultiResourceRefreshTokenJson;
+        private String mFamilyRefreshTokenJson;
+
+        CacheItemWriter(final ADALTokenCacheItem cacheItem) {
+            mCacheItem = cacheItem;
+        }
+
+        void setRefreshTokenItem(final String key) {
+            if (mRefreshTokenJson == null) {
+                mRefreshTokenJson = mGson.toJson(mCacheItem);
+            }
+
+            setItem(key, mRefreshTokenJson);
+        }
+
+        void setMultiResourceRefreshTokenItem(final String key) {
+            if (mMultiResourceRefreshTokenJson == null) {
+                mMultiResourceRefreshTokenJson = mGson.toJson(ADALTokenCacheItem.getAsMRRTTokenCacheItem(mCacheItem));
+            }
+
+            setItem(key, mMultiResourceRefreshTokenJson);
+        }
+
+        void setFamilyRefreshTokenItem(final String key) {
+            if (mFamilyRefreshTokenJson == null) {
+                mFamilyRefreshTokenJson = mGson.toJson(ADALTokenCacheItem.getAsFRTTokenCacheItem(mCacheItem));
+            }
+
+            setItem(key, mFamilyRefreshTokenJson);
+        }
+
+        private void setItem(final String key, final String json) {
+            Logger.info(TAG, "Setting item to cache");
+            mEntries.put(key, json);
+        }
+
+        Map<String, String> getEntries() {
+            return mEntries;
+        }
     }
 
     private void validateSecretKeySetting() {
@@ -32,18 +32,49 @@ import com.microsoft.identity.common.internal.dto.Credential;
 import com.microsoft.identity.common.internal.dto.CredentialType;
 import com.microsoft.identity.common.internal.dto.IdTokenRecord;
 import com.microsoft.identity.common.internal.dto.RefreshTokenRecord;
+import com.microsoft.identity.common.internal.dto.ScopeSet;
 import com.microsoft.identity.common.internal.logging.Logger;
 
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 public abstract class AbstractAccountCredentialCache implements IAccountCredentialCache {
 
     private static final String TAG = AbstractAccountCredentialCache.class.getSimpleName();
     private static final String NEW_LINE = "\n";
 
+    private static final List<IAccountCredentialCacheChangeListener> sChangeListeners =
+            new CopyOnWriteArrayList<>();
+
+    /**
+     * Registers a listener notified whenever an account/credential cache of this process is
+     * written.
+     *
+     * @param listener The listener.
+     */
+    public static void addChangeListener(@NonNull final IAccountCredentialCacheChangeListener listener) {
+        sChangeListeners.add(listener);
+    }
+
+    /**
+     * Unregisters a listener added with {@link #addChangeListener(IAccountCredentialCacheChangeListener)}.
+     *
+     * @param listener The listener.
+     */
+    public static void removeChangeListener(@NonNull final IAccountCredentialCacheChangeListener listener) {
+        sChangeListeners.remove(listener);
+    }
+
+    /**
+     * Notifies the registered listeners that the content of the cache may have changed.
+     */
+    protected static void notifyCacheChanged() {
+        for (final IAccountCredentialCacheChangeListener listener : sChangeListeners) {
+            listener.onCacheChanged();
+        }
+    }
+
     @Nullable
     protected Class<? extends Credential> getTargetClassForCredentialType(@Nullable String cacheKey,
                                                                           @NonNull CredentialType targetType) {
@@ -144,6 +175,7 @@ public abstract class AbstractAccountCredentialCache implements IAccountCredenti
                         + "Credential lookup filtered by credential type? [" + mustMatchOnCredentialType + "]"
         );
 
+        final ScopeSet soughtScopes = mustMatchOnTarget ? ScopeSet.of(target) : null;
         final List<Credential> matchingCredentials = new ArrayList<>();
 
         for (final Credential credential : allCredentials) {
@@ -178,7 +210,7 @@ public abstract class AbstractAccountCredentialCache implements IAccountCredenti
             if (mustMatchOnTarget) {
                 if (credential instanceof AccessTokenRecord) {
                     final AccessTokenRecord accessToken = (AccessTokenRecord) credential;
-                    matches = matches && targetsIntersect(target, accessToken.getTarget());
+                    matches = matches && accessToken.getScopeSet().containsAll(soughtScopes);
                 } else if (credential instanceof RefreshTokenRecord) {
                     final RefreshTokenRecord refreshToken = (RefreshTokenRecord) credential;
                     matches = matches && targetsIntersect(target, refreshToken.getTarget());
@@ -208,23 +240,6 @@ public abstract class AbstractAccountCredentialCache implements IAccountCredenti
         // The credentialTarget must contain all of the scopes in the targetToMatch
         // It may contain more, but it must contain minimally those
         // Matching is case-insensitive
-        final String splitCriteria = "\\s+";
-        final String[] targetToMatchArray = targetToMatch.split(splitCriteria);
-        final String[] credentialTargetArray = credentialTarget.split(splitCriteria);
-
-        // Declare Sets to contain these scopes
-        final Set<String> soughtTargetSet = new HashSet<>();
-        final Set<String> credentialTargetSet = new HashSet<>();
-
-        // Add the array values to these sets, lowercasing them
-        for (final String target : targetToMatchArray) {
-            soughtTargetSet.add(target.toLowerCase());
-        }
-
-        for (final String target : credentialTargetArray) {
-            credentialTargetSet.add(target.toLowerCase());
-        }
-
-        return credentialTargetSet.containsAll(soughtTargetSet);
+        return ScopeSet.of(credentialTarget).containsAll(ScopeSet.of(targetToMatch));
     }
 }
@@ -0,0 +1,249 @@
+// Copyright (c) Microsoft Corporation.
+// All rights reserved.
+//
+// This code is licensed under the MIT License.
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files(the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and / or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions :
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+package com.microsoft.identity.common.internal.cache;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
+
+import com.microsoft.identity.common.adal.internal.cache.StorageHelper;
+import com.microsoft.identity.common.internal.logging.DiagnosticContextExecutor;
+import com.microsoft.identity.common.internal.logging.Logger;
+import com.microsoft.identity.common.internal.result.ResultFuture;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Warms up the token caches at app start, on a background thread, so that the first
+ * silent request does not pay for it on the caller's thread: loading the encryption key (an
+ * AndroidKeyStore unwrap), reading the {@link android.content.SharedPreferences} files from disk
+ * and initializing the ciphers with a first decryption.
+ * <p>
+ * Each file is preloaded at most once per process, unless its preload failed, in which case a
+ * later call tries again. Silent requests started while a preload is in progress wait for it
+ * (see {@link #awaitPreload(long)}) rather than redoing the same work concurrently.
+ * <p>
+ * The preload thread runs at normal priority: a silent request may be blocked on it, and a
+ * minimum priority thread would hand that wait to the scheduler.
+ */
+public final class CachePreloader {
+
+    private static final String TAG = CachePreloader.class.getSimpleName();
+
+    /**
+     * The longest a request waits for a preload in progress before going ahead without it.
+     */
+    public static final long MAX_PRELOAD_WAIT_MILLIS = 1000;
+
+    private static final ExecutorService sPreloadExecutor = new DiagnosticContextExecutor(
+            Executors.newSingleThreadExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(@NonNull final Runnable runnable) {
+                    final Thread thread = new Thread(runnable, TAG);
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            })
+    );
+
+    private static final Object sLock = new Object();
+
+    /**
+     * The preload of the most recently requested files. The preloads run one after the other, so
+     * it completes after all the others.
+     */
+    private static ResultFuture<Void> sPreload;
+
+    /**
+     * The files preloaded, or being preloaded.
+     */
+    private static final Set<String> sPreloadedFileNames = new HashSet<>();
+
+    private CachePreloader() {
+        // Utility class.
+    }
+
+    /**
+     * Preloads the default account credential cache, see
+     * {@link SharedPreferencesAccountCredentialCache#DEFAULT_ACCOUNT_CREDENTIAL_SHARED_PREFERENCES}.
+     *
+     * @param context The application context.
+     * @return A future completed once the preload is done.
+     */
+    @NonNull
+    public static ResultFuture<Void> preload(@NonNull final Context context) {
+        return preload(
+                context,
+                SharedPreferencesAccountCredentialCache.DEFAULT_ACCOUNT_CREDENTIAL_SHARED_PREFERENCES
+        );
+    }
+
+    /**
+     * Preloads the supplied encrypted cache files. Files already preloaded, or being preloaded,
+     * are not preloaded again.
+     *
+     * @param context                    The application context.
+     * @param sharedPreferencesFileNames The names of the encrypted cache files to preload.
+     * @return A future completed once the preload of all the supplied files is done.
+     */
+    @NonNull
+    public static ResultFuture<Void> preload(@NonNull final Context context,
+                                             @NonNull final String... sharedPreferencesFileNames) {
+        final Context appContext = context.getApplicationContext();
+
+        return preload(new FilePreloader() {
+            @Override
+            public void preloadFile(@NonNull final String sharedPreferencesFileName) {
+                CachePreloader.preloadFile(appContext, sharedPreferencesFileName);
+            }
+        }, sharedPreferencesFileNames);
+    }
+
+    @VisibleForTesting
+    static ResultFuture<Void> preload(@NonNull final FilePreloader filePreloader,
+                                      @NonNull final String... sharedPreferencesFileNames) {
+        final ResultFuture<Void> preload;
+        final List<String> fileNamesToPreload = new ArrayList<>();
+
+        synchronized (sLock) {
+            for (final String sharedPreferencesFileName : sharedPreferencesFileNames) {
+                if (sPreloadedFileNames.add(sharedPreferencesFileName)) {
+                    fileNamesToPreload.add(sharedPreferencesFileName);
+                }
+            }
+
+            if (fileNamesToPreload.isEmpty() && sPreload != null) {
+                return sPreload;
+            }
+
+            preload = new ResultFuture<>();
+            sPreload = preload;
+        }
+
+        sPreloadExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    for (final String sharedPreferencesFileName : fileNamesToPreload) {
+                        filePreloader.preloadFile(sharedPreferencesFileName);
+                    }
+
+                    preload.setResult(null);
+                } catch (final RuntimeException e) {
+                    Logger.warn(TAG, "Cache preload failed: " + e.getMessage());
+
+                    // Let a later call try again.
+                    synchronized (sLock) {
+                        sPreloadedFileNames.removeAll(fileNamesToPreload);
+
+                        if (sPreload == preload) {
+                            sPreload = null;
+                        }
+                    }
+
+                    preload.setException(e);
+                }
+            }
+        });
+
+        return preload;
+    }
+
+    /**
+     * Waits for a preload in progress, if any. Failures of the preload are not reported: the
+     * caller does the work itself.
+     *
+     * @param timeoutMillis The maximum time to wait.
+     */
+    public static void awaitPreload(final long timeoutMillis) {
+        final ResultFuture<Void> preload;
+
+        synchronized (sLock) {
+            preload = sPreload;
+        }
+
+        if (preload == null || preload.isDone()) {
+            return;
+        }
+
+        Logger.verbose(TAG, "Waiting for the cache preload to complete...");
+
+        try {
+            preload.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (final ExecutionException | TimeoutException e) {
+            Logger.warn(TAG, "Proceeding without the cache preload: " + e.getMessage());
+        }
+    }
+
+    @VisibleForTesting
+    static void reset() {
+        synchronized (sLock) {
+            sPreload = null;
+            sPreloadedFileNames.clear();
+        }
+    }
+
+    /**
+     * Preloads a single cache file.
+     */
+    @VisibleForTesting
+    interface FilePreloader {
+        void preloadFile(@NonNull String sharedPreferencesFileName);
+    }
+
+    private static void preloadFile(@NonNull final Context context,
+                                    @NonNull final String sharedPreferencesFileName) {
+        final long startMillis = System.currentTimeMillis();
+        final ISharedPreferencesFileManager fileManager = new SharedPreferencesFileManager(
+                context,
+                sharedPreferencesFileName,
+                new StorageHelper(context)
+        );
+
+        // Reads the file from disk, without decrypting anything.
+        final Set<String> keys = fileManager.getKeys();
+
+        // Loads the key and initializes the ciphers.
+        if (!keys.isEmpty()) {
+            fileManager.getString(keys.iterator().next());
+        }
+
+        Logger.verbose(
+                TAG,
+                "Preloaded [" + sharedPreferencesFileName + "] in "
+                        + (System.currentTimeMillis() - startMillis) + " ms."
+        );
+    }
+}
@@ -0,0 +1,263 @@
+// Copyright (c) Microsoft Corporation.
+// All rights reserved.
+//
+// This code is licensed under the MIT License.
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files(the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and / or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions :
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+package com.microsoft.identity.common.internal.cache;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.microsoft.identity.common.adal.internal.util.StringExtensions;
+import com.microsoft.identity.common.internal.dto.CredentialType;
+
+import java.util.Locale;
+
+import static com.microsoft.identity.common.internal.cache.CacheKeyValueDelegate.CACHE_VALUE_SEPARATOR;
+
+/**
+ * A cache key generated by {@link CacheKeyValueDelegate}, parsed into its parts.
+ * <p>
+ * Credential keys have the form
+ * {@code <home_account_id>-<environment>-<credential_type>-<client_id>-<realm>-<target>} and
+ * account keys {@code <home_account_id>-<environment>-<realm>}. Since home account ids, client ids
+ * and realms may themselves contain the separator, a key is split around its credential type
+ * only; the other fields are matched against the remaining parts. Matching is conservative:
+ * {@link #mayMatchAccount} and {@link #mayMatchCredential} only return false for keys which
+ * cannot belong to a matching record, so callers still filter the decoded records.
+ */
+final class CredentialCacheKey {
+
+    // The credential types which can be resolved to a Credential class, in lookup order.
+    private static final CredentialType[] CREDENTIAL_TYPES = {
+            CredentialType.AccessToken,
+            CredentialType.RefreshToken,
+            CredentialType.IdToken,
+            CredentialType.V1IdToken
+    };
+
+    private static final String[] CREDENTIAL_TYPE_TOKENS = new String[CREDENTIAL_TYPES.length];
+
+    static {
+        for (int i = 0; i < CREDENTIAL_TYPES.length; i++) {
+            CREDENTIAL_TYPE_TOKENS[i] = CACHE_VALUE_SEPARATOR
+                    + CREDENTIAL_TYPES[i].name().toLowerCase(Locale.US)
+                    + CACHE_VALUE_SEPARATOR;
+        }
+    }
+
+    /**
+     * The credential type, or null for account keys.
+     */
+    @Nullable
+    private final CredentialType mCredentialType;
+
+    /**
+     * {@code <home_account_id>-<environment>} for credential keys, the whole key for accounts.
+     */
+    @NonNull
+    private final String mAccountPart;
+
+    /**
+     * {@code <client_id>-<realm>-<target>} for credential keys, empty for accounts.
+     */
+    @NonNull
+    private final String mCredentialPart;
+
+    private CredentialCacheKey(@Nullable final CredentialType credentialType,
+                     @NonNull final String accountPart,
+                     @NonNull final String credentialPart) {
+        mCredentialType = credentialType;
+        mAccountPart = accountPart;
+        mCredentialPart = credentialPart;
+    }
+
+    /**
+     * Parses the supplied cache key.
+     *
+     * @param cacheKey The key to parse.
+     * @return The parsed key.
+     */
+    @NonNull
+    static CredentialCacheKey parse(@NonNull final String cacheKey) {
+        int typeIndex = -1;
+        int typeStart = -1;
+
+        for (int i = 0; i < CREDENTIAL_TYPE_TOKENS.length; i++) {
+            final int start = cacheKey.indexOf(CREDENTIAL_TYPE_TOKENS[i]);
+
+            if (start >= 0 && (typeStart < 0 || start < typeStart)) {
+                typeIndex = i;
+                typeStart = start;
+            }
+        }
+
+        if (typeIndex < 0) {
+            return new CredentialCacheKey(null, cacheKey, "");
+        }
+
+        return new CredentialCacheKey(
+                CREDENTIAL_TYPES[typeIndex],
+                cacheKey.substring(0, typeStart),
+                cacheKey.substring(typeStart + CREDENTIAL_TYPE_TOKENS[typeIndex].length())
+        );
+    }
+
+    /**
+     * Returns false if the supplied key cannot have been generated by {@link CacheKeyValueDelegate}:
+     * account keys have at least two separators, and credential keys at least one separator before
+     * their credential type and two after it. Like matching, the check is conservative.
+     *
+     * @param cacheKey The key to check.
+     * @return true if the key may be a cache key.
+     */
+    static boolean isWellFormed(@Nullable final String cacheKey) {
+        if (StringExtensions.isNullOrBlank(cacheKey)) {
+            return false;
+        }
+
+        final CredentialCacheKey key = parse(cacheKey);
+
+        if (!key.isCredential()) {
+            return countSeparators(key.mAccountPart) >= 2;
+        }
+
+        return countSeparators(key.mAccountPart) >= 1
+                && countSeparators(key.mCredentialPart) >= 2;
+    }
+
+    /**
+     * @return The credential type of the key, or null if it is not a credential key.
+     */
+    @Nullable
+    CredentialType getCredentialType() {
+        return mCredentialType;
+    }
+
+    boolean isCredential() {
+        return mCredentialType != null;
+    }
+
+    /**
+     * Returns false if no account matching the supplied fields can be stored under this key.
+     * Null or blank fields match any value.
+     */
+    boolean mayMatchAccount(@Nullable final String homeAccountId,
+                            @Nullable final String environment,
+                            @Nullable final String realm) {
+        if (isCredential()) {
+            return false;
+        }
+
+        final String home = sanitize(homeAccountId);
+        final String env = sanitize(environment);
+        final String rlm = sanitize(realm);
+
+        if (home != null && !mAccountPart.startsWith(home + CACHE_VALUE_SEPARATOR)) {
+            return false;
+        }
+
+        if (env != null && !mAccountPart.contains(CACHE_VALUE_SEPARATOR + env + CACHE_VALUE_SEPARATOR)) {
+            return false;
+        }
+
+        return rlm == null || mAccountPart.endsWith(CACHE_VALUE_SEPARATOR + rlm);
+    }
+
+    /**
+     * Returns false if no credential matching the supplied fields can be stored under this key.
+     * Null or blank fields match any value.
+     */
+    boolean mayMatchCredential(@Nullable final String homeAccountId,
+                               @Nullable final String environment,
+                               @Nullable final CredentialType credentialType,
+                               @Nullable final String clientId,
+                               @Nullable final String realm) {
+        if (!isCredential()) {
+            return false;
+        }
+
+        if (credentialType != null && credentialType != mCredentialType) {
+            return false;
+        }
+
+        final String home = sanitize(homeAccountId);
+        final String env = sanitize(environment);
+
+        if (home != null && !mAccountPart.startsWith(home + CACHE_VALUE_SEPARATOR)) {
+            return false;
+        }
+
+        if (env != null && !mAccountPart.endsWith(CACHE_VALUE_SEPARATOR + env)) {
+            return false;
+        }
+
+        if (CredentialType.RefreshToken == mCredentialType) {
+            // Family refresh tokens are keyed by family id rather than client id, and refresh
+            // tokens are not filtered by realm.
+            return true;
+        }
+
+        final String client = sanitize(clientId);
+        final String rlm = sanitize(realm);
+
+        if (client != null && !mCredentialPart.startsWith(client + CACHE_VALUE_SEPARATOR)) {
+            return false;
+        }
+
+        if (rlm == null) {
+            return true;
+        }
+
+        if (client != null) {
+            return mCredentialPart.startsWith(
+                    client + CACHE_VALUE_SEPARATOR + rlm + CACHE_VALUE_SEPARATOR
+            );
+        }
+
+        return mCredentialPart.contains(CACHE_VALUE_SEPARATOR + rlm + CACHE_VALUE_SEPARATOR);
+    }
+
+    private static int countSeparators(@NonNull final String part) {
+        int count = 0;
+        int index = part.indexOf(CACHE_VALUE_SEPARATOR);
+
+        while (index >= 0) {
+            count++;
+            index = part.indexOf(CACHE_VALUE_SEPARATOR, index + CACHE_VALUE_SEPARATOR.length());
+        }
+
+        return count;
+    }
+
+    /**
+     * Normalizes a query field the way {@link CacheKeyValueDelegate} normalizes key fields.
+     *
+     * @return The normalized field, or null if it does not constrain the query.
+     */
+    @Nullable
+    private static String sanitize(@Nullable final String field) {
+        if (StringExtensions.isNullOrBlank(field)) {
+            return null;
+        }
+
+        return field.toLowerCase(Locale.US).trim();
+    }
+}
@@ -26,6 +26,9 @@ import com.microsoft.identity.common.internal.dto.AccountRecord;
 import com.microsoft.identity.common.internal.dto.Credential;
 import com.microsoft.identity.common.internal.dto.CredentialType;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
 import java.util.List;
 
 /**
@@ -132,4 +135,27 @@ public interface IAccountCredentialCache {
      */
     void clearAll();
 
+    /**
+     * Writes every Account and Credential of the cache to the supplied stream, as a JSON
+     * snapshot readable by {@link #importFrom(Reader)}. Records are written one at a time.
+     * <p>
+     * <b>The snapshot is not encrypted: it holds the secrets of every access, refresh and id token
+     * of the cache in plain text.</b> Callers must encrypt it before it leaves memory (e.g. with
+     * {@link com.microsoft.identity.common.adal.internal.cache.StorageHelper}), and must never
+     * write it to shared storage or logs.
+     *
+     * @param writer The stream to write to; it is flushed but not closed.
+     * @throws IOException If the snapshot cannot be written.
+     */
+    void exportTo(final Writer writer) throws IOException;
+
+    /**
+     * Replaces the contents of the cache with the snapshot read from the supplied stream. The
+     * swap is atomic: if the snapshot cannot be read, the cache is left untouched. Snapshots
+     * without a positive integer version, or with keys which are not cache keys, are malformed.
+     *
+     * @param reader The stream to read from; it is not closed.
+     * @throws IOException If the snapshot cannot be read or is malformed.
+     */
+    void importFrom(final Reader reader) throws IOException;
 }
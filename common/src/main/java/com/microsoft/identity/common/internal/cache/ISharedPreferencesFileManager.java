@@ -25,9 +25,23 @@ package com.microsoft.identity.common.internal.cache;
 import android.content.SharedPreferences;
 
 import java.util.Map;
+import java.util.Set;
 
 
 public interface ISharedPreferencesFileManager {
+
+    /**
+     * Selects entries by key, see {@link #getAllFilteredByKey(IKeyFilter)}.
+     */
+    interface IKeyFilter {
+
+        /**
+         * @param key The key of an entry.
+         * @return True, if the entry should be returned.
+         */
+        boolean accept(String key);
+    }
+
     /**
      * Saves a Token (as a {@link String} to the {@link SharedPreferences} file.
      *
@@ -36,6 +50,22 @@ public interface ISharedPreferencesFileManager {
      */
     void putString(String key, String value);
 
+    /**
+     * Saves the supplied entries to the {@link SharedPreferences} file in a single write.
+     * Identical values are encrypted once.
+     *
+     * @param entries The entries to save, keyed by name.
+     */
+    void putStrings(Map<String, String> entries);
+
+    /**
+     * Replaces the contents of the {@link SharedPreferences} file with the supplied entries, in
+     * a single write.
+     *
+     * @param entries The new entries, keyed by name.
+     */
+    void replaceAll(Map<String, String> entries);
+
     /**
      * Retrieves a Token from the {@link SharedPreferences} file.
      *
@@ -61,6 +91,23 @@ public interface ISharedPreferencesFileManager {
      */
     Map<String, String> getAll();
 
+    /**
+     * Returns the entries of the {@link SharedPreferences} file whose key is accepted by the
+     * supplied filter. Only the values of accepted entries are decrypted.
+     *
+     * @param keyFilter The filter to apply to the keys.
+     * @return A Map of the accepted entries.
+     */
+    Map<String, String> getAllFilteredByKey(IKeyFilter keyFilter);
+
+    /**
+     * Returns the keys of all entries in the {@link SharedPreferences} file. No value is
+     * decrypted.
+     *
+     * @return A Set of all keys, which the caller may modify.
+     */
+    Set<String> getKeys();
+
     /**
      * Tests if the {@link SharedPreferences} file contains an entry for the supplied key.
      *
@@ -34,6 +34,7 @@ import com.microsoft.identity.common.internal.dto.Credential;
 import com.microsoft.identity.common.internal.dto.CredentialType;
 import com.microsoft.identity.common.internal.dto.IdTokenRecord;
 import com.microsoft.identity.common.internal.dto.RefreshTokenRecord;
+import com.microsoft.identity.common.internal.dto.ScopeSet;
 import com.microsoft.identity.common.internal.logging.Logger;
 import com.microsoft.identity.common.internal.providers.oauth2.AuthorizationRequest;
 import com.microsoft.identity.common.internal.providers.oauth2.OAuth2Strategy;
@@ -42,8 +43,6 @@ import com.microsoft.identity.common.internal.providers.oauth2.TokenResponse;
 import java.util.ArrayList;
 import java.util.List;
 
-import static com.microsoft.identity.common.internal.cache.AbstractAccountCredentialCache.targetsIntersect;
-
 public class MicrosoftFamilyOAuth2TokenCache
         <GenericOAuth2Strategy extends OAuth2Strategy,
                 GenericAuthorizationRequest extends AuthorizationRequest,
@@ -136,6 +135,8 @@ public class MicrosoftFamilyOAuth2TokenCache
         }
 
         if (null != target) {
+            final ScopeSet soughtScopes = ScopeSet.of(target);
+
             for (final Credential credential : allCredentials) {
                 if (credential instanceof AccessTokenRecord) {
                     final AccessTokenRecord atRecord = (AccessTokenRecord) credential;
@@ -144,7 +145,7 @@ public class MicrosoftFamilyOAuth2TokenCache
                             && accountRecord.getEnvironment().equals(atRecord.getEnvironment())
                             && accountRecord.getHomeAccountId().equals(atRecord.getHomeAccountId())
                             && accountRecord.getRealm().equals(atRecord.getRealm())
-                            && targetsIntersect(target, atRecord.getTarget())) {
+                            && atRecord.getScopeSet().containsAll(soughtScopes)) {
                         atRecordToReturn = atRecord;
                         break;
                     }
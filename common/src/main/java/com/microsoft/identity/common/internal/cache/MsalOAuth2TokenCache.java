@@ -38,6 +38,8 @@ import com.microsoft.identity.common.internal.dto.Credential;
 import com.microsoft.identity.common.internal.dto.CredentialType;
 import com.microsoft.identity.common.internal.dto.IdTokenRecord;
 import com.microsoft.identity.common.internal.dto.RefreshTokenRecord;
+import com.microsoft.identity.common.internal.dto.ScopeSet;
+import com.microsoft.identity.common.internal.logging.ILogMessageSupplier;
 import com.microsoft.identity.common.internal.logging.Logger;
 import com.microsoft.identity.common.internal.providers.microsoft.MicrosoftAccount;
 import com.microsoft.identity.common.internal.providers.microsoft.MicrosoftRefreshToken;
@@ -54,7 +56,6 @@ import com.microsoft.identity.common.internal.telemetry.events.CacheEndEvent;
 import com.microsoft.identity.common.internal.telemetry.events.CacheStartEvent;
 
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
@@ -1307,7 +1308,9 @@ public class MsalOAuth2TokenCache
 
         for (final Credential accessToken : accessTokens) {
             if (scopesIntersect(referenceToken, (AccessTokenRecord) accessToken)) {
-                Logger.infoPII(TAG + ":" + methodName, "Removing credential: " + accessToken);
+                if (Logger.isLoggable(Logger.LogLevel.INFO, true)) {
+                    Logger.infoPII(TAG + ":" + methodName, "Removing credential: " + accessToken);
+                }
                 mAccountCredentialCache.removeCredential(accessToken);
             }
         }
@@ -1317,35 +1320,22 @@ public class MsalOAuth2TokenCache
                                     final AccessTokenRecord token2) {
         final String methodName = "scopesIntersect";
 
-        final Set<String> token1Scopes = scopesAsSet(token1);
-        final Set<String> token2Scopes = scopesAsSet(token2);
+        final ScopeSet token1Scopes = token1.getScopeSet();
+        final ScopeSet token2Scopes = token2.getScopeSet();
 
-        boolean result = false;
-        for (final String scope : token2Scopes) {
-            if (token1Scopes.contains(scope)) {
-                Logger.info(TAG + ":" + methodName, "Scopes intersect.");
-                Logger.infoPII(
-                        TAG + ":" + methodName,
-                        token1Scopes.toString() + " contains [" + scope + "]"
-                );
-                result = true;
-                break;
-            }
-        }
+        final boolean result = token1Scopes.intersects(token2Scopes);
 
-        return result;
-    }
-
-    private Set<String> scopesAsSet(final AccessTokenRecord token) {
-        final Set<String> scopeSet = new HashSet<>();
-        final String scopeString = token.getTarget();
-
-        if (!StringExtensions.isNullOrBlank(scopeString)) {
-            final String[] scopeArray = scopeString.split("\\s+");
-            scopeSet.addAll(Arrays.asList(scopeArray));
+        if (result) {
+            Logger.info(TAG + ":" + methodName, "Scopes intersect.");
+            Logger.infoPII(TAG + ":" + methodName, new ILogMessageSupplier() {
+                @Override
+                public String get() {
+                    return token1Scopes.toString() + " intersects " + token2Scopes.toString();
+                }
+            });
         }
 
-        return scopeSet;
+        return result;
     }
 
     private static boolean isSchemaCompliant(final Class<?> clazz, final String[][] params) {
@@ -25,6 +25,11 @@ package com.microsoft.identity.common.internal.cache;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
 import com.microsoft.identity.common.adal.internal.util.StringExtensions;
 import com.microsoft.identity.common.internal.dto.AccessTokenRecord;
 import com.microsoft.identity.common.internal.dto.AccountRecord;
@@ -34,16 +39,15 @@ import com.microsoft.identity.common.internal.dto.IAccountRecord;
 import com.microsoft.identity.common.internal.dto.IdTokenRecord;
 import com.microsoft.identity.common.internal.dto.RefreshTokenRecord;
 import com.microsoft.identity.common.internal.logging.Logger;
+import com.microsoft.identity.common.internal.telemetry.metrics.Metrics;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Locale;
 import java.util.Map;
-import java.util.Set;
-
-import static com.microsoft.identity.common.internal.cache.CacheKeyValueDelegate.CACHE_VALUE_SEPARATOR;
 
 @SuppressWarnings("PMD.AvoidDuplicateLiterals")
 public class SharedPreferencesAccountCredentialCache extends AbstractAccountCredentialCache {
@@ -83,6 +87,14 @@ public class SharedPreferencesAccountCredentialCache extends AbstractAccountCred
     private static final String ACCOUNT_RECORD_DESERIALIZATION_FAILED = DESERIALIZATION_FAILED + AccountRecord.class.getSimpleName();
     private static final String CREDENTIAL_DESERIALIZATION_FAILED = DESERIALIZATION_FAILED + Credential.class.getSimpleName();
 
+    // Format of the snapshots written by exportTo(): {"version": 1, "entries": [{"key": "...", "value": {...}}]}
+    private static final int SNAPSHOT_VERSION = 1;
+    private static final String SNAPSHOT_VERSION_FIELD = "version";
+    private static final String SNAPSHOT_ENTRIES_FIELD = "entries";
+    private static final String SNAPSHOT_KEY_FIELD = "key";
+    private static final String SNAPSHOT_VALUE_FIELD = "value";
+    private static final String MALFORMED_SNAPSHOT = "Malformed cache snapshot.";
+
     // SharedPreferences used to store Accounts and Credentials
     private final ISharedPreferencesFileManager mSharedPreferencesFileManager;
 
@@ -107,18 +119,24 @@ public class SharedPreferencesAccountCredentialCache extends AbstractAccountCred
         Logger.verbose(TAG, "Saving Account...");
         Logger.verbose(TAG, "Account type: [" + account.getClass().getSimpleName() + "]");
         final String cacheKey = mCacheValueDelegate.generateCacheKey(account);
-        Logger.verbosePII(TAG, "Generated cache key: [" + cacheKey + "]");
+        if (Logger.isLoggable(Logger.LogLevel.VERBOSE, true)) {
+            Logger.verbosePII(TAG, "Generated cache key: [" + cacheKey + "]");
+        }
         final String cacheValue = mCacheValueDelegate.generateCacheValue(account);
         mSharedPreferencesFileManager.putString(cacheKey, cacheValue);
+        notifyCacheChanged();
     }
 
     @Override
     public synchronized void saveCredential(@NonNull Credential credential) {
         Logger.verbose(TAG, "Saving credential...");
         final String cacheKey = mCacheValueDelegate.generateCacheKey(credential);
-        Logger.verbosePII(TAG, "Generated cache key: [" + cacheKey + "]");
+        if (Logger.isLoggable(Logger.LogLevel.VERBOSE, true)) {
+            Logger.verbosePII(TAG, "Generated cache key: [" + cacheKey + "]");
+        }
         final String cacheValue = mCacheValueDelegate.generateCacheValue(credential);
         mSharedPreferencesFileManager.putString(cacheKey, cacheValue);
+        notifyCacheChanged();
     }
 
     @Override
@@ -149,7 +167,9 @@ public class SharedPreferencesAccountCredentialCache extends AbstractAccountCred
     public synchronized Credential getCredential(@NonNull final String cacheKey) {
         // TODO add support for more Credential types...
         Logger.verbose(TAG, "getCredential()");
-        Logger.verbosePII(TAG, "Using cache key: [" + cacheKey + "]");
+        if (Logger.isLoggable(Logger.LogLevel.VERBOSE, true)) {
+            Logger.verbosePII(TAG, "Using cache key: [" + cacheKey + "]");
+        }
         final CredentialType type = getCredentialTypeForCredentialCacheKey(cacheKey);
         final Class<? extends Credential> clazz;
         if (CredentialType.AccessToken == type) {
@@ -190,29 +210,52 @@ public class SharedPreferencesAccountCredentialCache extends AbstractAccountCred
 
     @NonNull
     private Map<String, AccountRecord> getAccountsWithKeys() {
+        return getAccountsWithKeys(null, null, null);
+    }
+
+    /**
+     * Loads the Accounts whose key may match the supplied fields. Only the values of those keys
+     * are decrypted and deserialized; null or blank fields match any value.
+     */
+    @NonNull
+    private Map<String, AccountRecord> getAccountsWithKeys(@Nullable final String homeAccountId,
+                                                           @Nullable final String environment,
+                                                           @Nullable final String realm) {
         Logger.verbose(TAG, "Loading Accounts + keys...");
-        final Map<String, ?> cacheValues = mSharedPreferencesFileManager.getAll();
+        final boolean filterOnKey = canFilterOnKey();
+        final Map<String, ?> cacheValues = mSharedPreferencesFileManager.getAllFilteredByKey(
+                new ISharedPreferencesFileManager.IKeyFilter() {
+                    @Override
+                    public boolean accept(final String cacheKey) {
+                        final CredentialCacheKey key = parseCacheKey(cacheKey);
+
+                        return filterOnKey
+                                ? key.mayMatchAccount(homeAccountId, environment, realm)
+                                : !key.isCredential();
+                    }
+                }
+        );
         final Map<String, AccountRecord> accounts = new HashMap<>();
+        final Metrics.Timer timer = Metrics.startTimer(Metrics.Stage.DESERIALIZATION);
 
         for (Map.Entry<String, ?> cacheValue : cacheValues.entrySet()) {
             final String cacheKey = cacheValue.getKey();
-            if (isAccount(cacheKey)) {
-                final AccountRecord account = mCacheValueDelegate.fromCacheValue(
-                        cacheValue.getValue().toString(),
-                        AccountRecord.class
-                );
+            final AccountRecord account = mCacheValueDelegate.fromCacheValue(
+                    cacheValue.getValue().toString(),
+                    AccountRecord.class
+            );
 
-                if (null == account) {
-                    Logger.warn(
-                            TAG,
-                            ACCOUNT_RECORD_DESERIALIZATION_FAILED
-                    );
-                } else {
-                    accounts.put(cacheKey, account);
-                }
+            if (null == account) {
+                Logger.warn(
+                        TAG,
+                        ACCOUNT_RECORD_DESERIALIZATION_FAILED
+                );
+            } else {
+                accounts.put(cacheKey, account);
             }
         }
 
+        timer.stop(Metrics.Outcome.SUCCESS);
         Logger.verbose(TAG, "Returning [" + accounts.size() + "] Accounts w/ keys...");
 
         return accounts;
@@ -236,7 +279,13 @@ public class SharedPreferencesAccountCredentialCache extends AbstractAccountCred
             @Nullable final String realm) {
         Logger.verbose(TAG, "Loading Accounts...");
 
-        final List<AccountRecord> allAccounts = getAccounts();
+        final List<AccountRecord> allAccounts;
+
+        synchronized (this) {
+            allAccounts = new ArrayList<>(
+                    getAccountsWithKeys(homeAccountId, environment, realm).values()
+            );
+        }
 
         final List<AccountRecord> matchingAccounts = getAccountsFilteredByInternal(
                 homeAccountId,
@@ -252,29 +301,54 @@ public class SharedPreferencesAccountCredentialCache extends AbstractAccountCred
 
     @NonNull
     private Map<String, Credential> getCredentialsWithKeys() {
+        return getCredentialsWithKeys(null, null, null, null, null);
+    }
+
+    /**
+     * Loads the Credentials whose key may match the supplied fields. Only the values of those
+     * keys are decrypted and deserialized; null or blank fields match any value.
+     */
+    @NonNull
+    private Map<String, Credential> getCredentialsWithKeys(@Nullable final String homeAccountId,
+                                                           @Nullable final String environment,
+                                                           @Nullable final CredentialType credentialType,
+                                                           @Nullable final String clientId,
+                                                           @Nullable final String realm) {
         Logger.verbose(TAG, "Loading Credentials with keys...");
-        final Map<String, ?> cacheValues = mSharedPreferencesFileManager.getAll();
+        final boolean filterOnKey = canFilterOnKey();
+        final Map<String, ?> cacheValues = mSharedPreferencesFileManager.getAllFilteredByKey(
+                new ISharedPreferencesFileManager.IKeyFilter() {
+                    @Override
+                    public boolean accept(final String cacheKey) {
+                        final CredentialCacheKey key = parseCacheKey(cacheKey);
+
+                        return filterOnKey
+                                ? key.mayMatchCredential(homeAccountId, environment, credentialType, clientId, realm)
+                                : key.isCredential();
+                    }
+                }
+        );
         final Map<String, Credential> credentials = new HashMap<>();
+        final Metrics.Timer timer = Metrics.startTimer(Metrics.Stage.DESERIALIZATION);
 
         for (Map.Entry<String, ?> cacheValue : cacheValues.entrySet()) {
             final String cacheKey = cacheValue.getKey();
-            if (isCredential(cacheKey)) {
-                final Credential credential = mCacheValueDelegate.fromCacheValue(
-                        cacheValue.getValue().toString(),
-                        credentialClassForType(cacheKey)
-                );
+            final Credential credential = mCacheValueDelegate.fromCacheValue(
+                    cacheValue.getValue().toString(),
+                    credentialClassForType(cacheKey)
+            );
 
-                if (null == credential) {
-                    Logger.warn(
-                            TAG,
-                            CREDENTIAL_DESERIALIZATION_FAILED
-                    );
-                } else {
-                    credentials.put(cacheKey, credential);
-                }
+            if (null == credential) {
+                Logger.warn(
+                        TAG,
+                        CREDENTIAL_DESERIALIZATION_FAILED
+                );
+            } else {
+                credentials.put(cacheKey, credential);
             }
         }
 
+        timer.stop(Metrics.Outcome.SUCCESS);
         Logger.verbose(TAG, "Loaded [" + credentials.size() + "] Credentials...");
 
         return credentials;
@@ -300,7 +374,13 @@ public class SharedPreferencesAccountCredentialCache extends AbstractAccountCred
             @Nullable final String target) {
         Logger.verbose(TAG, "getCredentialsFilteredBy()");
 
-        final List<Credential> allCredentials = getCredentials();
+        final List<Credential> allCredentials;
+
+        synchronized (this) {
+            allCredentials = new ArrayList<>(
+                    getCredentialsWithKeys(homeAccountId, environment, credentialType, clientId, realm).values()
+            );
+        }
 
         final List<Credential> matchingCredentials = getCredentialsFilteredByInternal(
                 homeAccountId,
@@ -326,13 +406,17 @@ public class SharedPreferencesAccountCredentialCache extends AbstractAccountCred
 
         final Map<String, AccountRecord> accounts = getAccountsWithKeys();
 
+        final boolean logInspectedKeys = Logger.isLoggable(Logger.LogLevel.INFO, true);
         boolean accountRemoved = false;
         for (final Map.Entry<String, AccountRecord> entry : accounts.entrySet()) {
-            Logger.infoPII(TAG, "Inspecting: [" + entry.getKey() + "]");
+            if (logInspectedKeys) {
+                Logger.infoPII(TAG, "Inspecting: [" + entry.getKey() + "]");
+            }
             final IAccountRecord currentAccount = entry.getValue();
 
             if (currentAccount.equals(accountToRemove)) {
                 mSharedPreferencesFileManager.remove(entry.getKey());
+                notifyCacheChanged();
                 accountRemoved = true;
                 break;
             }
@@ -352,13 +436,17 @@ public class SharedPreferencesAccountCredentialCache extends AbstractAccountCred
 
         final Map<String, Credential> credentials = getCredentialsWithKeys();
 
+        final boolean logInspectedKeys = Logger.isLoggable(Logger.LogLevel.INFO, true);
         boolean credentialRemoved = false;
         for (final Map.Entry<String, Credential> entry : credentials.entrySet()) {
-            Logger.infoPII(TAG, "Inspecting: [" + entry.getKey() + "]");
+            if (logInspectedKeys) {
+                Logger.infoPII(TAG, "Inspecting: [" + entry.getKey() + "]");
+            }
             final Credential currentCredential = entry.getValue();
 
             if (currentCredential.equals(credentialToRemove)) {
                 mSharedPreferencesFileManager.remove(entry.getKey());
+                notifyCacheChanged();
                 credentialRemoved = true;
                 break;
             }
@@ -373,12 +461,140 @@ public class SharedPreferencesAccountCredentialCache extends AbstractAccountCred
     public void clearAll() {
         Logger.info(TAG, "Clearing all SharedPreferences entries...");
         mSharedPreferencesFileManager.clear();
+
+        notifyCacheChanged();
+
         Logger.info(TAG, "SharedPreferences cleared.");
     }
 
+    @Override
+    public synchronized void exportTo(@NonNull final Writer writer) throws IOException {
+        Logger.verbose(TAG, "Exporting cache snapshot...");
+
+        // Not closed, which would close the supplied writer.
+        final JsonWriter jsonWriter = new JsonWriter(writer);
+        jsonWriter.beginObject();
+        jsonWriter.name(SNAPSHOT_VERSION_FIELD).value(SNAPSHOT_VERSION);
+        jsonWriter.name(SNAPSHOT_ENTRIES_FIELD).beginArray();
+
+        int exported = 0;
+
+        for (final String cacheKey : mSharedPreferencesFileManager.getKeys()) {
+            // Values are decrypted and written one at a time, as stored: they are never
+            // deserialized into records.
+            final String cacheValue = mSharedPreferencesFileManager.getString(cacheKey);
+
+            if (StringExtensions.isNullOrBlank(cacheValue)) {
+                // Could not be decrypted, and was removed by the file manager.
+                continue;
+            }
+
+            jsonWriter.beginObject();
+            jsonWriter.name(SNAPSHOT_KEY_FIELD).value(cacheKey);
+            jsonWriter.name(SNAPSHOT_VALUE_FIELD).jsonValue(cacheValue);
+            jsonWriter.endObject();
+            exported++;
+        }
+
+        jsonWriter.endArray();
+        jsonWriter.endObject();
+        jsonWriter.flush();
+
+        Logger.info(TAG, "Exported [" + exported + "] cache entries.");
+    }
+
+    @Override
+    public synchronized void importFrom(@NonNull final Reader reader) throws IOException {
+        Logger.verbose(TAG, "Importing cache snapshot...");
+
+        final Map<String, String> entries = new HashMap<>();
+        final JsonReader jsonReader = new JsonReader(reader);
+        boolean hasVersion = false;
+
+        try {
+            jsonReader.beginObject();
+
+            while (jsonReader.hasNext()) {
+                final String name = jsonReader.nextName();
+
+                if (SNAPSHOT_VERSION_FIELD.equals(name)) {
+                    final int version = jsonReader.nextInt();
+
+                    if (version <= 0) {
+                        throw new IOException(MALFORMED_SNAPSHOT);
+                    }
+
+                    if (version > SNAPSHOT_VERSION) {
+                        throw new IOException("Unsupported cache snapshot version: " + version);
+                    }
+
+                    hasVersion = true;
+                } else if (SNAPSHOT_ENTRIES_FIELD.equals(name)) {
+                    readSnapshotEntries(jsonReader, entries);
+                } else {
+                    jsonReader.skipValue();
+                }
+            }
+
+            jsonReader.endObject();
+        } catch (final IllegalStateException | NumberFormatException | JsonParseException e) {
+            // NumberFormatException: the version is not an int.
+            throw new IOException(MALFORMED_SNAPSHOT, e);
+        }
+
+        if (!hasVersion) {
+            throw new IOException(MALFORMED_SNAPSHOT);
+        }
+
+        // Nothing is written until the whole snapshot has been read: the swap happens in a
+        // single commit.
+        mSharedPreferencesFileManager.replaceAll(entries);
+
+        notifyCacheChanged();
+
+        Logger.info(TAG, "Imported [" + entries.size() + "] cache entries.");
+    }
+
+    private static void readSnapshotEntries(@NonNull final JsonReader jsonReader,
+                                            @NonNull final Map<String, String> entries) throws IOException {
+        final JsonParser parser = new JsonParser();
+        jsonReader.beginArray();
+
+        while (jsonReader.hasNext()) {
+            String cacheKey = null;
+            JsonElement cacheValue = null;
+
+            jsonReader.beginObject();
+
+            while (jsonReader.hasNext()) {
+                final String name = jsonReader.nextName();
+
+                if (SNAPSHOT_KEY_FIELD.equals(name)) {
+                    cacheKey = jsonReader.nextString();
+                } else if (SNAPSHOT_VALUE_FIELD.equals(name)) {
+                    cacheValue = parser.parse(jsonReader);
+                } else {
+                    jsonReader.skipValue();
+                }
+            }
+
+            jsonReader.endObject();
+
+            if (!CredentialCacheKey.isWellFormed(cacheKey) || null == cacheValue || !cacheValue.isJsonObject()) {
+                throw new IOException(MALFORMED_SNAPSHOT);
+            }
+
+            entries.put(cacheKey, cacheValue.toString());
+        }
+
+        jsonReader.endArray();
+    }
+
     private Class<? extends Credential> credentialClassForType(@NonNull final String cacheKey) {
         Logger.verbose(TAG, "Resolving class for key/CredentialType...");
-        Logger.verbosePII(TAG, "Supplied key: [" + cacheKey + "]");
+        if (Logger.isLoggable(Logger.LogLevel.VERBOSE, true)) {
+            Logger.verbosePII(TAG, "Supplied key: [" + cacheKey + "]");
+        }
 
         final CredentialType targetType = getCredentialTypeForCredentialCacheKey(cacheKey);
 
@@ -399,55 +615,30 @@ public class SharedPreferencesAccountCredentialCache extends AbstractAccountCred
             throw new IllegalArgumentException("Param [cacheKey] cannot be null.");
         }
 
-        Logger.verbosePII(TAG, "Evaluating cache key for CredentialType [" + cacheKey + "]");
-
-        final Set<String> credentialTypesLowerCase = new HashSet<>();
-
-        for (final String credentialTypeStr : CredentialType.valueSet()) {
-            credentialTypesLowerCase.add(credentialTypeStr.toLowerCase(Locale.US));
+        if (Logger.isLoggable(Logger.LogLevel.VERBOSE, true)) {
+            Logger.verbosePII(TAG, "Evaluating cache key for CredentialType [" + cacheKey + "]");
         }
 
-        CredentialType type = null;
-        for (final String credentialTypeStr : credentialTypesLowerCase) {
-            if (cacheKey.contains(CACHE_VALUE_SEPARATOR + credentialTypeStr + CACHE_VALUE_SEPARATOR)) {
-                Logger.info(TAG, "Cache key is a Credential type...");
-
-                if (credentialTypeStr.equalsIgnoreCase(CredentialType.AccessToken.name())) {
-                    type = CredentialType.AccessToken;
-                    break;
-                } else if (credentialTypeStr.equalsIgnoreCase(CredentialType.RefreshToken.name())) {
-                    type = CredentialType.RefreshToken;
-                    break;
-                } else if (credentialTypeStr.equalsIgnoreCase(CredentialType.IdToken.name())) {
-                    type = CredentialType.IdToken;
-                    break;
-                } else if (credentialTypeStr.equalsIgnoreCase(CredentialType.V1IdToken.name())) {
-                    type = CredentialType.V1IdToken;
-                    break;
-                } else {
-                    // TODO Log a warning and skip this value?
-                    Logger.warn(TAG, "Unexpected credential type.");
-                }
-            }
-        }
+        final CredentialType type = parseCacheKey(cacheKey).getCredentialType();
 
-        Logger.info(TAG, "Cache key was type: [" + type + "]");
+        Logger.verbose(TAG, "Cache key was type: [" + type + "]");
 
         return type;
     }
 
-    private boolean isAccount(@NonNull final String cacheKey) {
-        Logger.verbosePII(TAG, "Evaluating cache key: [" + cacheKey + "]");
-        boolean isAccount = null == getCredentialTypeForCredentialCacheKey(cacheKey);
-        Logger.info(TAG, "isAccount? [" + isAccount + "]");
-        return isAccount;
+    @NonNull
+    private static CredentialCacheKey parseCacheKey(@NonNull final String cacheKey) {
+        // Parsing only takes a few indexOf() calls, so keys are not memoized: a memo would hold on
+        // to the keys of removed entries.
+        return CredentialCacheKey.parse(cacheKey);
     }
 
-    private boolean isCredential(@NonNull String cacheKey) {
-        Logger.verbosePII(TAG, "Evaluating cache key: [" + cacheKey + "]");
-        boolean isCredential = null != getCredentialTypeForCredentialCacheKey(cacheKey);
-        Logger.info(TAG, "isCredential? [" + isCredential + "]");
-        return isCredential;
+    /**
+     * Query fields can only be matched against keys generated by {@link CacheKeyValueDelegate}.
+     */
+    private boolean canFilterOnKey() {
+        return null != mCacheValueDelegate
+                && CacheKeyValueDelegate.class == mCacheValueDelegate.getClass();
     }
 
 }
@@ -32,11 +32,16 @@ import android.text.TextUtils;
 import com.microsoft.identity.common.adal.internal.cache.IStorageHelper;
 import com.microsoft.identity.common.adal.internal.util.StringExtensions;
 import com.microsoft.identity.common.internal.logging.Logger;
+import com.microsoft.identity.common.internal.telemetry.metrics.Metrics;
 
 import java.io.IOException;
 import java.security.GeneralSecurityException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Convenience class for accessing {@link SharedPreferences}.
@@ -138,25 +143,118 @@ public class SharedPreferencesFileManager implements ISharedPreferencesFileManag
             editor.putString(key, encryptedValue);
         }
 
-        editor.commit();
+        commit(editor);
+    }
+
+    @Override
+    public final void putStrings(@NonNull final Map<String, String> entries) {
+        putStrings(entries, false);
+    }
+
+    @Override
+    public final void replaceAll(@NonNull final Map<String, String> entries) {
+        putStrings(entries, true);
+    }
+
+    // Suppressing because cache integrity is a greater concern than perf
+    @SuppressLint("ApplySharedPref")
+    private void putStrings(@NonNull final Map<String, String> entries, final boolean replace) {
+        final SharedPreferences.Editor editor = mSharedPreferences.edit();
+        final Map<String, String> encryptedValues = new HashMap<>();
+
+        if (replace) {
+            // Applied before the puts of the same commit.
+            editor.clear();
+        }
+
+        for (final Map.Entry<String, String> entry : entries.entrySet()) {
+            final String value = entry.getValue();
+
+            if (null == mStorageHelper) {
+                editor.putString(entry.getKey(), value);
+                continue;
+            }
+
+            String encryptedValue = encryptedValues.get(value);
+
+            if (null == encryptedValue) {
+                encryptedValue = encrypt(value);
+                encryptedValues.put(value, encryptedValue);
+            }
+
+            editor.putString(entry.getKey(), encryptedValue);
+        }
+
+        commit(editor);
     }
 
     @Override
     @Nullable
     public final String getString(final String key) {
+        final Metrics.Timer readTimer = Metrics.startTimer(Metrics.Stage.CACHE_READ);
         String restoredValue = mSharedPreferences.getString(key, null);
+        readTimer.stop(Metrics.Outcome.SUCCESS);
 
         if (null != mStorageHelper && !StringExtensions.isNullOrBlank(restoredValue)) {
-            restoredValue = decrypt(restoredValue);
+            final Metrics.Timer decryptionTimer = Metrics.startTimer(Metrics.Stage.DECRYPTION);
+            final String encryptedValue = restoredValue;
+            restoredValue = decrypt(encryptedValue);
 
             if (StringExtensions.isNullOrBlank(restoredValue)) {
+                decryptionTimer.stop(Metrics.Outcome.FAILURE);
                 logWarningAndRemoveKey(key);
+            } else {
+                decryptionTimer.stop(Metrics.Outcome.SUCCESS);
+
+                if (mStorageHelper.needsReEncryption(encryptedValue)) {
+                    reEncrypt(
+                            Collections.singletonMap(key, encryptedValue),
+                            Collections.singletonMap(key, restoredValue)
+                    );
+                }
             }
         }
 
         return restoredValue;
     }
 
+    /**
+     * Encrypts values stored in a legacy format again, see
+     * {@link IStorageHelper#needsReEncryption(String)}. A value is only replaced if it has not
+     * been changed since it was read.
+     *
+     * @param legacyValues    The values in a legacy format, as read, keyed by name.
+     * @param decryptedValues The decrypted values, keyed by name.
+     */
+    private void reEncrypt(@NonNull final Map<String, String> legacyValues,
+                           @NonNull final Map<String, String> decryptedValues) {
+        final SharedPreferences.Editor editor = mSharedPreferences.edit();
+        int reEncryptedCount = 0;
+
+        // Serialized with the commits of other writers of this file, see commit(Editor).
+        synchronized (mSharedPreferences) {
+            for (final Map.Entry<String, String> entry : legacyValues.entrySet()) {
+                final String key = entry.getKey();
+
+                if (!entry.getValue().equals(mSharedPreferences.getString(key, null))) {
+                    continue;
+                }
+
+                final String encryptedValue = encrypt(decryptedValues.get(key));
+
+                if (null != encryptedValue) {
+                    editor.putString(key, encryptedValue);
+                    reEncryptedCount++;
+                }
+            }
+
+            // The values are unchanged: if this write is lost, they are encrypted again next time.
+            editor.apply();
+        }
+
+        Logger.verbose(TAG, "Re-encrypted " + reEncryptedCount + " legacy value(s).");
+    }
+
     private void logWarningAndRemoveKey(String key) {
         Logger.warn(
                 TAG,
@@ -174,23 +272,64 @@ public class SharedPreferencesFileManager implements ISharedPreferencesFileManag
 
     @Override
     public final Map<String, String> getAll() {
+        return getAllFilteredByKey(null);
+    }
+
+    @Override
+    public final Set<String> getKeys() {
+        final Metrics.Timer readTimer = Metrics.startTimer(Metrics.Stage.CACHE_READ);
+        final Set<String> keys = new HashSet<>(mSharedPreferences.getAll().keySet());
+        readTimer.stop(Metrics.Outcome.SUCCESS);
+
+        return keys;
+    }
+
+    @Override
+    public final Map<String, String> getAllFilteredByKey(@Nullable final IKeyFilter keyFilter) {
+        final Metrics.Timer readTimer = Metrics.startTimer(Metrics.Stage.CACHE_READ);
         final Map<String, String> entries = (Map<String, String>) mSharedPreferences.getAll();
+        readTimer.stop(Metrics.Outcome.SUCCESS);
+
+        if (null != keyFilter) {
+            final Iterator<String> keys = entries.keySet().iterator();
+
+            while (keys.hasNext()) {
+                if (!keyFilter.accept(keys.next())) {
+                    keys.remove();
+                }
+            }
+        }
 
         if (null != mStorageHelper) {
+            final Metrics.Timer decryptionTimer = Metrics.startTimer(Metrics.Stage.DECRYPTION);
+            boolean allDecrypted = true;
+            final Map<String, String> legacyValues = new HashMap<>();
             final Iterator<Map.Entry<String, String>> iterator = entries.entrySet().iterator();
 
             while (iterator.hasNext()) {
                 final Map.Entry<String, String> entry = iterator.next();
-                final String decryptedValue = decrypt(entry.getValue());
+                final String encryptedValue = entry.getValue();
+                final String decryptedValue = decrypt(encryptedValue);
 
                 if (TextUtils.isEmpty(decryptedValue)) {
+                    allDecrypted = false;
                     logWarningAndRemoveKey(entry.getKey());
                     iterator.remove();
                     continue;
                 }
 
+                if (mStorageHelper.needsReEncryption(encryptedValue)) {
+                    legacyValues.put(entry.getKey(), encryptedValue);
+                }
+
                 entry.setValue(decryptedValue);
             }
+
+            decryptionTimer.stop(allDecrypted ? Metrics.Outcome.SUCCESS : Metrics.Outcome.FAILURE);
+
+            if (!legacyValues.isEmpty()) {
+                reEncrypt(legacyValues, entries);
+            }
         }
 
         return entries;
@@ -206,7 +345,7 @@ public class SharedPreferencesFileManager implements ISharedPreferencesFileManag
     public final void clear() {
         final SharedPreferences.Editor editor = mSharedPreferences.edit();
         editor.clear();
-        editor.commit();
+        commit(editor);
     }
 
     @SuppressLint("ApplySharedPref")
@@ -219,7 +358,7 @@ public class SharedPreferencesFileManager implements ISharedPreferencesFileManag
 
         final SharedPreferences.Editor editor = mSharedPreferences.edit();
         editor.remove(key);
-        editor.commit();
+        commit(editor);
 
         Logger.infoPII(
                 TAG,
@@ -229,6 +368,17 @@ public class SharedPreferencesFileManager implements ISharedPreferencesFileManag
         );
     }
 
+    /**
+     * Commits the supplied edits. Commits are serialized with the re-encryption of legacy values,
+     * so that a value written concurrently is never replaced by the value it overwrote.
+     */
+    @SuppressLint("ApplySharedPref")
+    private void commit(@NonNull final SharedPreferences.Editor editor) {
+        synchronized (mSharedPreferences) {
+            editor.commit();
+        }
+    }
+
     @Nullable
     private String encrypt(@NonNull final String clearText) {
         return encryptDecryptInternal(clearText, true);
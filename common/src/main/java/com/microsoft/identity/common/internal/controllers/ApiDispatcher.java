@@ -33,6 +33,7 @@ import com.microsoft.identity.common.exception.BaseException;
 import com.microsoft.identity.common.exception.UserCancelException;
 import com.microsoft.identity.common.internal.cache.ICacheRecord;
 import com.microsoft.identity.common.internal.logging.DiagnosticContext;
+import com.microsoft.identity.common.internal.logging.DiagnosticContextExecutor;
 import com.microsoft.identity.common.internal.logging.Logger;
 import com.microsoft.identity.common.internal.providers.oauth2.AuthorizationActivity;
 import com.microsoft.identity.common.internal.request.AcquireTokenOperationParameters;
@@ -50,8 +51,8 @@ public class ApiDispatcher {
 
     private static final String TAG = ApiDispatcher.class.getSimpleName();
 
-    private static final ExecutorService sInteractiveExecutor = Executors.newSingleThreadExecutor();
-    private static final ExecutorService sSilentExecutor = Executors.newCachedThreadPool();
+    private static final ExecutorService sInteractiveExecutor = new DiagnosticContextExecutor(Executors.newSingleThreadExecutor());
+    private static final ExecutorService sSilentExecutor = new DiagnosticContextExecutor(Executors.newCachedThreadPool());
     private static final Object sLock = new Object();
     private static InteractiveTokenCommand sCommand = null;
 
@@ -27,6 +27,7 @@ import android.accounts.OperationCanceledException;
 import android.content.Intent;
 import android.os.RemoteException;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import android.text.TextUtils;
 
 import com.microsoft.identity.common.adal.internal.AuthenticationConstants;
@@ -40,10 +41,12 @@ import com.microsoft.identity.common.internal.authorities.AzureActiveDirectoryAu
 import com.microsoft.identity.common.internal.authorities.AzureActiveDirectoryAuthority;
 import com.microsoft.identity.common.internal.cache.ICacheRecord;
 import com.microsoft.identity.common.internal.cache.SchemaUtil;
+import com.microsoft.identity.common.internal.dto.AccessTokenRecord;
 import com.microsoft.identity.common.internal.dto.AccountRecord;
 import com.microsoft.identity.common.internal.dto.IdTokenRecord;
 import com.microsoft.identity.common.internal.logging.DiagnosticContext;
 import com.microsoft.identity.common.internal.logging.Logger;
+import com.microsoft.identity.common.internal.net.NetworkStateMonitor;
 import com.microsoft.identity.common.internal.net.ObjectMapper;
 import com.microsoft.identity.common.internal.providers.microsoft.MicrosoftAuthorizationRequest;
 import com.microsoft.identity.common.internal.providers.microsoft.MicrosoftTokenRequest;
@@ -61,6 +64,7 @@ import com.microsoft.identity.common.internal.providers.oauth2.TokenResponse;
 import com.microsoft.identity.common.internal.providers.oauth2.TokenResult;
 import com.microsoft.identity.common.internal.request.AcquireTokenOperationParameters;
 import com.microsoft.identity.common.internal.request.AcquireTokenSilentOperationParameters;
+import com.microsoft.identity.common.internal.request.Deadline;
 import com.microsoft.identity.common.internal.request.OperationParameters;
 import com.microsoft.identity.common.internal.request.SdkType;
 import com.microsoft.identity.common.internal.result.AcquireTokenResult;
@@ -68,6 +72,7 @@ import com.microsoft.identity.common.internal.result.LocalAuthenticationResult;
 import com.microsoft.identity.common.internal.telemetry.CliTelemInfo;
 import com.microsoft.identity.common.internal.telemetry.Telemetry;
 import com.microsoft.identity.common.internal.telemetry.events.CacheEndEvent;
+import com.microsoft.identity.common.internal.telemetry.metrics.Metrics;
 
 import java.io.IOException;
 import java.util.Arrays;
@@ -181,7 +186,16 @@ public abstract class BaseController {
         logExposedFieldsOfObject(TAG + methodName, tokenRequest);
         tokenRequest.setGrantType(TokenRequest.GrantTypes.AUTHORIZATION_CODE);
 
-        TokenResult tokenResult = strategy.requestToken(tokenRequest);
+        final Metrics.Timer timer = startTimer(Metrics.Stage.TOKEN_REQUEST);
+        String outcome = Metrics.Outcome.ERROR;
+        TokenResult tokenResult;
+
+        try {
+            tokenResult = requestToken(strategy, tokenRequest);
+            outcome = tokenResult.getSuccess() ? Metrics.Outcome.SUCCESS : Metrics.Outcome.FAILURE;
+        } finally {
+            timer.stop(outcome);
+        }
 
         logResult(TAG, tokenResult);
 
@@ -203,6 +217,23 @@ public abstract class BaseController {
 
         logParameters(TAG, parameters);
 
+        if (!NetworkStateMonitor.getInstance(parameters.getAppContext()).isConnectionAvailable()) {
+            if (canServeExtendedLifetimeAccessToken(parameters, cacheRecord)) {
+                // The token cannot be renewed while offline, serve the one the server allows us to keep using.
+                Logger.info(
+                        TAG + methodName,
+                        "Network is not available, returning access token within its extended lifetime."
+                );
+                acquireTokenSilentResult.setLocalAuthenticationResult(
+                        new LocalAuthenticationResult(cacheRecord, parameters.getSdkType())
+                );
+                return;
+            }
+
+            // The cached token does not satisfy the request: fail with the offline error.
+            HttpWebRequest.throwIfNetworkNotAvailable(parameters.getAppContext());
+        }
+
         final TokenResult tokenResult = performSilentTokenRequest(strategy, parameters);
         acquireTokenSilentResult.setTokenResult(tokenResult);
 
@@ -214,10 +245,11 @@ public abstract class BaseController {
                     "Token request was successful"
             );
 
-            final List<ICacheRecord> savedRecords = tokenCache.saveAndLoadAggregatedAccountData(
+            final List<ICacheRecord> savedRecords = saveTokens(
                     strategy,
                     getAuthorizationRequest(strategy, parameters),
-                    tokenResult.getTokenResponse()
+                    tokenResult.getTokenResponse(),
+                    tokenCache
             );
             final ICacheRecord savedRecord = savedRecords.get(0);
 
@@ -242,6 +274,53 @@ public abstract class BaseController {
         }
     }
 
+    /**
+     * Returns true if the cached access token may be served while the network is unavailable: the
+     * only reason to renew it is that it expired, and it is still within the extended lifetime the
+     * server granted. A forced refresh, a claims challenge or a token issued for another realm than
+     * the requested one must not be answered with the cached token.
+     *
+     * @param parameters  The parameters of the silent request.
+     * @param cacheRecord The cache record found for the request.
+     * @return true if the cached access token can be returned.
+     */
+    static boolean canServeExtendedLifetimeAccessToken(@NonNull final AcquireTokenSilentOperationParameters parameters,
+                                                       @NonNull final ICacheRecord cacheRecord) {
+        final AccessTokenRecord accessToken = cacheRecord.getAccessToken();
+
+        return null != accessToken
+                && !parameters.getForceRefresh()
+                && StringExtensions.isNullOrBlank(parameters.getClaimsRequestJson())
+                && isRequestedRealm(parameters.getAuthority(), cacheRecord)
+                && accessToken.isWithinExtendedLifetime();
+    }
+
+    private static boolean isRequestedRealm(@Nullable final Authority authority,
+                                            @NonNull final ICacheRecord cacheRecord) {
+        if (!(authority instanceof AzureActiveDirectoryAuthority)) {
+            // Only AAD authorities name a tenant.
+            return true;
+        }
+
+        final String accessTokenRealm = cacheRecord.getAccessToken().getRealm();
+        final AzureActiveDirectoryAudience audience = ((AzureActiveDirectoryAuthority) authority).getAudience();
+        String requestedRealm = audience == null ? null : audience.getTenantId();
+
+        if (StringExtensions.isNullOrBlank(requestedRealm)
+                || AzureActiveDirectoryAudience.ALL.equalsIgnoreCase(requestedRealm)
+                || AzureActiveDirectoryAudience.ORGANIZATIONS.equalsIgnoreCase(requestedRealm)
+                || AzureActiveDirectoryAudience.CONSUMERS.equalsIgnoreCase(requestedRealm)) {
+            // Tenant aliases resolve to the home tenant of the account.
+            if (null == cacheRecord.getAccount()) {
+                return false;
+            }
+
+            requestedRealm = cacheRecord.getAccount().getRealm();
+        }
+
+        return null != accessTokenRealm && accessTokenRealm.equalsIgnoreCase(requestedRealm);
+    }
+
     /**
      * Log IResult objects.  IResult objects are returned from Authorization and Token Requests
      *
@@ -361,7 +440,43 @@ public abstract class BaseController {
             );
         }
 
-        return strategy.requestToken(refreshTokenRequest);
+        final Metrics.Timer timer = startTimer(Metrics.Stage.TOKEN_REQUEST);
+        String outcome = Metrics.Outcome.ERROR;
+
+        try {
+            final TokenResult tokenResult = requestToken(strategy, refreshTokenRequest);
+            outcome = tokenResult.getSuccess() ? Metrics.Outcome.SUCCESS : Metrics.Outcome.FAILURE;
+            return tokenResult;
+        } finally {
+            timer.stop(outcome);
+        }
+    }
+
+    /**
+     * Sends a token request, failing with {@link ClientException#DEADLINE_EXCEEDED} if the
+     * deadline of the request in progress (see {@link Deadline#current()}) expires first.
+     */
+    private static TokenResult requestToken(@NonNull final OAuth2Strategy strategy,
+                                            @NonNull final TokenRequest tokenRequest)
+            throws IOException, ClientException {
+        final Deadline deadline = Deadline.current();
+
+        if (deadline == null) {
+            return strategy.requestToken(tokenRequest);
+        }
+
+        deadline.throwIfExpired("the token request");
+
+        try {
+            return strategy.requestToken(tokenRequest);
+        } catch (final IOException e) {
+            // The http timeouts were shrunk to the remaining budget: report running out of it.
+            if (deadline.isExpired()) {
+                throw deadline.newExpiredException("the token request", e);
+            }
+
+            throw e;
+        }
     }
 
     protected List<ICacheRecord> saveTokens(@NonNull final OAuth2Strategy strategy,
@@ -375,11 +490,36 @@ public abstract class BaseController {
                 "Saving tokens..."
         );
 
-        return tokenCache.saveAndLoadAggregatedAccountData(
-                strategy,
-                request,
-                tokenResponse
-        );
+        final Metrics.Timer timer = startTimer(Metrics.Stage.CACHE_WRITE);
+        boolean saved = false;
+
+        try {
+            final List<ICacheRecord> savedRecords = tokenCache.saveAndLoadAggregatedAccountData(
+                    strategy,
+                    request,
+                    tokenResponse
+            );
+            saved = true;
+            return savedRecords;
+        } finally {
+            timer.stop(saved ? Metrics.Outcome.SUCCESS : Metrics.Outcome.FAILURE);
+        }
+    }
+
+    /**
+     * Starts timing a stage, tagging it with this controller.
+     *
+     * @param stage one of {@link Metrics.Stage}.
+     * @return the started {@link Metrics.Timer}.
+     */
+    protected Metrics.Timer startTimer(@NonNull final String stage) {
+        final String previousController = Metrics.enterController(getClass().getSimpleName());
+
+        try {
+            return Metrics.startTimer(stage);
+        } finally {
+            Metrics.exitController(previousController);
+        }
     }
 
     protected boolean refreshTokenIsNull(@NonNull final ICacheRecord cacheRecord) {
@@ -0,0 +1,199 @@
+// Copyright (c) Microsoft Corporation.
+// All rights reserved.
+//
+// This code is licensed under the MIT License.
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files(the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and / or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions :
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+package com.microsoft.identity.common.internal.controllers;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.microsoft.identity.common.internal.cache.AbstractAccountCredentialCache;
+import com.microsoft.identity.common.internal.cache.IAccountCredentialCacheChangeListener;
+import com.microsoft.identity.common.internal.dto.IAccountRecord;
+import com.microsoft.identity.common.internal.logging.Logger;
+import com.microsoft.identity.common.internal.request.OperationParameters;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Short-lived memo of the controllers that could not serve a silent request for a given
+ * (client id, home account id, authority), because they had no account or no tokens for it.
+ * <p>
+ * {@link TokenCommand} consults it to route subsequent silent requests directly to the controller
+ * able to serve them, instead of scanning a cache that is known to miss (e.g. the local cache for
+ * accounts that only the broker knows). Entries expire after {@link #MISS_TTL_MILLIS}, and are
+ * dropped whenever the local account/credential cache is written (tokens saved or migrated, entries
+ * removed, cleared or imported), an interactive request completes or an account is removed.
+ * <p>
+ * The memo is process-local: writes made by the broker in its own process are only observed once
+ * the entry expires, or when an interactive or remove-account request goes through this process.
+ */
+public final class ControllerMissCache {
+
+    private static final String TAG = ControllerMissCache.class.getSimpleName();
+
+    /**
+     * How long a recorded miss is trusted.
+     */
+    static final long MISS_TTL_MILLIS = TimeUnit.SECONDS.toMillis(60);
+
+    /**
+     * Upper bound on the number of tracked keys, to keep the memo from growing unbounded.
+     */
+    private static final int MAX_ENTRIES = 64;
+
+    private static final Map<String, Entry> sEntries = new HashMap<>();
+
+    static {
+        // Registered before any miss can be recorded: misses are only recorded by this class.
+        AbstractAccountCredentialCache.addChangeListener(new IAccountCredentialCacheChangeListener() {
+            @Override
+            public void onCacheChanged() {
+                invalidate();
+            }
+        });
+    }
+
+    private ControllerMissCache() {
+        // Utility class.
+    }
+
+    /**
+     * Returns true if the supplied controller recently missed for the account of these parameters.
+     *
+     * @param parameters The parameters of the silent request.
+     * @param controller The controller about to be tried.
+     * @return true if the controller is known to have no account or tokens for this request.
+     */
+    static boolean isKnownMiss(@NonNull final OperationParameters parameters,
+                               @NonNull final BaseController controller) {
+        final String key = keyOf(parameters);
+
+        if (key == null) {
+            return false;
+        }
+
+        synchronized (sEntries) {
+            final Entry entry = sEntries.get(key);
+
+            if (entry == null) {
+                return false;
+            }
+
+            if (entry.isExpired(System.currentTimeMillis())) {
+                sEntries.remove(key);
+                return false;
+            }
+
+            return entry.mControllers.contains(controller.getClass().getName());
+        }
+    }
+
+    /**
+     * Records that the supplied controller has no account or tokens for these parameters.
+     *
+     * @param parameters The parameters of the silent request.
+     * @param controller The controller which missed.
+     */
+    static void recordMiss(@NonNull final OperationParameters parameters,
+                           @NonNull final BaseController controller) {
+        final String key = keyOf(parameters);
+
+        if (key == null) {
+            return;
+        }
+
+        final long now = System.currentTimeMillis();
+
+        synchronized (sEntries) {
+            Entry entry = sEntries.get(key);
+
+            if (entry == null || entry.isExpired(now)) {
+                if (sEntries.size() >= MAX_ENTRIES) {
+                    evictExpired(now);
+                }
+
+                if (sEntries.size() >= MAX_ENTRIES) {
+                    sEntries.clear();
+                }
+
+                entry = new Entry(now + MISS_TTL_MILLIS);
+                sEntries.put(key, entry);
+            }
+
+            entry.mControllers.add(controller.getClass().getName());
+        }
+    }
+
+    /**
+     * Drops every recorded miss. Called whenever the content of a token cache may have changed.
+     */
+    public static void invalidate() {
+        synchronized (sEntries) {
+            if (!sEntries.isEmpty()) {
+                Logger.verbose(TAG + ":invalidate", "Clearing [" + sEntries.size() + "] controller misses.");
+                sEntries.clear();
+            }
+        }
+    }
+
+    private static void evictExpired(final long now) {
+        final Iterator<Entry> iterator = sEntries.values().iterator();
+
+        while (iterator.hasNext()) {
+            if (iterator.next().isExpired(now)) {
+                iterator.remove();
+            }
+        }
+    }
+
+    @Nullable
+    private static String keyOf(@NonNull final OperationParameters parameters) {
+        final IAccountRecord account = parameters.getAccount();
+
+        if (account == null || account.getHomeAccountId() == null || parameters.getClientId() == null) {
+            return null;
+        }
+
+        return parameters.getClientId()
+                + '|' + account.getHomeAccountId()
+                + '|' + (parameters.getAuthority() == null ? "" : parameters.getAuthority().getAuthorityURL());
+    }
+
+    private static final class Entry {
+
+        private final long mExpiresAtMillis;
+        private final Set<String> mControllers = new HashSet<>();
+
+        Entry(final long expiresAtMillis) {
+            mExpiresAtMillis = expiresAtMillis;
+        }
+
+        boolean isExpired(final long now) {
+            return now >= mExpiresAtMillis;
+        }
+    }
+}
@@ -53,10 +53,15 @@ public class InteractiveTokenCommand extends TokenCommand {
                     "Executing interactive token command..."
             );
 
-            return getDefaultController()
+            final AcquireTokenResult result = getDefaultController()
                     .acquireToken(
                             (AcquireTokenOperationParameters) getParameters()
                     );
+
+            // The user may have signed in to an account a controller previously had no tokens for.
+            ControllerMissCache.invalidate();
+
+            return result;
         } else {
             throw new IllegalArgumentException("Invalid operation parameters");
         }
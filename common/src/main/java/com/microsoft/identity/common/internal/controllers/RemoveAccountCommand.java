@@ -67,6 +67,8 @@ public class RemoveAccountCommand extends BaseAccountCommand<Boolean> {
             result = controller.removeAccount(getParameters());
         }
 
+        ControllerMissCache.invalidate();
+
         return result;
     }
 }
@@ -30,10 +30,13 @@ import com.microsoft.identity.common.exception.BaseException;
 import com.microsoft.identity.common.exception.ClientException;
 import com.microsoft.identity.common.exception.ErrorStrings;
 import com.microsoft.identity.common.exception.UiRequiredException;
+import com.microsoft.identity.common.internal.cache.CachePreloader;
 import com.microsoft.identity.common.internal.request.AcquireTokenSilentOperationParameters;
+import com.microsoft.identity.common.internal.request.Deadline;
 import com.microsoft.identity.common.internal.request.ILocalAuthenticationCallback;
 import com.microsoft.identity.common.internal.request.OperationParameters;
 import com.microsoft.identity.common.internal.result.AcquireTokenResult;
+import com.microsoft.identity.common.internal.telemetry.metrics.Metrics;
 
 import java.io.IOException;
 import java.util.ArrayList;
@@ -73,11 +76,55 @@ public class TokenCommand implements TokenOperation {
     @Override
     public AcquireTokenResult execute()
             throws InterruptedException, ExecutionException, IOException, BaseException {
+        final Deadline deadline = getParameters() instanceof AcquireTokenSilentOperationParameters
+                ? ((AcquireTokenSilentOperationParameters) getParameters()).getDeadline()
+                : null;
+
+        if (deadline == null) {
+            return acquireTokenSilent();
+        }
+
+        // Bound to this thread so that token requests, http requests and broker bindings honor it.
+        final Deadline previousDeadline = Deadline.enter(deadline);
+
+        try {
+            return acquireTokenSilent();
+        } finally {
+            Deadline.enter(previousDeadline);
+        }
+    }
+
+    private AcquireTokenResult acquireTokenSilent()
+            throws InterruptedException, ExecutionException, IOException, BaseException {
         AcquireTokenResult result = null;
         final String methodName = ":execute";
+        final Deadline deadline = Deadline.current();
+
+        // The caches are read below: let a warm-up started at app start finish rather than
+        // loading the same keys and files again on this thread.
+        CachePreloader.awaitPreload(deadline == null
+                ? CachePreloader.MAX_PRELOAD_WAIT_MILLIS
+                : Math.min(CachePreloader.MAX_PRELOAD_WAIT_MILLIS, deadline.getRemainingMillis())
+        );
 
         for (int ii = 0; ii < mControllers.size(); ii++) {
             final BaseController controller = mControllers.get(ii);
+            final boolean isLastController = mControllers.size() == ii + 1;
+
+            if (deadline != null) {
+                deadline.throwIfExpired("the silent request");
+            }
+
+            if (!isLastController && ControllerMissCache.isKnownMiss(getParameters(), controller)) {
+                com.microsoft.identity.common.internal.logging.Logger.verbose(
+                        TAG + methodName,
+                        "Skipping controller with no account or tokens for this request: "
+                                + controller.getClass().getSimpleName()
+                );
+                continue;
+            }
+
+            final String previousController = Metrics.enterController(controller.getClass().getSimpleName());
 
             try {
                 com.microsoft.identity.common.internal.logging.Logger.verbose(
@@ -108,10 +155,14 @@ public class TokenCommand implements TokenOperation {
                         || e.getErrorCode().equals(ErrorStrings.NO_ACCOUNT_FOUND))
                         && mControllers.size() > ii + 1) {
                     //if no token or account for this silent call, we should continue to the next silent call.
+                    //Remember the miss so that the next silent calls go straight to the next controller.
+                    ControllerMissCache.recordMiss(getParameters(), controller);
                     continue;
                 } else {
                     throw e;
                 }
+            } finally {
+                Metrics.exitController(previousController);
             }
         }
 
@@ -107,6 +107,11 @@ public class AccessTokenRecord extends Credential {
     @SerializedName(EXPIRES_ON)
     private String mExpiresOn;
 
+    /**
+     * Normalized scopes of {@link #mTarget}, resolved on first use after the record is loaded.
+     */
+    private transient ScopeSet mScopeSet;
+
     /**
      * Gets the realm.
      *
@@ -141,6 +146,23 @@ public class AccessTokenRecord extends Credential {
      */
     public void setTarget(final String target) {
         mTarget = target;
+        mScopeSet = null;
+    }
+
+    /**
+     * Gets the normalized (lowercased, deduplicated, sorted) scopes of the target.
+     *
+     * @return The ScopeSet of the target, never null.
+     */
+    public ScopeSet getScopeSet() {
+        ScopeSet scopeSet = mScopeSet;
+
+        if (null == scopeSet) {
+            scopeSet = ScopeSet.of(mTarget);
+            mScopeSet = scopeSet;
+        }
+
+        return scopeSet;
     }
 
     /**
@@ -231,4 +253,24 @@ public class AccessTokenRecord extends Credential {
     public boolean isExpired() {
         return isExpired(getExpiresOn());
     }
+
+    /**
+     * Returns true if the token is past its expires_on but still within the extended lifetime the
+     * server granted for outages, i.e. it may be served when a new token cannot be obtained.
+     *
+     * @return true if the token is within its extended lifetime.
+     */
+    public boolean isWithinExtendedLifetime() {
+        final String extendedExpiresOn = getExtendedExpiresOn();
+
+        if (extendedExpiresOn == null || extendedExpiresOn.trim().isEmpty()) {
+            return false;
+        }
+
+        try {
+            return !isExpired(extendedExpiresOn);
+        } catch (final NumberFormatException e) {
+            return false;
+        }
+    }
 }
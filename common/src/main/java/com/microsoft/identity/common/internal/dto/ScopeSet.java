@@ -0,0 +1,237 @@
+// Copyright (c) Microsoft Corporation.
+// All rights reserved.
+//
+// This code is licensed under the MIT License.
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files(the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and / or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions :
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+package com.microsoft.identity.common.internal.dto;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Immutable, normalized set of scopes parsed from a credential target.
+ * <p>
+ * Scopes are lowercased, deduplicated and sorted once, so that subset and intersection checks
+ * are a single merge over two sorted arrays. Instances are interned by their source target
+ * string: credentials carrying the same target share one ScopeSet and the target is only
+ * parsed the first time it is seen.
+ */
+public final class ScopeSet {
+
+    /**
+     * The maximum number of distinct targets kept in the intern pool.
+     */
+    private static final int MAX_INTERNED_TARGETS = 512;
+
+    /**
+     * The empty ScopeSet, used for null or blank targets.
+     */
+    public static final ScopeSet EMPTY = new ScopeSet(new String[0]);
+
+    private static final Map<String, ScopeSet> sInternPool =
+            new LinkedHashMap<String, ScopeSet>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(final Map.Entry<String, ScopeSet> eldest) {
+                    return size() > MAX_INTERNED_TARGETS;
+                }
+            };
+
+    private final String[] mScopes;
+
+    private ScopeSet(@NonNull final String[] scopes) {
+        mScopes = scopes;
+    }
+
+    /**
+     * Returns the interned ScopeSet for the supplied target.
+     *
+     * @param target The whitespace-delimited target (scopes) of a credential or query.
+     * @return The normalized ScopeSet, {@link #EMPTY} if the target is null or blank.
+     */
+    @NonNull
+    public static ScopeSet of(@Nullable final String target) {
+        if (null == target) {
+            return EMPTY;
+        }
+
+        synchronized (sInternPool) {
+            final ScopeSet interned = sInternPool.get(target);
+
+            if (null != interned) {
+                return interned;
+            }
+        }
+
+        final ScopeSet parsed = parse(target);
+
+        synchronized (sInternPool) {
+            sInternPool.put(target, parsed);
+        }
+
+        return parsed;
+    }
+
+    private static ScopeSet parse(@NonNull final String target) {
+        final int length = target.length();
+        String[] scopes = new String[4];
+        int count = 0;
+        int start = -1;
+
+        for (int i = 0; i <= length; i++) {
+            final boolean separator = i == length || isWhitespace(target.charAt(i));
+
+            if (separator && start >= 0) {
+                if (count == scopes.length) {
+                    scopes = Arrays.copyOf(scopes, count * 2);
+                }
+
+                scopes[count++] = target.substring(start, i).toLowerCase(Locale.US);
+                start = -1;
+            } else if (!separator && start < 0) {
+                start = i;
+            }
+        }
+
+        if (count == 0) {
+            return EMPTY;
+        }
+
+        Arrays.sort(scopes, 0, count);
+
+        // Drop duplicates in place now that equal scopes are adjacent.
+        int unique = 1;
+        for (int i = 1; i < count; i++) {
+            if (!scopes[i].equals(scopes[unique - 1])) {
+                scopes[unique++] = scopes[i];
+            }
+        }
+
+        return new ScopeSet(Arrays.copyOf(scopes, unique));
+    }
+
+    /**
+     * Matches the characters of the {@code \s} regex class previously used to split targets.
+     */
+    private static boolean isWhitespace(final char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    /**
+     * @return The number of distinct scopes.
+     */
+    public int size() {
+        return mScopes.length;
+    }
+
+    /**
+     * @return True if this set holds no scopes.
+     */
+    public boolean isEmpty() {
+        return mScopes.length == 0;
+    }
+
+    /**
+     * @param scope The scope to look for. Matching is case-insensitive.
+     * @return True if this set contains the supplied scope.
+     */
+    public boolean contains(@NonNull final String scope) {
+        return Arrays.binarySearch(mScopes, scope.toLowerCase(Locale.US)) >= 0;
+    }
+
+    /**
+     * @param other The ScopeSet to compare against.
+     * @return True if this set contains every scope of other.
+     */
+    public boolean containsAll(@NonNull final ScopeSet other) {
+        if (this == other || other.mScopes.length == 0) {
+            return true;
+        }
+
+        if (other.mScopes.length > mScopes.length) {
+            return false;
+        }
+
+        int i = 0;
+        for (final String sought : other.mScopes) {
+            while (i < mScopes.length && mScopes[i].compareTo(sought) < 0) {
+                i++;
+            }
+
+            if (i == mScopes.length || !mScopes[i].equals(sought)) {
+                return false;
+            }
+
+            i++;
+        }
+
+        return true;
+    }
+
+    /**
+     * @param other The ScopeSet to compare against.
+     * @return True if this set and other share at least one scope.
+     */
+    public boolean intersects(@NonNull final ScopeSet other) {
+        int i = 0;
+        int j = 0;
+
+        while (i < mScopes.length && j < other.mScopes.length) {
+            final int comparison = mScopes[i].compareTo(other.mScopes[j]);
+
+            if (comparison == 0) {
+                return true;
+            } else if (comparison < 0) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+
+        return false;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+
+        if (!(o instanceof ScopeSet)) {
+            return false;
+        }
+
+        return Arrays.equals(mScopes, ((ScopeSet) o).mScopes);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(mScopes);
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(mScopes);
+    }
+}
@@ -22,6 +22,14 @@
 // THE SOFTWARE.
 package com.microsoft.identity.common.internal.logging;
 
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.microsoft.identity.common.internal.request.Deadline;
+import com.microsoft.identity.common.internal.telemetry.metrics.Metrics;
+
+import java.util.concurrent.Callable;
+
 public final class DiagnosticContext {
 
     public static final String CORRELATION_ID = "correlation_id";
@@ -85,4 +93,128 @@ public final class DiagnosticContext {
     public static void clear() {
         REQUEST_CONTEXT_THREAD_LOCAL.remove();
     }
+
+    /**
+     * Get a copy of the request context of the calling thread, which can be installed on another
+     * thread without both threads sharing (and mutating) the same context.
+     *
+     * @return IRequestContext
+     */
+    @NonNull
+    public static IRequestContext copyRequestContext() {
+        final RequestContext copy = new RequestContext();
+        copy.putAll(getRequestContext());
+
+        return copy;
+    }
+
+    /**
+     * Wrap a task so that it runs with the request context of the calling thread, wherever it
+     * runs. The {@link Deadline} and the {@link Metrics} controller of the calling thread are
+     * carried over as well, so that background work stops with the request it belongs to and its
+     * stages are tagged with the right controller. The state of the thread running the task is
+     * restored once the task completes, so pooled threads do not keep a stale context.
+     *
+     * @param task The task to wrap.
+     * @return The wrapped task.
+     */
+    @NonNull
+    public static Runnable wrap(@NonNull final Runnable task) {
+        final ThreadState callerState = ThreadState.capture();
+
+        return new Runnable() {
+            @Override
+            public void run() {
+                final ThreadState previousState = callerState.apply();
+
+                try {
+                    task.run();
+                } finally {
+                    previousState.restore();
+                }
+            }
+        };
+    }
+
+    /**
+     * Wrap a task so that it runs with the request context of the calling thread, see
+     * {@link #wrap(Runnable)}.
+     *
+     * @param task The task to wrap.
+     * @param <V>  The type of the result of the task.
+     * @return The wrapped task.
+     */
+    @NonNull
+    public static <V> Callable<V> wrap(@NonNull final Callable<V> task) {
+        final ThreadState callerState = ThreadState.capture();
+
+        return new Callable<V>() {
+            @Override
+            public V call() throws Exception {
+                final ThreadState previousState = callerState.apply();
+
+                try {
+                    return task.call();
+                } finally {
+                    previousState.restore();
+                }
+            }
+        };
+    }
+
+    /**
+     * The request scoped state bound to a thread.
+     */
+    private static final class ThreadState {
+
+        private final IRequestContext mRequestContext;
+        private final Deadline mDeadline;
+        private final String mController;
+
+        private ThreadState(@Nullable final IRequestContext requestContext,
+                            @Nullable final Deadline deadline,
+                            @Nullable final String controller) {
+            mRequestContext = requestContext;
+            mDeadline = deadline;
+            mController = controller;
+        }
+
+        /**
+         * @return The state of the calling thread, with a copy of its request context.
+         */
+        static ThreadState capture() {
+            return new ThreadState(
+                    copyRequestContext(),
+                    Deadline.current(),
+                    Metrics.getCurrentController()
+            );
+        }
+
+        /**
+         * Binds this state to the calling thread.
+         *
+         * @return The state previously bound to the calling thread.
+         */
+        ThreadState apply() {
+            final ThreadState previousState = new ThreadState(
+                    REQUEST_CONTEXT_THREAD_LOCAL.get(),
+                    Deadline.current(),
+                    Metrics.getCurrentController()
+            );
+            setRequestContext(mRequestContext);
+            Deadline.enter(mDeadline);
+            // Binds the controller, or clears it when there is none.
+            Metrics.exitController(mController);
+            return previousState;
+        }
+
+        /**
+         * Binds this state back to the calling thread, as it was before {@link #apply()}.
+         */
+        void restore() {
+            REQUEST_CONTEXT_THREAD_LOCAL.set(mRequestContext);
+            Deadline.enter(mDeadline);
+            Metrics.exitController(mController);
+        }
+    }
 }
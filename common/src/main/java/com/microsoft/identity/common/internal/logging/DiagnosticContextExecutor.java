@@ -0,0 +1,79 @@
+// Copyright (c) Microsoft Corporation.
+// All rights reserved.
+//
+// This code is licensed under the MIT License.
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files(the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and / or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions :
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+package com.microsoft.identity.common.internal.logging;
+
+import androidx.annotation.NonNull;
+
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An {@link ExecutorService} running each task with the {@link DiagnosticContext} of the thread
+ * which submitted it, so that logs and telemetry emitted by background work keep the correlation
+ * id of the request they belong to. All the thread pools of the library go through it.
+ */
+public class DiagnosticContextExecutor extends AbstractExecutorService {
+
+    private final ExecutorService mDelegate;
+
+    /**
+     * @param delegate The executor actually running the tasks.
+     */
+    public DiagnosticContextExecutor(@NonNull final ExecutorService delegate) {
+        mDelegate = delegate;
+    }
+
+    @Override
+    public void execute(@NonNull final Runnable command) {
+        // submit() and invokeAll() also end up here, on the submitting thread.
+        mDelegate.execute(DiagnosticContext.wrap(command));
+    }
+
+    @Override
+    public void shutdown() {
+        mDelegate.shutdown();
+    }
+
+    @NonNull
+    @Override
+    public List<Runnable> shutdownNow() {
+        return mDelegate.shutdownNow();
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return mDelegate.isShutdown();
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return mDelegate.isTerminated();
+    }
+
+    @Override
+    public boolean awaitTermination(final long timeout, @NonNull final TimeUnit unit) throws InterruptedException {
+        return mDelegate.awaitTermination(timeout, unit);
+    }
+}
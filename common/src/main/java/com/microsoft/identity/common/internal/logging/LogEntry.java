@@ -0,0 +1,76 @@
+// Copyright (c) Microsoft Corporation.
+// All rights reserved.
+//
+// This code is licensed under the MIT License.
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files(the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and / or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions :
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+package com.microsoft.identity.common.internal.logging;
+
+import androidx.annotation.NonNull;
+
+/**
+ * A formatted log message, as delivered to an {@link IBatchLoggerCallback}.
+ */
+public final class LogEntry {
+
+    private final String mTag;
+    private final Logger.LogLevel mLogLevel;
+    private final String mMessage;
+    private final boolean mContainsPII;
+
+    LogEntry(final String tag,
+             @NonNull final Logger.LogLevel logLevel,
+             @NonNull final String message,
+             final boolean containsPII) {
+        mTag = tag;
+        mLogLevel = logLevel;
+        mMessage = message;
+        mContainsPII = containsPII;
+    }
+
+    /**
+     * @return The TAG for the log message.
+     */
+    public String getTag() {
+        return mTag;
+    }
+
+    /**
+     * @return The {@link Logger.LogLevel} of the message.
+     */
+    @NonNull
+    public Logger.LogLevel getLogLevel() {
+        return mLogLevel;
+    }
+
+    /**
+     * @return The detailed message.
+     */
+    @NonNull
+    public String getMessage() {
+        return mMessage;
+    }
+
+    /**
+     * @return True if the log message contains PII, false otherwise.
+     */
+    public boolean containsPII() {
+        return mContainsPII;
+    }
+}
@@ -0,0 +1,200 @@
+// Copyright (c) Microsoft Corporation.
+// All rights reserved.
+//
+// This code is licensed under the MIT License.
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files(the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and / or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions :
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+package com.microsoft.identity.common.internal.logging;
+
+import androidx.annotation.NonNull;
+
+import java.util.Collection;
+
+/**
+ * A bounded FIFO buffer between the threads logging messages and the thread delivering them.
+ * <p>
+ * When the buffer is full, {@link Logger.OverflowPolicy#DROP_OLDEST} discards the oldest pending
+ * element to make room and {@link Logger.OverflowPolicy#BLOCK} makes the producer wait for the
+ * consumer. Dropped elements are counted, and count as completed for {@link #awaitCompletion(long)}.
+ *
+ * @param <T> The type of the buffered elements.
+ */
+final class LogRingBuffer<T> {
+
+    private Object[] mElements;
+    private int mHead;
+    private int mSize;
+    private Logger.OverflowPolicy mOverflowPolicy;
+
+    // Elements offered so far, and elements either delivered or dropped so far.
+    private long mOfferedCount;
+    private long mCompletedCount;
+    private long mDroppedCount;
+
+    LogRingBuffer(final int capacity, @NonNull final Logger.OverflowPolicy overflowPolicy) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive.");
+        }
+
+        mElements = new Object[capacity];
+        mOverflowPolicy = overflowPolicy;
+    }
+
+    /**
+     * Adds an element to the buffer, making room for it according to the overflow policy.
+     *
+     * @param element  The element.
+     * @param mayBlock False if the caller must not wait for room even when the policy is
+     *                 {@link Logger.OverflowPolicy#BLOCK}, e.g. because it is the consumer.
+     * @return False if the element was dropped because the caller was interrupted while waiting.
+     */
+    synchronized boolean put(@NonNull final T element, final boolean mayBlock) {
+        mOfferedCount++;
+
+        while (mSize == mElements.length) {
+            if (mayBlock && mOverflowPolicy == Logger.OverflowPolicy.BLOCK) {
+                try {
+                    wait();
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    onDropped(1);
+                    return false;
+                }
+            } else {
+                removeOldest();
+                onDropped(1);
+            }
+        }
+
+        mElements[(mHead + mSize) % mElements.length] = element;
+        mSize++;
+        notifyAll();
+
+        return true;
+    }
+
+    /**
+     * Moves up to maxElements of the oldest elements to the supplied collection, waiting for at
+     * least one to be available. The consumer reports them through {@link #onDelivered(int)}.
+     *
+     * @param target      The collection to add the elements to.
+     * @param maxElements The maximum number of elements to move.
+     * @return The number of elements moved.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    @SuppressWarnings("unchecked")
+    synchronized int drainTo(@NonNull final Collection<? super T> target,
+                             final int maxElements) throws InterruptedException {
+        while (mSize == 0) {
+            wait();
+        }
+
+        final int count = Math.min(maxElements, mSize);
+
+        for (int i = 0; i < count; i++) {
+            target.add((T) removeOldest());
+        }
+
+        notifyAll();
+
+        return count;
+    }
+
+    /**
+     * Reports that elements obtained through {@link #drainTo} have been delivered.
+     *
+     * @param count The number of delivered elements.
+     */
+    synchronized void onDelivered(final int count) {
+        mCompletedCount += count;
+        notifyAll();
+    }
+
+    /**
+     * Waits until every element offered before this call has been delivered or dropped.
+     *
+     * @param timeoutMillis The maximum time to wait.
+     * @return False if the timeout expired first.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    synchronized boolean awaitCompletion(final long timeoutMillis) throws InterruptedException {
+        final long target = mOfferedCount;
+        final long deadline = System.currentTimeMillis() + timeoutMillis;
+
+        while (mCompletedCount < target) {
+            final long remaining = deadline - System.currentTimeMillis();
+
+            if (remaining <= 0) {
+                return false;
+            }
+
+            wait(remaining);
+        }
+
+        return true;
+    }
+
+    /**
+     * Changes the capacity and the overflow policy. If the new capacity is smaller than the
+     * number of pending elements, the oldest ones are dropped.
+     */
+    synchronized void configure(final int capacity, @NonNull final Logger.OverflowPolicy overflowPolicy) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive.");
+        }
+
+        while (mSize > capacity) {
+            removeOldest();
+            onDropped(1);
+        }
+
+        final Object[] elements = new Object[capacity];
+
+        for (int i = 0; i < mSize; i++) {
+            elements[i] = mElements[(mHead + i) % mElements.length];
+        }
+
+        mElements = elements;
+        mHead = 0;
+        mOverflowPolicy = overflowPolicy;
+        notifyAll();
+    }
+
+    /**
+     * @return The number of elements dropped since the buffer was created.
+     */
+    synchronized long getDroppedCount() {
+        return mDroppedCount;
+    }
+
+    private Object removeOldest() {
+        final Object element = mElements[mHead];
+        mElements[mHead] = null;
+        mHead = (mHead + 1) % mElements.length;
+        mSize--;
+
+        return element;
+    }
+
+    private void onDropped(final int count) {
+        mDroppedCount += count;
+        mCompletedCount += count;
+        notifyAll();
+    }
+}
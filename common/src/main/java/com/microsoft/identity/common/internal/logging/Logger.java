@@ -25,30 +25,52 @@ package com.microsoft.identity.common.internal.logging;
 import android.os.Build;
 import android.util.Log;
 
+import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
 import com.microsoft.identity.common.adal.internal.util.StringExtensions;
 
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
+import java.util.List;
 import java.util.Locale;
 import java.util.TimeZone;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 public final class Logger {
 
+    private static final String TAG = Logger.class.getSimpleName();
     private static final String CUSTOM_LOG_ERROR = "Custom log failed to log message:%s";
-    private static ExecutorService sLogExecutor = Executors.newSingleThreadExecutor();
-    private static final Logger INSTANCE = new Logger();
+    private static final String CUSTOM_BATCH_LOG_ERROR = "Custom batch log failed to log %d messages.";
+    private static final String DROPPED_LOG_MESSAGES = "Dropped %d log messages: the log buffer was full.";
     private static final String DATE_FORMAT = "yyyy-MM-dd HH:mm:ss";
 
+    /**
+     * The default number of log messages waiting for delivery before the overflow policy applies.
+     */
+    public static final int DEFAULT_LOG_BUFFER_CAPACITY = 1024;
+
+    // Maximum number of messages handed to the external loggers at once.
+    private static final int MAX_BATCH_SIZE = 128;
+
+    private static final LogRingBuffer<PendingLog> sLogBuffer =
+            new LogRingBuffer<>(DEFAULT_LOG_BUFFER_CAPACITY, OverflowPolicy.DROP_OLDEST);
+    private static final Logger INSTANCE = new Logger();
+
+    private final Thread mLogThread;
+
     // Turn on the VERBOSE level logging by default.
-    private LogLevel mLogLevel = LogLevel.VERBOSE;
+    private volatile LogLevel mLogLevel = LogLevel.VERBOSE;
     private ILoggerCallback mExternalLogger;
+    private IBatchLoggerCallback mExternalBatchLogger;
+
+    // Dropped messages already reported to the external loggers, only used by the log thread.
+    private long mReportedDroppedCount;
 
     // Disable to log PII by default.
-    private static boolean sAllowPii = false;
+    private static volatile boolean sAllowPii = false;
     // Disable to Logcat logging by default.
     private static boolean sAllowLogcat = false;
 
@@ -74,6 +96,32 @@ public final class Logger {
         VERBOSE
     }
 
+    /**
+     * What happens to a log message when the log buffer is full.
+     */
+    public enum OverflowPolicy {
+        /**
+         * Drop the oldest pending message to make room. The number of dropped messages is reported
+         * to the external loggers with the next batch.
+         */
+        DROP_OLDEST,
+        /**
+         * Make the logging thread wait until the oldest pending message has been delivered.
+         */
+        BLOCK
+    }
+
+    private Logger() {
+        mLogThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                deliverLogs();
+            }
+        }, TAG);
+        mLogThread.setDaemon(true);
+        mLogThread.start();
+    }
+
     /**
      * @return The single instance of {@link Logger}.
      */
@@ -118,6 +166,24 @@ public final class Logger {
         return sAllowLogcat;
     }
 
+    /**
+     * Check whether a message would be logged, before building it. Use it to guard log calls whose
+     * message is expensive to build, e.g. in loops:
+     * <pre>
+     * if (Logger.isLoggable(Logger.LogLevel.VERBOSE, true)) {
+     *     Logger.verbosePII(TAG, "Inspecting: [" + key + "]");
+     * }
+     * </pre>
+     * The check does not allocate.
+     *
+     * @param logLevel    The {@link LogLevel} of the message.
+     * @param containsPII True if the message contains PII, false otherwise.
+     * @return true if the message would be logged, false otherwise.
+     */
+    public static boolean isLoggable(final LogLevel logLevel, final boolean containsPII) {
+        return logLevel.compareTo(getInstance().mLogLevel) <= 0 && (sAllowPii || !containsPII);
+    }
+
     /**
      * Set the log level for diagnostic purpose. By default, the sdk enables the verbose level
      * logging.
@@ -139,6 +205,56 @@ public final class Logger {
         mExternalLogger = externalLogger;
     }
 
+    /**
+     * Set the custom batch logger. The sdk passes the log messages to it in batches, and flushes
+     * it after each batch containing an error. It can be used alongside
+     * {@link #setExternalLogger(ILoggerCallback)}.
+     *
+     * @param externalBatchLogger The reference to the {@link IBatchLoggerCallback} that can
+     *                            output the logs to the designated places.
+     */
+    public void setExternalBatchLogger(final IBatchLoggerCallback externalBatchLogger) {
+        mExternalBatchLogger = externalBatchLogger;
+    }
+
+    /**
+     * Configure the buffer holding the log messages until they are delivered. By default, it holds
+     * {@link #DEFAULT_LOG_BUFFER_CAPACITY} messages and drops the oldest one when full.
+     *
+     * @param capacity       The maximum number of messages waiting for delivery.
+     * @param overflowPolicy The {@link OverflowPolicy} applied when the buffer is full.
+     */
+    public void setLogBuffer(final int capacity, @NonNull final OverflowPolicy overflowPolicy) {
+        sLogBuffer.configure(capacity, overflowPolicy);
+    }
+
+    /**
+     * Get the number of log messages dropped because the log buffer was full.
+     *
+     * @return The number of dropped messages.
+     */
+    public long getDroppedLogCount() {
+        return sLogBuffer.getDroppedCount();
+    }
+
+    /**
+     * Wait until the messages logged so far have been delivered to logcat and the external
+     * loggers, e.g. before the process is terminated.
+     *
+     * @param timeout  The maximum time to wait.
+     * @param timeUnit The unit of the timeout.
+     * @return True if the messages have been delivered, false if the timeout expired first.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    public boolean flush(final long timeout, @NonNull final TimeUnit timeUnit) throws InterruptedException {
+        if (Thread.currentThread() == mLogThread) {
+            // An external logger cannot wait for its own delivery.
+            return false;
+        }
+
+        return sLogBuffer.awaitCompletion(timeUnit.toMillis(timeout));
+    }
+
     /**
      * Send a {@link LogLevel#ERROR} log message without PII.
      *
@@ -150,10 +266,9 @@ public final class Logger {
     public static void error(final String tag,
                              @Nullable final String errorMessage,
                              @Nullable final Throwable exception) {
-        getInstance().log(
+        getInstance().logWithRequestContext(
                 tag,
                 LogLevel.ERROR,
-                DiagnosticContext.getRequestContext().toJsonString(),
                 errorMessage,
                 exception,
                 false
@@ -193,10 +308,9 @@ public final class Logger {
     public static void errorPII(final String tag,
                                 @Nullable final String errorMessage,
                                 @Nullable final Throwable exception) {
-        getInstance().log(
+        getInstance().logWithRequestContext(
                 tag,
                 LogLevel.ERROR,
-                DiagnosticContext.getRequestContext().toJsonString(),
                 errorMessage,
                 exception,
                 true
@@ -234,10 +348,9 @@ public final class Logger {
      * @param message The message to log.
      */
     public static void warn(final String tag, @Nullable final String message) {
-        getInstance().log(
+        getInstance().logWithRequestContext(
                 tag,
                 LogLevel.WARN,
-                DiagnosticContext.getRequestContext().toJsonString(),
                 message,
                 null,
                 false
@@ -273,10 +386,9 @@ public final class Logger {
      * @param message The message to log.
      */
     public static void warnPII(final String tag, @Nullable final String message) {
-        getInstance().log(
+        getInstance().logWithRequestContext(
                 tag,
                 LogLevel.WARN,
-                DiagnosticContext.getRequestContext().toJsonString(),
                 message,
                 null,
                 true
@@ -312,16 +424,28 @@ public final class Logger {
      * @param message The message to log.
      */
     public static void info(final String tag, @Nullable final String message) {
-        getInstance().log(
+        getInstance().logWithRequestContext(
                 tag,
                 LogLevel.INFO,
-                DiagnosticContext.getRequestContext().toJsonString(),
                 message,
                 null,
                 false
         );
     }
 
+    /**
+     * Send a {@link LogLevel#INFO} log message without PII, built only if it would be logged.
+     *
+     * @param tag             Used to identify the source of a log message. It usually identifies
+     *                        the class or activity where the log call occurs.
+     * @param messageSupplier Builds the message to log.
+     */
+    public static void info(final String tag, @NonNull final ILogMessageSupplier messageSupplier) {
+        if (isLoggable(LogLevel.INFO, false)) {
+            info(tag, messageSupplier.get());
+        }
+    }
+
     /**
      * * Send a {@link LogLevel#INFO} log message without PII.
      *
@@ -344,16 +468,28 @@ public final class Logger {
      * @param message The message to log.
      */
     public static void infoPII(final String tag, @Nullable final String message) {
-        getInstance().log(
+        getInstance().logWithRequestContext(
                 tag,
                 LogLevel.INFO,
-                DiagnosticContext.getRequestContext().toJsonString(),
                 message,
                 null,
                 true
         );
     }
 
+    /**
+     * Send a {@link LogLevel#INFO} log message with PII, built only if it would be logged.
+     *
+     * @param tag             Used to identify the source of a log message. It usually identifies
+     *                        the class or activity where the log call occurs.
+     * @param messageSupplier Builds the message to log.
+     */
+    public static void infoPII(final String tag, @NonNull final ILogMessageSupplier messageSupplier) {
+        if (isLoggable(LogLevel.INFO, true)) {
+            infoPII(tag, messageSupplier.get());
+        }
+    }
+
     /**
      * Send a {@link LogLevel#INFO} log message with PII.
      *
@@ -376,16 +512,28 @@ public final class Logger {
      * @param message The message to log.
      */
     public static void verbose(final String tag, @Nullable final String message) {
-        getInstance().log(
+        getInstance().logWithRequestContext(
                 tag,
                 LogLevel.VERBOSE,
-                DiagnosticContext.getRequestContext().toJsonString(),
                 message,
                 null,
                 false
         );
     }
 
+    /**
+     * Send a {@link LogLevel#VERBOSE} log message without PII, built only if it would be logged.
+     *
+     * @param tag             Used to identify the source of a log message. It usually identifies
+     *                        the class or activity where the log call occurs.
+     * @param messageSupplier Builds the message to log.
+     */
+    public static void verbose(final String tag, @NonNull final ILogMessageSupplier messageSupplier) {
+        if (isLoggable(LogLevel.VERBOSE, false)) {
+            verbose(tag, messageSupplier.get());
+        }
+    }
+
     /**
      * Send a {@link LogLevel#VERBOSE} log message without PII.
      *
@@ -415,16 +563,28 @@ public final class Logger {
      * @param message The message to log.
      */
     public static void verbosePII(final String tag, @Nullable final String message) {
-        getInstance().log(
+        getInstance().logWithRequestContext(
                 tag,
                 LogLevel.VERBOSE,
-                DiagnosticContext.getRequestContext().toJsonString(),
                 message,
                 null,
                 true
         );
     }
 
+    /**
+     * Send a {@link LogLevel#VERBOSE} log message with PII, built only if it would be logged.
+     *
+     * @param tag             Used to identify the source of a log message. It usually identifies
+     *                        the class or activity where the log call occurs.
+     * @param messageSupplier Builds the message to log.
+     */
+    public static void verbosePII(final String tag, @NonNull final ILogMessageSupplier messageSupplier) {
+        if (isLoggable(LogLevel.VERBOSE, true)) {
+            verbosePII(tag, messageSupplier.get());
+        }
+    }
+
     /**
      * Send a {@link LogLevel#VERBOSE} log message with PII.
      *
@@ -446,48 +606,136 @@ public final class Logger {
         );
     }
 
+    /**
+     * Logs a message tagged with the request context of the calling thread. The context is only
+     * serialized if the message would be logged.
+     */
+    private void logWithRequestContext(final String tag,
+                                       final LogLevel logLevel,
+                                       @Nullable final String message,
+                                       @Nullable final Throwable throwable,
+                                       final boolean containsPII) {
+        if (!isLoggable(logLevel, containsPII)) {
+            return;
+        }
+
+        log(
+                tag,
+                logLevel,
+                DiagnosticContext.getRequestContext().toJsonString(),
+                message,
+                throwable,
+                containsPII
+        );
+    }
+
     private void log(final String tag,
                      final LogLevel logLevel,
                      @Nullable final String correlationID,
                      @Nullable final String message,
                      @Nullable final Throwable throwable,
                      final boolean containsPII) {
-        sLogExecutor.execute(new Runnable() {
-            @Override
-            public void run() {
-                if (logLevel.compareTo(mLogLevel) > 0) {
-                    return;
-                }
+        // Developer turns off PII logging, if the log message contains any PII,
+        // we should not send it.
+        if (!isLoggable(logLevel, containsPII)) {
+            return;
+        }
 
-                // Developer turns off PII logging, if the log meLoggerSettingssage contains any PII,
-                // we should not send it.
-                if (!sAllowPii && containsPII) {
-                    return;
-                }
+        // The log thread never waits for itself, e.g. when an external logger logs.
+        sLogBuffer.put(
+                new PendingLog(tag, logLevel, correlationID, message, throwable, containsPII),
+                Thread.currentThread() != mLogThread
+        );
+    }
 
-                //Format the log message.
-                final String logMessage = formatMessage(correlationID, message, throwable);
+    /**
+     * Runs on the log thread: hands the buffered messages to logcat and the external loggers, in
+     * the order they were logged.
+     */
+    private void deliverLogs() {
+        final List<PendingLog> batch = new ArrayList<>(MAX_BATCH_SIZE);
 
-                // Send logs into Logcat.
-                if (sAllowLogcat) {
-                    sendLogcatLogs(tag, logLevel, logMessage);
-                }
+        while (true) {
+            batch.clear();
+
+            try {
+                sLogBuffer.drainTo(batch, MAX_BATCH_SIZE);
+            } catch (final InterruptedException e) {
+                return;
+            }
+
+            try {
+                deliverBatch(batch);
+            } catch (final RuntimeException e) {
+                Log.w(TAG, "Failed to deliver log messages.", e);
+            } finally {
+                sLogBuffer.onDelivered(batch.size());
+            }
+        }
+    }
+
+    private void deliverBatch(@NonNull final List<PendingLog> batch) {
+        final List<LogEntry> entries = new ArrayList<>(batch.size() + 1);
+        boolean containsError = false;
+
+        final long droppedCount = sLogBuffer.getDroppedCount();
+
+        if (droppedCount != mReportedDroppedCount) {
+            entries.add(new LogEntry(
+                    TAG,
+                    LogLevel.WARN,
+                    formatMessage(null, String.format(Locale.US, DROPPED_LOG_MESSAGES, droppedCount - mReportedDroppedCount), null),
+                    false
+            ));
+            mReportedDroppedCount = droppedCount;
+        }
 
-                // Send logs into external logger callback.
-                final ILoggerCallback externalLogger = mExternalLogger;
-
-                if (null != externalLogger) {
-                    try {
-                        mExternalLogger.log(tag, logLevel, logMessage, containsPII);
-                    } catch (final Exception e) {
-                        // log message as warning to report callback error issue
-                        if (!containsPII || sAllowPii) {
-                            Log.w(tag, String.format(CUSTOM_LOG_ERROR, logMessage));
-                        }
+        for (final PendingLog pendingLog : batch) {
+            //Format the log message.
+            entries.add(new LogEntry(
+                    pendingLog.mTag,
+                    pendingLog.mLogLevel,
+                    formatMessage(pendingLog.mCorrelationID, pendingLog.mMessage, pendingLog.mThrowable),
+                    pendingLog.mContainsPII
+            ));
+            containsError |= pendingLog.mLogLevel == LogLevel.ERROR;
+        }
+
+        for (final LogEntry entry : entries) {
+            // Send logs into Logcat.
+            if (sAllowLogcat) {
+                sendLogcatLogs(entry.getTag(), entry.getLogLevel(), entry.getMessage());
+            }
+
+            // Send logs into external logger callback.
+            final ILoggerCallback externalLogger = mExternalLogger;
+
+            if (null != externalLogger) {
+                try {
+                    externalLogger.log(entry.getTag(), entry.getLogLevel(), entry.getMessage(), entry.containsPII());
+                } catch (final Exception e) {
+                    // log message as warning to report callback error issue
+                    if (!entry.containsPII() || sAllowPii) {
+                        Log.w(entry.getTag(), String.format(CUSTOM_LOG_ERROR, entry.getMessage()));
                     }
                 }
             }
-        });
+        }
+
+        // Send logs into external batch logger callback.
+        final IBatchLoggerCallback externalBatchLogger = mExternalBatchLogger;
+
+        if (null != externalBatchLogger) {
+            try {
+                externalBatchLogger.log(Collections.unmodifiableList(entries));
+
+                if (containsError) {
+                    externalBatchLogger.flush();
+                }
+            } catch (final Exception e) {
+                Log.w(TAG, String.format(Locale.US, CUSTOM_BATCH_LOG_ERROR, entries.size()));
+            }
+        }
     }
 
     /**
@@ -541,4 +789,31 @@ public final class Logger {
                 throw new IllegalArgumentException("Unknown log level");
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * A log message waiting in the log buffer, formatted once it reaches the log thread.
+     */
+    private static final class PendingLog {
+
+        private final String mTag;
+        private final LogLevel mLogLevel;
+        private final String mCorrelationID;
+        private final String mMessage;
+        private final Throwable mThrowable;
+        private final boolean mContainsPII;
+
+        PendingLog(final String tag,
+                   final LogLevel logLevel,
+                   @Nullable final String correlationID,
+                   @Nullable final String message,
+                   @Nullable final Throwable throwable,
+                   final boolean containsPII) {
+            mTag = tag;
+            mLogLevel = logLevel;
+            mCorrelationID = correlationID;
+            mMessage = message;
+            mThrowable = throwable;
+            mContainsPII = containsPII;
+        }
+    }
+}
@@ -90,6 +90,11 @@ public class AdalMigrationAdapter implements IMigrationAdapter<MicrosoftAccount,
 
     private final Map<String, String> mRedirectsMap;
 
+    /**
+     * The maximum number of concurrent token requests made while migrating.
+     */
+    private final int mMaxConcurrency;
+
     /**
      * Constructs a new AdalMigrationAdapter.
      *
@@ -99,9 +104,28 @@ public class AdalMigrationAdapter implements IMigrationAdapter<MicrosoftAccount,
     public AdalMigrationAdapter(final Context context,
                                 final Map<String, String> redirects,
                                 final boolean force) {
+        this(context, redirects, force, TokenRenewalPipeline.DEFAULT_MAX_CONCURRENCY);
+    }
+
+    /**
+     * Constructs a new AdalMigrationAdapter.
+     *
+     * @param context        Context used to track migration state.
+     * @param force          Force migration to occur, even if it has run before.
+     * @param maxConcurrency The maximum number of concurrent token requests made while migrating.
+     */
+    public AdalMigrationAdapter(final Context context,
+                                final Map<String, String> redirects,
+                                final boolean force,
+                                final int maxConcurrency) {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("maxConcurrency must be positive.");
+        }
+
         mSharedPrefs = context.getSharedPreferences(MIGRATION_STATUS_SHARED_PREFERENCES, Context.MODE_PRIVATE);
         mRedirectsMap = redirects;
         mForceMigration = force;
+        mMaxConcurrency = maxConcurrency;
     }
 
     @Override
@@ -120,7 +144,7 @@ public class AdalMigrationAdapter implements IMigrationAdapter<MicrosoftAccount,
                     Map<String, ADALTokenCacheItem> nativeCacheItems = deserialize(cacheItems);
 
                     result.addAll(
-                            migrateTokens(mRedirectsMap, nativeCacheItems.values())
+                            migrateTokens(mRedirectsMap, nativeCacheItems.values(), mMaxConcurrency, null)
                     );
 
                     setMigrationStatus(true);
@@ -32,6 +32,7 @@ import com.microsoft.identity.common.internal.cache.ADALTokenCacheItem;
 import com.microsoft.identity.common.internal.cache.BrokerOAuth2TokenCache;
 import com.microsoft.identity.common.internal.cache.ICacheRecord;
 import com.microsoft.identity.common.internal.cache.ITokenCacheItem;
+import com.microsoft.identity.common.internal.logging.DiagnosticContextExecutor;
 import com.microsoft.identity.common.internal.logging.Logger;
 import com.microsoft.identity.common.internal.providers.microsoft.MicrosoftAccount;
 import com.microsoft.identity.common.internal.providers.microsoft.MicrosoftRefreshToken;
@@ -55,7 +56,6 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
-import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
@@ -75,7 +75,7 @@ public class TokenCacheItemMigrationAdapter {
     /**
      * ExecutorService to handle background computation.
      */
-    public static final ExecutorService sBackgroundExecutor = Executors.newCachedThreadPool();
+    public static final ExecutorService sBackgroundExecutor = new DiagnosticContextExecutor(Executors.newCachedThreadPool());
     private static final String RESOURCE_DEFAULT_SCOPE = "/.default";
 
     /**
@@ -89,6 +89,52 @@ public class TokenCacheItemMigrationAdapter {
     public static List<Pair<MicrosoftAccount, MicrosoftRefreshToken>> migrateTokens(
             @NonNull final Map<String, String> redirects,
             @NonNull final Collection<ADALTokenCacheItem> cacheItems) {
+        return migrateTokens(redirects, cacheItems, null);
+    }
+
+    /**
+     * For a list of supplied tokens, filter them to find the 'most preferred' when migrating.
+     * Renew those tokens and provide them as the result in the v2 format.
+     * <p>
+     * Renewals run with a bounded concurrency and an overall deadline, see {@link TokenRenewalPipeline}.
+     * Tokens which could not be renewed in time are omitted from the result.
+     *
+     * @param redirects  The mapping of clientIds to redirect_uris.
+     * @param cacheItems The cache items to migrate.
+     * @param listener   Optional listener notified as renewals complete, from background threads.
+     * @return The result.
+     */
+    public static List<Pair<MicrosoftAccount, MicrosoftRefreshToken>> migrateTokens(
+            @NonNull final Map<String, String> redirects,
+            @NonNull final Collection<ADALTokenCacheItem> cacheItems,
+            @Nullable final IRenewalProgressListener listener) {
+        return migrateTokens(
+                redirects,
+                cacheItems,
+                TokenRenewalPipeline.DEFAULT_MAX_CONCURRENCY,
+                listener
+        );
+    }
+
+    /**
+     * For a list of supplied tokens, filter them to find the 'most preferred' when migrating.
+     * Renew those tokens and provide them as the result in the v2 format.
+     * <p>
+     * Renewals run with at most maxConcurrency concurrent requests and an overall deadline, see
+     * {@link TokenRenewalPipeline}. Tokens which could not be renewed in time are omitted from the
+     * result.
+     *
+     * @param redirects      The mapping of clientIds to redirect_uris.
+     * @param cacheItems     The cache items to migrate.
+     * @param maxConcurrency The maximum number of concurrent token requests. Must be positive.
+     * @param listener       Optional listener notified as renewals complete, from background threads.
+     * @return The result.
+     */
+    public static List<Pair<MicrosoftAccount, MicrosoftRefreshToken>> migrateTokens(
+            @NonNull final Map<String, String> redirects,
+            @NonNull final Collection<ADALTokenCacheItem> cacheItems,
+            final int maxConcurrency,
+            @Nullable final IRenewalProgressListener listener) {
         final List<Pair<MicrosoftAccount, MicrosoftRefreshToken>> result = new ArrayList<>();
 
         final boolean cloudMetadataLoaded = loadCloudDiscoveryMetadata();
@@ -114,7 +160,7 @@ public class TokenCacheItemMigrationAdapter {
                 cacheItemsToRenew.addAll(cacheItemList);
             }
 
-            result.addAll(renewTokens(redirects, cacheItemsToRenew));
+            result.addAll(renewTokens(redirects, cacheItemsToRenew, maxConcurrency, listener));
         }
 
         return result;
@@ -209,49 +255,24 @@ public class TokenCacheItemMigrationAdapter {
 
     private static List<Pair<MicrosoftAccount, MicrosoftRefreshToken>> renewTokens(
             @NonNull final Map<String, String> redirects,
-            @NonNull final List<ADALTokenCacheItem> filteredTokens) {
-        final List<Pair<MicrosoftAccount, MicrosoftRefreshToken>> result = new ArrayList<>();
-        final int tokenCount = filteredTokens.size();
-
-        // Create a CountDownLatch to parallelize these requests
-        final CountDownLatch latch = new CountDownLatch(tokenCount);
-
-        for (int ii = 0; ii < tokenCount; ii++) {
-            final int subIndex = ii;
-            sBackgroundExecutor.submit(new Runnable() {
-                @Override
-                public void run() {
-                    final ADALTokenCacheItem targetCacheItemToRenew = filteredTokens.get(subIndex);
-
-                    final Pair<MicrosoftAccount, MicrosoftRefreshToken> renewedPair = renewToken(
-                            redirects.get(targetCacheItemToRenew.getClientId()),
-                            targetCacheItemToRenew
-                    );
-
-                    if (null != renewedPair) {
-                        result.add(
-                                renewedPair
-                        );
-                    }
-
-                    latch.countDown();
-                }
-            });
-        }
-
-        try {
-            latch.await();
-        } catch (InterruptedException e) {
-            // Shouldn't happen
-            Logger.error(
-                    TAG,
-                    "Interrupted while requesting tokens...",
-                    e
-            );
-            Thread.currentThread().interrupt();
-        }
+            @NonNull final List<ADALTokenCacheItem> filteredTokens,
+            final int maxConcurrency,
+            @Nullable final IRenewalProgressListener listener) {
+        final TokenRenewalPipeline<ADALTokenCacheItem, Pair<MicrosoftAccount, MicrosoftRefreshToken>> pipeline =
+                new TokenRenewalPipeline<>(
+                        sBackgroundExecutor,
+                        new TokenRenewalPipeline.IRenewer<ADALTokenCacheItem, Pair<MicrosoftAccount, MicrosoftRefreshToken>>() {
+                            @Override
+                            public Pair<MicrosoftAccount, MicrosoftRefreshToken> renew(@NonNull final ADALTokenCacheItem item) {
+                                return renewToken(redirects.get(item.getClientId()), item);
+                            }
+                        },
+                        maxConcurrency,
+                        TokenRenewalPipeline.DEFAULT_MIN_AUTHORITY_INTERVAL_MILLIS,
+                        TokenRenewalPipeline.DEFAULT_TIMEOUT_MILLIS
+                );
 
-        return result;
+        return pipeline.renew(filteredTokens, listener);
     }
 
     @Nullable
@@ -27,6 +27,7 @@ import android.util.Pair;
 import com.microsoft.identity.common.BaseAccount;
 import com.microsoft.identity.common.exception.ClientException;
 import com.microsoft.identity.common.internal.cache.IShareSingleSignOnState;
+import com.microsoft.identity.common.internal.logging.DiagnosticContextExecutor;
 import com.microsoft.identity.common.internal.logging.Logger;
 import com.microsoft.identity.common.internal.providers.oauth2.RefreshToken;
 
@@ -41,7 +42,7 @@ public class TokenMigrationUtility<T extends BaseAccount, U extends RefreshToken
     /**
      * ExecutorService to handle background computation.
      */
-    private static final ExecutorService sBackgroundExecutor = Executors.newCachedThreadPool();
+    private static final ExecutorService sBackgroundExecutor = new DiagnosticContextExecutor(Executors.newCachedThreadPool());
 
     /**
      * Imports key/value pairs of TokenCacheItems to the MSAL common cache.
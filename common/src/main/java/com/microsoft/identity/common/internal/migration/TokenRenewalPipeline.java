@@ -0,0 +1,305 @@
+// Copyright (c) Microsoft Corporation.
+// All rights reserved.
+//
+// This code is licensed under the MIT License.
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files(the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and / or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions :
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+package com.microsoft.identity.common.internal.migration;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.microsoft.identity.common.internal.cache.ITokenCacheItem;
+import com.microsoft.identity.common.internal.logging.Logger;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Renews a batch of tokens with a bounded number of concurrent requests.
+ * <p>
+ * At most {@link #getMaxConcurrency()} renewals run at once; requests against the same authority
+ * host are additionally spaced by at least {@link #getMinAuthorityIntervalMillis()}. The run gives
+ * up after {@link #getTimeoutMillis()}: renewals still in flight are abandoned, renewals not yet
+ * started are skipped, and the results collected so far are returned.
+ *
+ * @param <T> The type of the token cache items to renew.
+ * @param <R> The type of the renewal result.
+ */
+public class TokenRenewalPipeline<T extends ITokenCacheItem, R> {
+
+    private static final String TAG = TokenRenewalPipeline.class.getSimpleName();
+
+    /**
+     * The default number of concurrent renewals.
+     */
+    public static final int DEFAULT_MAX_CONCURRENCY = 4;
+
+    /**
+     * The default minimum interval between two requests to the same authority host.
+     */
+    public static final long DEFAULT_MIN_AUTHORITY_INTERVAL_MILLIS = 100;
+
+    /**
+     * The default deadline of a renewal run.
+     */
+    public static final long DEFAULT_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(60);
+
+    /**
+     * Renews a single token.
+     *
+     * @param <T> The type of the token cache item to renew.
+     * @param <R> The type of the renewal result.
+     */
+    public interface IRenewer<T, R> {
+
+        /**
+         * Renews the supplied token. Called from a background thread.
+         *
+         * @param item The token to renew.
+         * @return The result, or null if the token could not be renewed.
+         */
+        @Nullable
+        R renew(@NonNull T item);
+    }
+
+    private final ExecutorService mExecutor;
+    private final IRenewer<T, R> mRenewer;
+    private final int mMaxConcurrency;
+    private final long mMinAuthorityIntervalMillis;
+    private final long mTimeoutMillis;
+
+    /**
+     * Next time a request may start, per authority host, as {@link System#nanoTime()}. Guarded by
+     * itself.
+     */
+    private final Map<String, Long> mNextAuthoritySlot = new HashMap<>();
+
+    /**
+     * Constructs a new TokenRenewalPipeline using the default limits.
+     *
+     * @param executor The executor running the renewals.
+     * @param renewer  The renewer of single tokens.
+     */
+    public TokenRenewalPipeline(@NonNull final ExecutorService executor,
+                                @NonNull final IRenewer<T, R> renewer) {
+        this(
+                executor,
+                renewer,
+                DEFAULT_MAX_CONCURRENCY,
+                DEFAULT_MIN_AUTHORITY_INTERVAL_MILLIS,
+                DEFAULT_TIMEOUT_MILLIS
+        );
+    }
+
+    /**
+     * Constructs a new TokenRenewalPipeline.
+     *
+     * @param executor                   The executor running the renewals.
+     * @param renewer                    The renewer of single tokens.
+     * @param maxConcurrency             The maximum number of concurrent renewals.
+     * @param minAuthorityIntervalMillis The minimum interval between two requests to the same authority host.
+     * @param timeoutMillis              The deadline of a renewal run.
+     */
+    public TokenRenewalPipeline(@NonNull final ExecutorService executor,
+                                @NonNull final IRenewer<T, R> renewer,
+                                final int maxConcurrency,
+                                final long minAuthorityIntervalMillis,
+                                final long timeoutMillis) {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("maxConcurrency must be positive.");
+        }
+
+        mExecutor = executor;
+        mRenewer = renewer;
+        mMaxConcurrency = maxConcurrency;
+        mMinAuthorityIntervalMillis = Math.max(0, minAuthorityIntervalMillis);
+        mTimeoutMillis = timeoutMillis;
+    }
+
+    public int getMaxConcurrency() {
+        return mMaxConcurrency;
+    }
+
+    public long getMinAuthorityIntervalMillis() {
+        return mMinAuthorityIntervalMillis;
+    }
+
+    public long getTimeoutMillis() {
+        return mTimeoutMillis;
+    }
+
+    /**
+     * Renews the supplied tokens, blocking until all of them completed or the deadline passed.
+     *
+     * @param items    The tokens to renew.
+     * @param listener Optional listener notified after each renewal.
+     * @return The non-null results of the renewals which completed in time, in completion order.
+     */
+    public List<R> renew(@NonNull final List<T> items,
+                         @Nullable final IRenewalProgressListener listener) {
+        final String methodName = ":renew";
+        final int total = items.size();
+
+        if (total == 0) {
+            return new ArrayList<>();
+        }
+
+        final List<R> results = Collections.synchronizedList(new ArrayList<R>(total));
+        final long deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(mTimeoutMillis);
+        final AtomicInteger nextIndex = new AtomicInteger();
+        final AtomicInteger completed = new AtomicInteger();
+        final AtomicInteger succeeded = new AtomicInteger();
+        final int workerCount = Math.min(mMaxConcurrency, total);
+        final CountDownLatch latch = new CountDownLatch(workerCount);
+
+        for (int ii = 0; ii < workerCount; ii++) {
+            mExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        int index;
+
+                        while ((index = nextIndex.getAndIncrement()) < total) {
+                            final T item = items.get(index);
+
+                            if (!awaitAuthoritySlot(item, deadlineNanos)) {
+                                break;
+                            }
+
+                            R result = null;
+
+                            try {
+                                result = mRenewer.renew(item);
+                            } catch (final RuntimeException e) {
+                                Logger.error(TAG + methodName, "Token renewal failed.", e);
+                            }
+
+                            if (null != result) {
+                                results.add(result);
+                                succeeded.incrementAndGet();
+                            }
+
+                            final int done = completed.incrementAndGet();
+
+                            if (null != listener) {
+                                listener.onProgress(done, succeeded.get(), total);
+                            }
+                        }
+                    } finally {
+                        latch.countDown();
+                    }
+                }
+            });
+        }
+
+        try {
+            final long remainingNanos = deadlineNanos - System.nanoTime();
+
+            if (!latch.await(Math.max(0, remainingNanos), TimeUnit.NANOSECONDS)) {
+                Logger.warn(
+                        TAG + methodName,
+                        "Token renewal timed out, returning ["
+                                + succeeded.get()
+                                + "] of ["
+                                + total
+                                + "] tokens."
+                );
+            }
+        } catch (final InterruptedException e) {
+            Logger.error(
+                    TAG + methodName,
+                    "Interrupted while requesting tokens...",
+                    e
+            );
+            Thread.currentThread().interrupt();
+        }
+
+        // Stop pending workers from picking up more work, and snapshot what completed in time.
+        nextIndex.set(total);
+
+        synchronized (results) {
+            return new ArrayList<>(results);
+        }
+    }
+
+    /**
+     * Waits until a request to the authority of the supplied item may start.
+     *
+     * @return false if the deadline passes first.
+     */
+    private boolean awaitAuthoritySlot(@NonNull final T item, final long deadlineNanos) {
+        if (mMinAuthorityIntervalMillis == 0) {
+            return System.nanoTime() - deadlineNanos < 0;
+        }
+
+        final String host = getAuthorityHost(item);
+        final long startAtNanos;
+
+        synchronized (mNextAuthoritySlot) {
+            final long now = System.nanoTime();
+            final Long slot = mNextAuthoritySlot.get(host);
+            startAtNanos = (slot == null || slot - now < 0) ? now : slot;
+            mNextAuthoritySlot.put(
+                    host,
+                    startAtNanos + TimeUnit.MILLISECONDS.toNanos(mMinAuthorityIntervalMillis)
+            );
+        }
+
+        if (startAtNanos - deadlineNanos >= 0) {
+            return false;
+        }
+
+        final long delayNanos = startAtNanos - System.nanoTime();
+
+        if (delayNanos > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(delayNanos);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static String getAuthorityHost(@NonNull final ITokenCacheItem item) {
+        final String authority = item.getAuthority();
+
+        if (null == authority) {
+            return "";
+        }
+
+        try {
+            return new URL(authority).getHost();
+        } catch (final MalformedURLException e) {
+            return authority;
+        }
+    }
+}
@@ -0,0 +1,225 @@
+// Copyright (c) Microsoft Corporation.
+// All rights reserved.
+//
+// This code is licensed under the MIT License.
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files(the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and / or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions :
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+package com.microsoft.identity.common.internal.net;
+
+import androidx.annotation.NonNull;
+
+import com.google.gson.annotations.SerializedName;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Writes the fields of an object as an application/x-www-form-urlencoded body.
+ * <p>
+ * The field layout of each class is resolved once and cached, so encoding a request is a single
+ * pass over its fields straight into a byte buffer. Field naming and ordering mirror what
+ * {@link ObjectMapper} produced when it round-tripped the object through Gson: fields use their
+ * {@link SerializedName} (or the declared field name), null values are omitted, static and
+ * transient fields are skipped, and keys are emitted in alphabetical order.
+ * <p>
+ * Only scalar field values (strings, numbers, booleans, UUIDs, enums...) are supported; they are
+ * written using their {@link Object#toString()} representation.
+ */
+public final class FormUrlEncoder {
+
+    private static final Charset UTF_8 = Charset.forName(ObjectMapper.ENCODING_SCHEME);
+
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+    private static final int INITIAL_BUFFER_SIZE = 1024;
+
+    private static final ConcurrentMap<Class<?>, FormUrlEncoder> sEncoders = new ConcurrentHashMap<>();
+
+    private static final ThreadLocal<ByteArrayOutputStream> sBuffer = new ThreadLocal<ByteArrayOutputStream>() {
+        @Override
+        protected ByteArrayOutputStream initialValue() {
+            return new ByteArrayOutputStream(INITIAL_BUFFER_SIZE);
+        }
+    };
+
+    private final FieldBinding[] mBindings;
+
+    private FormUrlEncoder(@NonNull final Class<?> clazz) {
+        final List<FieldBinding> bindings = new ArrayList<>();
+
+        for (Class<?> current = clazz; current != null && current != Object.class; current = current.getSuperclass()) {
+            for (final Field field : current.getDeclaredFields()) {
+                final int modifiers = field.getModifiers();
+
+                if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers) || field.isSynthetic()) {
+                    continue;
+                }
+
+                field.setAccessible(true);
+                bindings.add(new FieldBinding(field));
+            }
+        }
+
+        Collections.sort(bindings, new Comparator<FieldBinding>() {
+            @Override
+            public int compare(final FieldBinding first, final FieldBinding second) {
+                return first.mName.compareTo(second.mName);
+            }
+        });
+
+        mBindings = bindings.toArray(new FieldBinding[bindings.size()]);
+    }
+
+    /**
+     * Returns the cached encoder for the supplied class, building it on first use.
+     *
+     * @param clazz The class whose fields should be encoded.
+     * @return The encoder for the class.
+     */
+    public static FormUrlEncoder forClass(@NonNull final Class<?> clazz) {
+        FormUrlEncoder encoder = sEncoders.get(clazz);
+
+        if (null == encoder) {
+            encoder = new FormUrlEncoder(clazz);
+            final FormUrlEncoder existing = sEncoders.putIfAbsent(clazz, encoder);
+
+            if (null != existing) {
+                encoder = existing;
+            }
+        }
+
+        return encoder;
+    }
+
+    /**
+     * Encodes the supplied object as a form url encoded, UTF-8 body.
+     *
+     * @param object The object to encode. Must be an instance of the class this encoder was built for.
+     * @return The encoded body.
+     */
+    public byte[] encode(@NonNull final Object object) {
+        final ByteArrayOutputStream buffer = sBuffer.get();
+        buffer.reset();
+
+        boolean first = true;
+
+        for (final FieldBinding binding : mBindings) {
+            final Object value = binding.get(object);
+
+            if (null == value) {
+                continue;
+            }
+
+            if (!first) {
+                buffer.write('&');
+            }
+
+            first = false;
+            buffer.write(binding.mEncodedName, 0, binding.mEncodedName.length);
+            buffer.write('=');
+            writeEncoded(buffer, value.toString());
+        }
+
+        return buffer.toByteArray();
+    }
+
+    /**
+     * Percent-encodes the supplied value using the same rules as {@link java.net.URLEncoder}
+     * with a UTF-8 charset.
+     *
+     * @param value The value to encode.
+     * @return The encoded value, as US-ASCII bytes.
+     */
+    static byte[] encodeValue(@NonNull final String value) {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(value.length());
+        writeEncoded(out, value);
+        return out.toByteArray();
+    }
+
+    private static void writeEncoded(@NonNull final ByteArrayOutputStream out,
+                                     @NonNull final String value) {
+        final int length = value.length();
+
+        for (int i = 0; i < length; i++) {
+            final char c = value.charAt(i);
+
+            if (isUnreserved(c)) {
+                out.write(c);
+            } else if (c == ' ') {
+                out.write('+');
+            } else {
+                // Keep surrogate pairs together so that the code point is encoded as a whole.
+                final int end = Character.isHighSurrogate(c)
+                        && i + 1 < length
+                        && Character.isLowSurrogate(value.charAt(i + 1)) ? i + 2 : i + 1;
+
+                final byte[] bytes = value.substring(i, end).getBytes(UTF_8);
+
+                for (final byte b : bytes) {
+                    out.write('%');
+                    out.write(HEX_DIGITS[(b >> 4) & 0xF]);
+                    out.write(HEX_DIGITS[b & 0xF]);
+                }
+
+                i = end - 1;
+            }
+        }
+    }
+
+    private static boolean isUnreserved(final char c) {
+        return (c >= 'a' && c <= 'z')
+                || (c >= 'A' && c <= 'Z')
+                || (c >= '0' && c <= '9')
+                || c == '.'
+                || c == '-'
+                || c == '*'
+                || c == '_';
+    }
+
+    private static final class FieldBinding {
+
+        private final Field mField;
+        private final String mName;
+        private final byte[] mEncodedName;
+
+        FieldBinding(@NonNull final Field field) {
+            final SerializedName serializedName = field.getAnnotation(SerializedName.class);
+            mField = field;
+            mName = null != serializedName ? serializedName.value() : field.getName();
+            mEncodedName = encodeValue(mName);
+        }
+
+        Object get(@NonNull final Object target) {
+            try {
+                return mField.get(target);
+            } catch (final IllegalAccessException e) {
+                // The field was made accessible when the encoder was built.
+                throw new IllegalStateException("Unable to read field " + mName, e);
+            }
+        }
+    }
+}
@@ -22,27 +22,21 @@
 // THE SOFTWARE.
 package com.microsoft.identity.common.internal.net;
 
+import com.microsoft.identity.common.internal.request.Deadline;
 import com.microsoft.identity.common.internal.telemetry.Telemetry;
 import com.microsoft.identity.common.internal.telemetry.events.HttpEndEvent;
 import com.microsoft.identity.common.internal.telemetry.events.HttpStartEvent;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
-import com.microsoft.identity.common.internal.util.StringUtil;
-
-import java.io.BufferedReader;
-import java.io.Closeable;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.io.OutputStream;
+import java.net.ConnectException;
 import java.net.HttpURLConnection;
 import java.net.SocketTimeoutException;
 import java.net.URL;
 import java.net.UnknownServiceException;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.Set;
 
 import static com.microsoft.identity.common.adal.internal.AuthenticationConstants.AAD.CLIENT_REQUEST_ID;
 import static com.microsoft.identity.common.internal.net.HttpUrlConnectionFactory.createHttpURLConnection;
@@ -58,18 +52,19 @@ public final class HttpRequest {
      * The waiting time before doing retry to prevent hitting the server immediately failure.
      */
     private static final int RETRY_TIME_WAITING_PERIOD_MSEC = 1000;
-    private static final int STREAM_BUFFER_SIZE = 1024;
 
     static final String REQUEST_METHOD_GET = "GET";
     static final String REQUEST_METHOD_POST = "POST";
 
     /**
-     * Value of read timeout in milliseconds.
+     * Value of read timeout in milliseconds. Shrunk to the time left when the request runs under a
+     * {@link Deadline}.
      */
     public static int READ_TIMEOUT = 30000;
 
     /**
-     * Value of connect timeout in milliseconds.
+     * Value of connect timeout in milliseconds. Shrunk to the time left when the request runs under
+     * a {@link Deadline}.
      */
     public static int CONNECT_TIMEOUT = 30000;
 
@@ -173,6 +168,11 @@ public final class HttpRequest {
      * Send http request.
      */
     private HttpResponse send() throws IOException {
+        if (NetworkStateMonitor.isKnownOffline()) {
+            // Fail fast instead of waiting for the connect timeout (twice, with the retry).
+            throw new ConnectException("Network is not available.");
+        }
+
         final HttpResponse response = sendWithRetry();
 
         if (response != null && isRetryableError(response.getStatusCode())) {
@@ -195,11 +195,17 @@ public final class HttpRequest {
             // In android, network timeout is thrown as the SocketTimeOutException, we need to
             // catch this and perform retry. If retry also fails with timeout, the
             // socketTimeoutException will be bubbled up
+            if (NetworkStateMonitor.isKnownOffline() || !canRetry()) {
+                // The network went away or the deadline is too close, retrying would only time
+                // out again.
+                throw socketTimeoutException;
+            }
+
             waitBeforeRetry();
             return executeHttpSend();
         }
 
-        if (isRetryableError(httpResponse.getStatusCode())) {
+        if (isRetryableError(httpResponse.getStatusCode()) && canRetry()) {
             // retry if we get 500/503/504
             waitBeforeRetry();
             return executeHttpSend();
@@ -209,123 +215,34 @@ public final class HttpRequest {
     }
 
     private HttpResponse executeHttpSend() throws IOException {
-        final HttpURLConnection urlConnection = setupConnection();
-        urlConnection.setRequestMethod(mRequestMethod);
-        urlConnection.setUseCaches(true);
-        setRequestBody(urlConnection, mRequestContent, mRequestContentType);
-
-        InputStream responseStream = null;
+        final Deadline deadline = Deadline.current();
+        int connectTimeout = CONNECT_TIMEOUT;
+        int readTimeout = READ_TIMEOUT;
 
-        final HttpResponse response;
-        try {
-            try {
-                responseStream = urlConnection.getInputStream();
-            } catch (final SocketTimeoutException socketTimeoutException) {
-                // SocketTimeoutExcetion is thrown when connection timeout happens. For connection
-                // timeout, we want to retry once. Throw the exception to the upper layer, and the
-                // upper layer will handle the rety.
-                throw socketTimeoutException;
-            } catch (final IOException ioException) {
-                responseStream = urlConnection.getErrorStream();
+        if (deadline != null) {
+            if (deadline.isExpired()) {
+                throw new SocketTimeoutException("The request deadline expired.");
             }
 
-            final int statusCode = urlConnection.getResponseCode();
-
-            final String responseBody = responseStream == null
-                    ? ""
-                    : convertStreamToString(responseStream);
-
-            response = new HttpResponse(statusCode, responseBody, urlConnection.getHeaderFields());
-        } finally {
-            safeCloseStream(responseStream);
+            connectTimeout = deadline.clampTimeoutMillis(connectTimeout);
+            readTimeout = deadline.clampTimeoutMillis(readTimeout);
         }
 
-        return response;
-    }
-
-    private HttpURLConnection setupConnection() throws IOException {
         final HttpURLConnection urlConnection = createHttpURLConnection(mRequestUrl);
+        HttpTransport.configure(urlConnection, mRequestHeaders, connectTimeout, readTimeout, true);
+
+        // SocketTimeoutException is thrown when connection timeout happens. For connection
+        // timeout, we want to retry once: the transport throws the exception to this layer,
+        // which handles the retry.
+        final HttpTransport.Response response = HttpTransport.execute(
+                urlConnection,
+                mRequestMethod,
+                mRequestContent,
+                mRequestContentType,
+                false
+        );
 
-        // Apply request headers and update the headers with default attributes first
-        final Set<Map.Entry<String, String>> headerEntries = mRequestHeaders.entrySet();
-
-        for (final Map.Entry<String, String> entry : headerEntries) {
-            urlConnection.setRequestProperty(entry.getKey(), entry.getValue());
-        }
-
-        urlConnection.setConnectTimeout(CONNECT_TIMEOUT);
-        urlConnection.setReadTimeout(READ_TIMEOUT);
-        urlConnection.setInstanceFollowRedirects(true);
-        urlConnection.setUseCaches(false);
-        urlConnection.setDoInput(true);
-
-        return urlConnection;
-    }
-
-    private static void setRequestBody(@NonNull final HttpURLConnection connection,
-                                       @Nullable final byte[] contentRequest,
-                                       @Nullable final String requestContentType) throws IOException {
-        if (contentRequest == null) {
-            return;
-        }
-
-        connection.setDoOutput(true);
-
-        if (!StringUtil.isEmpty(requestContentType)) {
-            connection.setRequestProperty("Content-Type", requestContentType);
-        }
-
-        connection.setRequestProperty("Content-Length", String.valueOf(contentRequest.length));
-
-        OutputStream out = null;
-
-        try {
-            out = connection.getOutputStream();
-            out.write(contentRequest);
-        } finally {
-            safeCloseStream(out);
-        }
-    }
-
-    /**
-     * Convert stream into the string.
-     *
-     * @param inputStream {@link InputStream} to be converted to be a string.
-     * @return The converted string
-     * @throws IOException Thrown when failing to access inputStream stream.
-     */
-    private static String convertStreamToString(final InputStream inputStream) throws IOException {
-        try {
-            final BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream));
-            final char[] buffer = new char[STREAM_BUFFER_SIZE];
-            final StringBuilder stringBuilder = new StringBuilder();
-            int charsRead;
-
-            while ((charsRead = reader.read(buffer)) > -1) {
-                stringBuilder.append(buffer, 0, charsRead);
-            }
-
-            return stringBuilder.toString();
-        } finally {
-            safeCloseStream(inputStream);
-        }
-    }
-
-    /**
-     * Close the stream safely.
-     *
-     * @param stream stream to be closed
-     */
-    private static void safeCloseStream(@Nullable final Closeable stream) {
-        if (stream == null) {
-            return;
-        }
-
-        try {
-            stream.close();
-        } catch (final IOException e) {
-            //Encountered IO exception when trying to close the stream"
-        }
+        return new HttpResponse(response.getStatusCode(), response.getBody(), response.getHeaders());
     }
 
     /**
@@ -340,6 +257,16 @@ public final class HttpRequest {
                 || statusCode == HttpURLConnection.HTTP_UNAVAILABLE;
     }
 
+    /**
+     * Check if there is time for a retry: without a deadline there always is, with one it must
+     * leave room for the wait before the retry.
+     */
+    private static boolean canRetry() {
+        final Deadline deadline = Deadline.current();
+
+        return deadline == null || deadline.getRemainingMillis() > RETRY_TIME_WAITING_PERIOD_MSEC;
+    }
+
     /**
      * Having the thread wait for 1 second before doing the retry to avoid hitting server
      * immediately.
@@ -0,0 +1,348 @@
+// Copyright (c) Microsoft Corporation.
+// All rights reserved.
+//
+// This code is licensed under the MIT License.
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files(the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and / or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions :
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+package com.microsoft.identity.common.internal.net;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.microsoft.identity.common.internal.telemetry.metrics.Metrics;
+import com.microsoft.identity.common.internal.util.StringUtil;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.net.HttpURLConnection;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Transport shared by the ADAL ({@link com.microsoft.identity.common.adal.internal.net.HttpWebRequest})
+ * and MSAL ({@link HttpRequest}) networking layers.
+ * <p>
+ * Both layers obtain their {@link HttpURLConnection} from their own factory, so that tests can keep
+ * injecting mocked connections, and hand it to this class to be configured, sent and read. Requests
+ * from both layers therefore follow one connection strategy: keep-alive connections returned to the
+ * platform connection pool (and with it the platform DNS and TLS session caches), the same body
+ * streaming and buffer sizes, and the same network instrumentation.
+ */
+public final class HttpTransport {
+
+    /**
+     * Size of the buffer used to read response bodies.
+     */
+    public static final int STREAM_BUFFER_SIZE = 4096;
+
+    private static final String CONTENT_TYPE = "Content-Type";
+    private static final String CONTENT_LENGTH = "Content-Length";
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static volatile IConnectionProvider sConnectionProvider;
+
+    private HttpTransport() {
+        // Utility class.
+    }
+
+    /**
+     * Opens the connections used by the transport.
+     * <p>
+     * The default provider uses {@link URL#openConnection()}, i.e. one HTTP/1.1 exchange per
+     * request over the platform keep-alive pool. Apps can plug in a provider backed by an HTTP/2
+     * capable stack (any engine returning {@link HttpURLConnection}s, such as Cronet), so that
+     * concurrent requests to the same host, e.g. instance discovery, OpenID configuration and token
+     * requests, are multiplexed over a single connection. Tests can plug in a provider pointing at
+     * a loopback server.
+     */
+    public interface IConnectionProvider {
+
+        /**
+         * Opens a connection to the supplied url.
+         *
+         * @param url The request url.
+         * @return The connection, not yet connected.
+         * @throws IOException if the connection cannot be opened.
+         */
+        HttpURLConnection openConnection(@NonNull URL url) throws IOException;
+    }
+
+    /**
+     * Sets the provider opening the connections of both the ADAL and MSAL networking layers.
+     *
+     * @param connectionProvider The provider, or null to use {@link URL#openConnection()}.
+     */
+    public static void setConnectionProvider(@Nullable final IConnectionProvider connectionProvider) {
+        sConnectionProvider = connectionProvider;
+    }
+
+    /**
+     * Opens a connection through the configured {@link IConnectionProvider}.
+     *
+     * @param url The request url.
+     * @return The connection, not yet connected.
+     * @throws IOException if the connection cannot be opened.
+     */
+    public static HttpURLConnection openConnection(@NonNull final URL url) throws IOException {
+        final IConnectionProvider connectionProvider = sConnectionProvider;
+
+        if (connectionProvider != null) {
+            return connectionProvider.openConnection(url);
+        }
+
+        return (HttpURLConnection) url.openConnection();
+    }
+
+    /**
+     * Response read by {@link #execute(HttpURLConnection, String, byte[], String, boolean)}.
+     */
+    public static final class Response {
+
+        private final int mStatusCode;
+        private final String mBody;
+        private final Map<String, List<String>> mHeaders;
+
+        Response(final int statusCode,
+                 @NonNull final String body,
+                 @Nullable final Map<String, List<String>> headers) {
+            mStatusCode = statusCode;
+            mBody = body;
+            mHeaders = headers;
+        }
+
+        public int getStatusCode() {
+            return mStatusCode;
+        }
+
+        @NonNull
+        public String getBody() {
+            return mBody;
+        }
+
+        @Nullable
+        public Map<String, List<String>> getHeaders() {
+            return mHeaders;
+        }
+    }
+
+    /**
+     * Applies the shared connection settings and the request headers to a new connection.
+     *
+     * @param connection           The connection to configure.
+     * @param requestHeaders       The headers of the request.
+     * @param connectTimeoutMillis The connect timeout.
+     * @param readTimeoutMillis    The read timeout.
+     * @param useCaches            Whether the installed response cache may serve the request. The
+     *                             MSAL layer allows it, so that cacheable metadata responses are
+     *                             served by the {@link android.net.http.HttpResponseCache}; the
+     *                             ADAL layer does not.
+     */
+    public static void configure(@NonNull final HttpURLConnection connection,
+                                 @NonNull final Map<String, String> requestHeaders,
+                                 final int connectTimeoutMillis,
+                                 final int readTimeoutMillis,
+                                 final boolean useCaches) {
+        for (final Map.Entry<String, String> entry : requestHeaders.entrySet()) {
+            connection.setRequestProperty(entry.getKey(), entry.getValue());
+        }
+
+        connection.setConnectTimeout(connectTimeoutMillis);
+        connection.setReadTimeout(readTimeoutMillis);
+        connection.setInstanceFollowRedirects(true);
+        connection.setUseCaches(useCaches);
+        connection.setDoInput(true);
+    }
+
+    /**
+     * Sends a request over a configured connection and reads its response.
+     * <p>
+     * A {@link SocketTimeoutException} raised while sending the request is always propagated, so
+     * that callers can apply their retry policy. Other {@link IOException}s fall back to the error
+     * stream of the connection.
+     *
+     * @param connection               The configured connection.
+     * @param requestMethod            The request method.
+     * @param requestContent           The request body, may be null.
+     * @param requestContentType       The content type of the body, may be null.
+     * @param requireResponseStream    If true, the original IOException is rethrown when the
+     *                                 connection has no error stream either. Otherwise the response
+     *                                 is read with an empty body.
+     * @return The response.
+     * @throws IOException if the request cannot be sent or the response cannot be read.
+     */
+    public static Response execute(@NonNull final HttpURLConnection connection,
+                                   @NonNull final String requestMethod,
+                                   @Nullable final byte[] requestContent,
+                                   @Nullable final String requestContentType,
+                                   final boolean requireResponseStream) throws IOException {
+        final Metrics.Timer timer = Metrics.startTimer(Metrics.Stage.NETWORK);
+
+        try {
+            final Response response = send(
+                    connection,
+                    requestMethod,
+                    requestContent,
+                    requestContentType,
+                    requireResponseStream
+            );
+            timer.stop(String.valueOf(response.getStatusCode()));
+            return response;
+        } catch (final IOException e) {
+            timer.stop(e.getClass().getSimpleName());
+            throw e;
+        }
+    }
+
+    private static Response send(@NonNull final HttpURLConnection connection,
+                                 @NonNull final String requestMethod,
+                                 @Nullable final byte[] requestContent,
+                                 @Nullable final String requestContentType,
+                                 final boolean requireResponseStream) throws IOException {
+        connection.setRequestMethod(requestMethod);
+        writeBody(connection, requestContent, requestContentType);
+
+        InputStream responseStream = null;
+
+        try {
+            try {
+                responseStream = connection.getInputStream();
+            } catch (final SocketTimeoutException socketTimeoutException) {
+                throw socketTimeoutException;
+            } catch (final IOException ioException) {
+                responseStream = connection.getErrorStream();
+
+                if (responseStream == null && requireResponseStream) {
+                    throw ioException;
+                }
+            }
+
+            final int statusCode = connection.getResponseCode();
+            final String responseBody = responseStream == null
+                    ? ""
+                    : readBody(responseStream);
+
+            return new Response(statusCode, responseBody, connection.getHeaderFields());
+        } finally {
+            // The connection is not disconnected, so that it returns to the connection pool.
+            safeClose(responseStream);
+        }
+    }
+
+    private static void writeBody(@NonNull final HttpURLConnection connection,
+                                  @Nullable final byte[] requestContent,
+                                  @Nullable final String requestContentType) throws IOException {
+        if (requestContent == null) {
+            return;
+        }
+
+        connection.setDoOutput(true);
+
+        if (!StringUtil.isEmpty(requestContentType)) {
+            connection.setRequestProperty(CONTENT_TYPE, requestContentType);
+        }
+
+        connection.setRequestProperty(CONTENT_LENGTH, String.valueOf(requestContent.length));
+        connection.setFixedLengthStreamingMode(requestContent.length);
+
+        OutputStream out = null;
+
+        try {
+            out = connection.getOutputStream();
+            out.write(requestContent);
+        } finally {
+            safeClose(out);
+        }
+    }
+
+    /**
+     * Reads a response body as a UTF-8 string.
+     *
+     * @param inputStream The stream to read, closed once read.
+     * @return The body.
+     * @throws IOException if the stream cannot be read.
+     */
+    static String readBody(@NonNull final InputStream inputStream) throws IOException {
+        try {
+            final Reader reader = new InputStreamReader(inputStream, UTF_8);
+            final char[] buffer = new char[STREAM_BUFFER_SIZE];
+            final StringBuilder stringBuilder = new StringBuilder();
+            int charsRead;
+
+            while ((charsRead = reader.read(buffer)) > -1) {
+                stringBuilder.append(buffer, 0, charsRead);
+            }
+
+            return stringBuilder.toString();
+        } finally {
+            safeClose(inputStream);
+        }
+    }
+
+    /**
+     * Normalizes the line breaks of a response body the way the ADAL layer always read it, line by
+     * line: "\r\n" and "\r" become "\n", and a trailing line break is dropped.
+     *
+     * @param body The body as received.
+     * @return The normalized body.
+     */
+    @NonNull
+    public static String joinLines(@NonNull final String body) {
+        final BufferedReader reader = new BufferedReader(new StringReader(body));
+        final StringBuilder stringBuilder = new StringBuilder(body.length());
+
+        try {
+            String line;
+
+            while ((line = reader.readLine()) != null) {
+                if (stringBuilder.length() > 0) {
+                    stringBuilder.append('\n');
+                }
+
+                stringBuilder.append(line);
+            }
+        } catch (final IOException e) {
+            // Cannot happen when reading from a String.
+            throw new IllegalStateException(e);
+        }
+
+        return stringBuilder.toString();
+    }
+
+    private static void safeClose(@Nullable final Closeable closeable) {
+        if (closeable == null) {
+            return;
+        }
+
+        try {
+            closeable.close();
+        } catch (final IOException e) {
+            // Nothing to do, the stream is no longer used.
+        }
+    }
+}
@@ -84,6 +84,6 @@ public final class HttpUrlConnectionFactory {
             return sMockedConnectionQueue.poll();
         }
 
-        return (HttpURLConnection) url.openConnection();
+        return HttpTransport.openConnection(url);
     }
 }
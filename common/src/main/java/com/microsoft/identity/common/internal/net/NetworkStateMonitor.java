@@ -0,0 +1,171 @@
+// Copyright (c) Microsoft Corporation.
+// All rights reserved.
+//
+// This code is licensed under the MIT License.
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files(the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and / or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions :
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+package com.microsoft.identity.common.internal.net;
+
+import android.annotation.TargetApi;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.net.NetworkInfo;
+import android.os.Build;
+
+import androidx.annotation.NonNull;
+
+import com.microsoft.identity.common.adal.internal.net.DefaultConnectionService;
+import com.microsoft.identity.common.internal.logging.Logger;
+
+/**
+ * Tracks network connectivity through platform callbacks, so that requests can be gated without
+ * querying the {@link ConnectivityManager} each time.
+ * <p>
+ * The monitor only knows that the device is offline once it has been started with
+ * {@link #getInstance(Context)}; until then {@link #isKnownOffline()} returns false and requests
+ * proceed as usual. Power optimizations (doze, app standby) are not reported by the callbacks and
+ * are still checked through {@link DefaultConnectionService}.
+ */
+public final class NetworkStateMonitor {
+
+    private static final String TAG = NetworkStateMonitor.class.getSimpleName();
+
+    private static volatile NetworkStateMonitor sInstance;
+
+    private final Context mContext;
+
+    private volatile boolean mNetworkAvailable;
+
+    private NetworkStateMonitor(@NonNull final Context context) {
+        mContext = context;
+        mNetworkAvailable = queryNetworkAvailable();
+    }
+
+    /**
+     * Returns the process-wide monitor, registering for connectivity changes on first use.
+     *
+     * @param context Any context; the application context is retained.
+     * @return The monitor.
+     */
+    public static NetworkStateMonitor getInstance(@NonNull final Context context) {
+        if (sInstance == null) {
+            synchronized (NetworkStateMonitor.class) {
+                if (sInstance == null) {
+                    final NetworkStateMonitor monitor = new NetworkStateMonitor(context.getApplicationContext());
+                    monitor.register();
+                    sInstance = monitor;
+                }
+            }
+        }
+
+        return sInstance;
+    }
+
+    /**
+     * Returns true if a started monitor last observed that no network is available.
+     * Usable by layers that have no {@link Context}, such as {@link HttpRequest}.
+     *
+     * @return true if the device is known to be offline.
+     */
+    public static boolean isKnownOffline() {
+        final NetworkStateMonitor monitor = sInstance;
+        return monitor != null && !monitor.mNetworkAvailable;
+    }
+
+    /**
+     * Returns true if a request can be sent now: a network is available and the app is not
+     * restricted by power optimizations.
+     *
+     * @return true if the network can be used.
+     */
+    public boolean isConnectionAvailable() {
+        if (!mNetworkAvailable) {
+            // No need to ask the ConnectivityManager, the callbacks said we are offline.
+            return false;
+        }
+
+        return new DefaultConnectionService(mContext).isConnectionAvailable();
+    }
+
+    private void onNetworkAvailabilityChanged(final boolean available) {
+        if (available != mNetworkAvailable) {
+            Logger.info(TAG, "Network available: [" + available + "]");
+            mNetworkAvailable = available;
+        }
+    }
+
+    private boolean queryNetworkAvailable() {
+        final ConnectivityManager connectivityManager = getConnectivityManager();
+
+        if (connectivityManager == null) {
+            // Unknown, do not block requests.
+            return true;
+        }
+
+        final NetworkInfo activeNetwork = connectivityManager.getActiveNetworkInfo();
+        return activeNetwork != null && activeNetwork.isConnectedOrConnecting();
+    }
+
+    private ConnectivityManager getConnectivityManager() {
+        return (ConnectivityManager) mContext.getSystemService(Context.CONNECTIVITY_SERVICE);
+    }
+
+    private void register() {
+        try {
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
+                registerNetworkCallback();
+            } else {
+                registerConnectivityReceiver();
+            }
+        } catch (final RuntimeException e) {
+            // Without callbacks the cached state could go stale, assume online from now on.
+            Logger.warn(TAG, "Unable to monitor network connectivity: " + e.getMessage());
+            mNetworkAvailable = true;
+        }
+    }
+
+    @TargetApi(Build.VERSION_CODES.N)
+    private void registerNetworkCallback() {
+        getConnectivityManager().registerDefaultNetworkCallback(new ConnectivityManager.NetworkCallback() {
+            @Override
+            public void onAvailable(final Network network) {
+                onNetworkAvailabilityChanged(true);
+            }
+
+            @Override
+            public void onLost(final Network network) {
+                onNetworkAvailabilityChanged(queryNetworkAvailable());
+            }
+        });
+    }
+
+    @SuppressWarnings("deprecation")
+    private void registerConnectivityReceiver() {
+        mContext.registerReceiver(new BroadcastReceiver() {
+            @Override
+            public void onReceive(final Context context, final Intent intent) {
+                onNetworkAvailabilityChanged(queryNetworkAvailable());
+            }
+        }, new IntentFilter(ConnectivityManager.CONNECTIVITY_ACTION));
+    }
+}
@@ -24,19 +24,14 @@ package com.microsoft.identity.common.internal.net;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
-import com.google.gson.reflect.TypeToken;
 import com.microsoft.identity.common.internal.logging.Logger;
 import com.microsoft.identity.common.internal.util.StringUtil;
 
 import java.io.UnsupportedEncodingException;
-import java.lang.reflect.Type;
 import java.net.URLDecoder;
-import java.net.URLEncoder;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.Map;
 import java.util.StringTokenizer;
-import java.util.TreeMap;
 
 public final class ObjectMapper {
 
@@ -86,35 +81,26 @@ public final class ObjectMapper {
     }
 
     /**
-     * Method for serializing the contents of an object as a Url Encoded string.  Important to the implementation of
-     * this method is the behavior of GSON which excludes null fields from the resulting JSON.  A TreeMap was used to
-     * simplify testing.... the resulting url encoded string is in alphabetical order (keys).
+     * Method for serializing the contents of an object as a Url Encoded string.  Null fields are excluded from
+     * the result and the keys are emitted in alphabetical order, matching the previous GSON-based behavior.
      *
      * @param object Object
      * @return String
      * @throws UnsupportedEncodingException thrown if encoding not supported
      */
     public static String serializeObjectToFormUrlEncoded(Object object) throws UnsupportedEncodingException {
-        String json = ObjectMapper.serializeObjectToJsonString(object);
-        Type stringMap = new TypeToken<TreeMap<String, String>>() {
-        }.getType();
-        TreeMap<String, String> fields = new Gson().fromJson(json, stringMap);
-
-        StringBuilder builder = new StringBuilder();
-
-        Iterator<TreeMap.Entry<String, String>> iterator = fields.entrySet().iterator();
-
-        while (iterator.hasNext()) {
-            TreeMap.Entry<String, String> entry = iterator.next();
-            builder.append(URLEncoder.encode(entry.getKey(), ENCODING_SCHEME));
-            builder.append('=');
-            builder.append(URLEncoder.encode(entry.getValue(), ENCODING_SCHEME));
+        return new String(serializeObjectToFormUrlEncodedBytes(object), ENCODING_SCHEME);
+    }
 
-            if (iterator.hasNext()) {
-                builder.append('&');
-            }
-        }
-        return builder.toString();
+    /**
+     * Method for serializing the contents of an object as a Url Encoded, UTF-8 request body.  The field layout
+     * of each class is resolved once by {@link FormUrlEncoder} and reused for every subsequent request.
+     *
+     * @param object Object
+     * @return byte[]
+     */
+    public static byte[] serializeObjectToFormUrlEncodedBytes(final Object object) {
+        return FormUrlEncoder.forClass(object.getClass()).encode(object);
     }
 
     /**
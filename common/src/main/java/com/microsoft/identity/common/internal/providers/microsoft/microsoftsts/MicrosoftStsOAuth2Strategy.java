@@ -389,7 +389,7 @@ public class MicrosoftStsOAuth2Strategy
             @NonNull final MicrosoftStsTokenRequest request)
             throws IOException, ClientException {
         final String methodName = "#performPkeyAuthRequest";
-        final String requestBody = ObjectMapper.serializeObjectToFormUrlEncoded(request);
+        final byte[] requestBody = ObjectMapper.serializeObjectToFormUrlEncodedBytes(request);
         final Map<String, String> headers = new TreeMap<>();
         headers.put("client-request-id", DiagnosticContext.getRequestContext().get(DiagnosticContext.CORRELATION_ID));
         headers.putAll(Device.getPlatformIdParameters());
@@ -410,7 +410,7 @@ public class MicrosoftStsOAuth2Strategy
             final HttpResponse pkeyAuthResponse = HttpRequest.sendPost(
                     authority,
                     headers,
-                    requestBody.getBytes(ObjectMapper.ENCODING_SCHEME),
+                    requestBody,
                     TOKEN_REQUEST_CONTENT_TYPE
             );
 
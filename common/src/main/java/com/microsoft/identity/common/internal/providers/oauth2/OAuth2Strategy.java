@@ -35,6 +35,7 @@ import com.microsoft.identity.common.internal.net.HttpResponse;
 import com.microsoft.identity.common.internal.net.ObjectMapper;
 import com.microsoft.identity.common.internal.platform.Device;
 import com.microsoft.identity.common.internal.providers.microsoft.MicrosoftTokenRequest;
+import com.microsoft.identity.common.internal.request.Deadline;
 
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
@@ -131,7 +132,13 @@ public abstract class OAuth2Strategy
                 "Performing token request..."
         );
 
-        final String requestBody = ObjectMapper.serializeObjectToFormUrlEncoded(request);
+        final Deadline deadline = Deadline.current();
+
+        if (deadline != null) {
+            deadline.throwIfExpired("the token request");
+        }
+
+        final byte[] requestBody = ObjectMapper.serializeObjectToFormUrlEncodedBytes(request);
         final Map<String, String> headers = new TreeMap<>();
         headers.put(CLIENT_REQUEST_ID, DiagnosticContext.getRequestContext().get(DiagnosticContext.CORRELATION_ID));
 
@@ -147,7 +154,7 @@ public abstract class OAuth2Strategy
         return HttpRequest.sendPost(
                 new URL(mTokenEndpoint),
                 headers,
-                requestBody.getBytes(ObjectMapper.ENCODING_SCHEME),
+                requestBody,
                 TOKEN_REQUEST_CONTENT_TYPE
         );
     }
@@ -32,6 +32,7 @@ import com.microsoft.identity.common.adal.internal.net.IWebRequestHandler;
 import com.microsoft.identity.common.adal.internal.net.WebRequestHandler;
 import com.microsoft.identity.common.exception.ServiceException;
 import com.microsoft.identity.common.internal.controllers.TaskCompletedCallbackWithError;
+import com.microsoft.identity.common.internal.logging.DiagnosticContextExecutor;
 import com.microsoft.identity.common.internal.logging.Logger;
 
 import java.io.IOException;
@@ -39,6 +40,7 @@ import java.net.HttpURLConnection;
 import java.net.URL;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
@@ -51,8 +53,12 @@ public class OpenIdProviderConfigurationClient {
 
     private static final String TAG = OpenIdProviderConfigurationClient.class.getSimpleName();
     private static final String sWellKnownConfig = "/.well-known/openid-configuration";
-    private static final ExecutorService sBackgroundExecutor = Executors.newCachedThreadPool();
-    private static final Map<URL, OpenIdProviderConfiguration> sConfigCache = new HashMap<>();
+    private static final ExecutorService sBackgroundExecutor = new DiagnosticContextExecutor(Executors.newCachedThreadPool());
+    /**
+     * Configurations by url, shared by all the clients. Keyed by the url string, as
+     * {@link URL#equals(Object)} and {@link URL#hashCode()} resolve the host.
+     */
+    private static final Map<String, OpenIdProviderConfiguration> sConfigCache = new ConcurrentHashMap<>();
 
     public interface OpenIdProviderConfigurationCallback
             extends TaskCompletedCallbackWithError<OpenIdProviderConfiguration, Exception> {
@@ -103,7 +109,7 @@ public class OpenIdProviderConfigurationClient {
             final URL configUrl = new URL(mIssuer + sWellKnownConfig);
 
             // Check first for a cached copy...
-            final OpenIdProviderConfiguration cacheResult = sConfigCache.get(configUrl);
+            final OpenIdProviderConfiguration cacheResult = sConfigCache.get(configUrl.toString());
 
             // If we found a result, return it...
             if (null != cacheResult) {
@@ -160,7 +166,7 @@ public class OpenIdProviderConfigurationClient {
 
     private void cacheConfiguration(@NonNull final URL configUrl,
                                     @NonNull final OpenIdProviderConfiguration parsedConfig) {
-        sConfigCache.put(configUrl, parsedConfig);
+        sConfigCache.put(configUrl.toString(), parsedConfig);
     }
 
     private OpenIdProviderConfiguration parseMetadata(@NonNull final String body) {
@@ -33,6 +33,8 @@ public class AcquireTokenSilentOperationParameters extends OperationParameters {
     private RefreshTokenRecord mRefreshToken;
     @Expose()
     private boolean mForceRefresh;
+    // Relative to this process' clock: never serialized.
+    private transient Deadline mDeadline;
 
     public RefreshTokenRecord getRefreshToken() {
         return mRefreshToken;
@@ -50,6 +52,23 @@ public class AcquireTokenSilentOperationParameters extends OperationParameters {
         return mForceRefresh;
     }
 
+    /**
+     * Sets the point in time by which the silent request must complete, end to end. Network and
+     * broker timeouts are shrunk to the remaining time, and the request fails with
+     * {@link com.microsoft.identity.common.exception.ClientException#DEADLINE_EXCEEDED} once
+     * it expires.
+     *
+     * @param deadline The deadline, or null for none.
+     */
+    public void setDeadline(@Nullable final Deadline deadline) {
+        mDeadline = deadline;
+    }
+
+    @Nullable
+    public Deadline getDeadline() {
+        return mDeadline;
+    }
+
     @Override
     public void validate() throws ArgumentException {
         super.validate();
@@ -31,7 +31,8 @@ public class BrokerRequestAdapterFactory {
 
     public static IBrokerRequestAdapter getBrokerRequestAdapter(final Bundle requestBundle) {
         if (requestBundle != null &&
-                requestBundle.containsKey(AuthenticationConstants.Broker.BROKER_REQUEST_V2)) {
+                (requestBundle.containsKey(AuthenticationConstants.Broker.BROKER_REQUEST_V2)
+                        || requestBundle.containsKey(AuthenticationConstants.Broker.BROKER_REQUEST_V2_COMPACT))) {
 
             return new MsalBrokerRequestAdapter();
         } else {
@@ -0,0 +1,147 @@
+// Copyright (c) Microsoft Corporation.
+// All rights reserved.
+//
+// This code is licensed under the MIT License.
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files(the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and / or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions :
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+package com.microsoft.identity.common.internal.request;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.microsoft.identity.common.exception.ClientException;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The point in time by which a request must complete, end to end.
+ * <p>
+ * The deadline of the request in progress is bound to the thread running it (see
+ * {@link #enter(Deadline)}), so that the layers below the controllers (token requests, http
+ * requests, broker bindings) can shrink their own timeouts to the remaining budget without having
+ * the deadline passed through each of their signatures.
+ */
+public final class Deadline {
+
+    private static final ThreadLocal<Deadline> sCurrent = new ThreadLocal<>();
+
+    private final long mExpiresAtNanos;
+
+    private Deadline(final long expiresAtNanos) {
+        mExpiresAtNanos = expiresAtNanos;
+    }
+
+    /**
+     * Creates a deadline expiring after the supplied timeout, starting now.
+     *
+     * @param timeout  The timeout.
+     * @param timeUnit The unit of the timeout.
+     * @return The deadline.
+     */
+    @NonNull
+    public static Deadline after(final long timeout, @NonNull final TimeUnit timeUnit) {
+        return new Deadline(System.nanoTime() + timeUnit.toNanos(timeout));
+    }
+
+    /**
+     * @return The deadline of the request running on the calling thread, or null if it has none.
+     */
+    @Nullable
+    public static Deadline current() {
+        return sCurrent.get();
+    }
+
+    /**
+     * Binds a deadline to the calling thread. Callers restore the previous deadline once done:
+     * <pre>
+     * final Deadline previous = Deadline.enter(deadline);
+     * try {
+     *     ...
+     * } finally {
+     *     Deadline.enter(previous);
+     * }
+     * </pre>
+     *
+     * @param deadline The deadline, or null to clear it.
+     * @return The deadline previously bound to the calling thread, or null.
+     */
+    @Nullable
+    public static Deadline enter(@Nullable final Deadline deadline) {
+        final Deadline previous = sCurrent.get();
+
+        if (deadline == null) {
+            sCurrent.remove();
+        } else {
+            sCurrent.set(deadline);
+        }
+
+        return previous;
+    }
+
+    /**
+     * @return The time left before the deadline expires, in milliseconds; 0 once it has expired.
+     */
+    public long getRemainingMillis() {
+        return Math.max(0, TimeUnit.NANOSECONDS.toMillis(mExpiresAtNanos - System.nanoTime()));
+    }
+
+    /**
+     * @return True if the deadline has expired.
+     */
+    public boolean isExpired() {
+        return mExpiresAtNanos - System.nanoTime() <= 0;
+    }
+
+    /**
+     * Shrinks a timeout so that it does not outlast the deadline.
+     *
+     * @param timeoutMillis The timeout, in milliseconds.
+     * @return The smaller of the timeout and the remaining time, at least 1 millisecond as 0 means
+     * no timeout for {@link java.net.URLConnection}.
+     */
+    public int clampTimeoutMillis(final int timeoutMillis) {
+        return (int) Math.max(1, Math.min(timeoutMillis, getRemainingMillis()));
+    }
+
+    /**
+     * @param operation The operation about to start, for the error message.
+     * @throws ClientException with {@link ClientException#DEADLINE_EXCEEDED} if the deadline has
+     *                         expired.
+     */
+    public void throwIfExpired(@NonNull final String operation) throws ClientException {
+        if (isExpired()) {
+            throw newExpiredException(operation, null);
+        }
+    }
+
+    /**
+     * @param operation The operation which could not complete in time, for the error message.
+     * @param cause     The failure caused by the expiry, e.g. a socket timeout.
+     * @return A {@link ClientException} with {@link ClientException#DEADLINE_EXCEEDED}.
+     */
+    @NonNull
+    public ClientException newExpiredException(@NonNull final String operation,
+                                               @Nullable final Throwable cause) {
+        return new ClientException(
+                ClientException.DEADLINE_EXCEEDED,
+                "The request deadline expired before " + operation + " could complete.",
+                cause
+        );
+    }
+}
@@ -8,10 +8,10 @@ import android.os.Bundle;
 import android.text.TextUtils;
 import android.util.Pair;
 
-import com.google.gson.Gson;
 import com.microsoft.identity.common.adal.internal.AuthenticationConstants;
 import com.microsoft.identity.common.internal.authorities.Authority;
 import com.microsoft.identity.common.internal.authorities.Environment;
+import com.microsoft.identity.common.internal.broker.BrokerIpcSerializer;
 import com.microsoft.identity.common.internal.broker.BrokerRequest;
 import com.microsoft.identity.common.internal.broker.BrokerValidator;
 import com.microsoft.identity.common.internal.logging.DiagnosticContext;
@@ -100,9 +100,7 @@ public class MsalBrokerRequestAdapter implements IBrokerRequestAdapter {
 
         final Intent intent = callingActivity.getIntent();
 
-        final BrokerRequest brokerRequest = new Gson().fromJson(
-                intent.getStringExtra(AuthenticationConstants.Broker.BROKER_REQUEST_V2),
-                BrokerRequest.class);
+        final BrokerRequest brokerRequest = brokerRequestFromBundle(intent.getExtras());
 
         parameters.setActivity(callingActivity);
 
@@ -176,9 +174,7 @@ public class MsalBrokerRequestAdapter implements IBrokerRequestAdapter {
 
         Logger.info(TAG, "Constructing BrokerAcquireTokenSilentOperationParameters from result bundle");
 
-        final BrokerRequest brokerRequest = new Gson().fromJson(
-                bundle.getString(AuthenticationConstants.Broker.BROKER_REQUEST_V2),
-                BrokerRequest.class);
+        final BrokerRequest brokerRequest = brokerRequestFromBundle(bundle);
 
         final BrokerAcquireTokenSilentOperationParameters parameters =
                 new BrokerAcquireTokenSilentOperationParameters();
@@ -246,6 +242,31 @@ public class MsalBrokerRequestAdapter implements IBrokerRequestAdapter {
         return parameters;
     }
 
+    /**
+     * Read the BrokerRequest from a request bundle, in either the compact or the JSON encoding.
+     *
+     * @param requestBundle request bundle
+     * @return BrokerRequest, or null if not present.
+     */
+    @Nullable
+    public static BrokerRequest brokerRequestFromBundle(@Nullable final Bundle requestBundle) {
+        if (requestBundle == null) {
+            return null;
+        }
+
+        if (requestBundle.containsKey(AuthenticationConstants.Broker.BROKER_REQUEST_V2_COMPACT)) {
+            return BrokerIpcSerializer.deserialize(
+                    requestBundle.getByteArray(AuthenticationConstants.Broker.BROKER_REQUEST_V2_COMPACT),
+                    BrokerRequest.class
+            );
+        }
+
+        return BrokerIpcSerializer.getGson().fromJson(
+                requestBundle.getString(AuthenticationConstants.Broker.BROKER_REQUEST_V2),
+                BrokerRequest.class
+        );
+    }
+
     /**
      * Helper method to transforn scopes string to Set
      */
@@ -26,8 +26,6 @@ import android.os.Bundle;
 import androidx.annotation.NonNull;
 import android.text.TextUtils;
 
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import com.google.gson.reflect.TypeToken;
 import com.microsoft.identity.common.adal.internal.AuthenticationConstants;
 import com.microsoft.identity.common.adal.internal.util.HashMapExtensions;
@@ -39,6 +37,7 @@ import com.microsoft.identity.common.exception.IntuneAppProtectionPolicyRequired
 import com.microsoft.identity.common.exception.ServiceException;
 import com.microsoft.identity.common.exception.UiRequiredException;
 import com.microsoft.identity.common.exception.UserCancelException;
+import com.microsoft.identity.common.internal.broker.BrokerIpcSerializer;
 import com.microsoft.identity.common.internal.broker.BrokerResult;
 import com.microsoft.identity.common.internal.cache.ICacheRecord;
 import com.microsoft.identity.common.internal.dto.AccessTokenRecord;
@@ -46,7 +45,6 @@ import com.microsoft.identity.common.internal.dto.IAccountRecord;
 import com.microsoft.identity.common.internal.logging.Logger;
 import com.microsoft.identity.common.internal.request.SdkType;
 import com.microsoft.identity.common.internal.util.HeaderSerializationUtil;
-import com.microsoft.identity.common.internal.util.ICacheRecordGsonAdapter;
 import com.microsoft.identity.common.internal.util.StringUtil;
 
 import org.json.JSONException;
@@ -96,7 +94,7 @@ public class MsalBrokerResultAdapter implements IBrokerResultAdapter {
         final Bundle resultBundle = new Bundle();
         resultBundle.putString(
                 AuthenticationConstants.Broker.BROKER_RESULT_V2,
-                new Gson().toJson(brokerResult, BrokerResult.class)
+                BrokerIpcSerializer.getGson().toJson(brokerResult, BrokerResult.class)
         );
         resultBundle.putBoolean(AuthenticationConstants.Broker.BROKER_REQUEST_V2_SUCCESS, true);
 
@@ -124,7 +122,7 @@ public class MsalBrokerResultAdapter implements IBrokerResultAdapter {
                             HeaderSerializationUtil.toJson((
                                     (ServiceException) exception).getHttpResponseHeaders()
                             ))
-                    .httpResponseBody(new Gson().toJson(
+                    .httpResponseBody(BrokerIpcSerializer.getGson().toJson(
                             ((ServiceException) exception).getHttpResponseBody()));
         }
 
@@ -138,7 +136,7 @@ public class MsalBrokerResultAdapter implements IBrokerResultAdapter {
         final Bundle resultBundle = new Bundle();
         resultBundle.putString(
                 AuthenticationConstants.Broker.BROKER_RESULT_V2,
-                new Gson().toJson(builder.build(), BrokerResult.class)
+                BrokerIpcSerializer.getGson().toJson(builder.build(), BrokerResult.class)
         );
         resultBundle.putBoolean(AuthenticationConstants.Broker.BROKER_REQUEST_V2_SUCCESS, false);
 
@@ -168,13 +166,17 @@ public class MsalBrokerResultAdapter implements IBrokerResultAdapter {
     }
 
     public static BrokerResult brokerResultFromBundle(@NonNull final Bundle resultBundle) {
-        return new GsonBuilder()
-                .registerTypeAdapter(ICacheRecord.class, new ICacheRecordGsonAdapter())
-                .create()
-                .fromJson(
-                        resultBundle.getString(AuthenticationConstants.Broker.BROKER_RESULT_V2),
-                        BrokerResult.class
-                );
+        if (resultBundle.containsKey(AuthenticationConstants.Broker.BROKER_RESULT_V2_COMPACT)) {
+            return BrokerIpcSerializer.deserialize(
+                    resultBundle.getByteArray(AuthenticationConstants.Broker.BROKER_RESULT_V2_COMPACT),
+                    BrokerResult.class
+            );
+        }
+
+        return BrokerIpcSerializer.getGson().fromJson(
+                resultBundle.getString(AuthenticationConstants.Broker.BROKER_RESULT_V2),
+                BrokerResult.class
+        );
     }
 
     public static boolean getHelloResultFromBundle(final Bundle bundle) throws ClientException {
@@ -388,7 +390,7 @@ public class MsalBrokerResultAdapter implements IBrokerResultAdapter {
     public static String getJsonStringFromICacheRecordList(List<ICacheRecord> cacheRecords) {
         final Type listOfCacheRecords = new TypeToken<List<ICacheRecord>>() {
         }.getType();
-        return new Gson().toJson(cacheRecords, listOfCacheRecords);
+        return BrokerIpcSerializer.getGson().toJson(cacheRecords, listOfCacheRecords);
     }
 
     /**
@@ -409,11 +411,8 @@ public class MsalBrokerResultAdapter implements IBrokerResultAdapter {
     }
 
     public static List<ICacheRecord> getICacheRecordListFromJsonString(String accountJson) {
-        GsonBuilder builder = new GsonBuilder();
-        builder.registerTypeAdapter(ICacheRecord.class, new ICacheRecordGsonAdapter());
-
         final Type listOfCacheRecords = new TypeToken<List<ICacheRecord>>() {
         }.getType();
-        return builder.create().fromJson(accountJson, listOfCacheRecords);
+        return BrokerIpcSerializer.getGson().fromJson(accountJson, listOfCacheRecords);
     }
 }
@@ -1,23 +1,86 @@
 package com.microsoft.identity.common.internal.result;
 
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.microsoft.identity.common.internal.controllers.TaskCompletedCallbackWithError;
+import com.microsoft.identity.common.internal.logging.Logger;
+import com.microsoft.identity.common.internal.request.Deadline;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
+/**
+ * A {@link Future} completed by the producer of its result, which callers can listen to instead of
+ * blocking in {@link #get()}.
+ * <p>
+ * The future completes exactly once: with a result ({@link #setResult(Object)}), an exception
+ * ({@link #setException(Throwable)}), a cancellation ({@link #cancel(boolean)}) or the expiry of its
+ * deadline ({@link #setDeadline(long, TimeUnit)}), whichever happens first. Listeners run on the
+ * thread completing the future, or immediately if it is already complete. Cancellation actions let
+ * the producer release what it holds (unbind a service, dispose a browser session) once nobody is
+ * waiting for the result anymore.
+ *
+ * @param <T> The type of the result.
+ */
 public class ResultFuture<T> implements Future<T> {
 
+    private static final String TAG = ResultFuture.class.getSimpleName();
+
+    /**
+     * Transforms the result of a future, see {@link #then(Transformer)}.
+     *
+     * @param <T> The type of the source result.
+     * @param <R> The type of the transformed result.
+     */
+    public interface Transformer<T, R> {
+
+        /**
+         * @param result The result of the source future.
+         * @return The transformed result.
+         * @throws Exception to fail the transformed future.
+         */
+        R apply(T result) throws Exception;
+    }
+
+    private static final ScheduledExecutorService sDeadlineScheduler =
+            Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(@NonNull final Runnable runnable) {
+                    final Thread thread = new Thread(runnable, TAG + "-deadline");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+
     private final CountDownLatch mCountDownLatch = new CountDownLatch(1);
+    private final List<TaskCompletedCallbackWithError<T, Throwable>> mListeners = new ArrayList<>();
+    private final List<Runnable> mCancellationActions = new ArrayList<>();
     private T mResult;
+    private Throwable mException;
+    private boolean mCancelled;
+    private boolean mCompleted;
+    private boolean mAbandoned;
+    private DeadlineTask mDeadlineTask;
 
     @Override
-    public boolean cancel(boolean b) {
-        return false;
+    public boolean cancel(final boolean mayInterruptIfRunning) {
+        return complete(null, new CancellationException("The operation was cancelled."), true);
     }
 
     @Override
-    public boolean isCancelled() {
-        return false;
+    public synchronized boolean isCancelled() {
+        return mCancelled;
     }
 
     @Override
@@ -25,24 +88,340 @@ public class ResultFuture<T> implements Future<T> {
         return mCountDownLatch.getCount() == 0;
     }
 
+    /**
+     * Waits for the result.
+     *
+     * @return The result.
+     * @throws InterruptedException  if the calling thread is interrupted while waiting.
+     * @throws CancellationException if the future was cancelled.
+     * @throws ExecutionException    if the future completed with an exception, or its deadline
+     *                               expired, which is its cause.
+     */
     @Override
-    public T get() throws InterruptedException {
+    public T get() throws InterruptedException, ExecutionException {
         mCountDownLatch.await();
-        return mResult;
+
+        try {
+            return getCompletedResult();
+        } catch (final TimeoutException e) {
+            throw new ExecutionException(e);
+        }
     }
 
+    /**
+     * Waits for the result, at most for the supplied timeout.
+     *
+     * @return The result.
+     * @throws InterruptedException  if the calling thread is interrupted while waiting.
+     * @throws TimeoutException      if the timeout, or the deadline of the future, expired first.
+     * @throws CancellationException if the future was cancelled.
+     * @throws ExecutionException    if the future completed with an exception, which is its cause.
+     */
     @Override
-    public T get(long l, TimeUnit timeUnit) throws InterruptedException, TimeoutException {
+    public T get(long l, TimeUnit timeUnit) throws InterruptedException, ExecutionException, TimeoutException {
         if (mCountDownLatch.await(l, timeUnit)) {
-            return mResult;
+            return getCompletedResult();
         } else {
             throw new TimeoutException();
         }
-
     }
 
     public void setResult(T result) {
-        mResult = result;
+        complete(result, null, false);
+    }
+
+    /**
+     * Completes the future with an exception, reported by {@link #get()} as the cause of an
+     * {@link ExecutionException}.
+     *
+     * @param exception The exception.
+     */
+    public void setException(@NonNull final Throwable exception) {
+        complete(null, exception, false);
+    }
+
+    /**
+     * Registers a listener notified once the future completes. Cancellation and deadline expiry
+     * are reported to {@link TaskCompletedCallbackWithError#onError(Object)} as a
+     * {@link CancellationException} and a {@link TimeoutException}.
+     *
+     * @param listener The listener.
+     * @return this future.
+     */
+    public ResultFuture<T> addListener(@NonNull final TaskCompletedCallbackWithError<T, Throwable> listener) {
+        synchronized (this) {
+            if (!mCompleted) {
+                mListeners.add(listener);
+                return this;
+            }
+        }
+
+        notifyListener(listener);
+        return this;
+    }
+
+    /**
+     * Registers an action run if the future is cancelled, or its deadline expires, before it
+     * completes; e.g. unbinding the service producing the result.
+     *
+     * @param action The action.
+     * @return this future.
+     */
+    public ResultFuture<T> whenCancelled(@NonNull final Runnable action) {
+        synchronized (this) {
+            if (!mCompleted) {
+                mCancellationActions.add(action);
+                return this;
+            }
+
+            if (!mAbandoned) {
+                return this;
+            }
+        }
+
+        runSafely(action);
+        return this;
+    }
+
+    /**
+     * Cancels the future with a {@link TimeoutException} unless it completes within the supplied
+     * timeout. Futures derived through {@link #then(Transformer)} fail with it as well.
+     *
+     * @param timeout  The timeout.
+     * @param timeUnit The unit of the timeout.
+     * @return this future.
+     */
+    public ResultFuture<T> setDeadline(final long timeout, @NonNull final TimeUnit timeUnit) {
+        final DeadlineTask deadlineTask = new DeadlineTask(
+                this,
+                "Deadline of " + timeout + " " + timeUnit + " expired.",
+                null,
+                null
+        );
+        return setDeadlineTask(deadlineTask, timeout, timeUnit);
+    }
+
+    /**
+     * Cancels the future unless it completes before the supplied request deadline. It then fails
+     * with the {@link com.microsoft.identity.common.exception.ClientException#DEADLINE_EXCEEDED}
+     * error of the deadline, which {@link #get()} reports as the cause of an
+     * {@link ExecutionException}.
+     *
+     * @param deadline  The deadline of the request waiting for this future.
+     * @param operation The operation producing the result, for the error message.
+     * @return this future.
+     */
+    public ResultFuture<T> setDeadline(@NonNull final Deadline deadline, @NonNull final String operation) {
+        final long timeoutMillis = deadline.getRemainingMillis();
+        final DeadlineTask deadlineTask = new DeadlineTask(
+                this,
+                "Deadline of " + timeoutMillis + " " + TimeUnit.MILLISECONDS + " expired.",
+                deadline,
+                operation
+        );
+        return setDeadlineTask(deadlineTask, timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private ResultFuture<T> setDeadlineTask(@NonNull final DeadlineTask deadlineTask,
+                                            final long timeout,
+                                            @NonNull final TimeUnit timeUnit) {
+        deadlineTask.schedule(timeout, timeUnit);
+
+        final DeadlineTask previousDeadlineTask;
+
+        synchronized (this) {
+            if (mCompleted) {
+                previousDeadlineTask = deadlineTask;
+            } else {
+                previousDeadlineTask = mDeadlineTask;
+                mDeadlineTask = deadlineTask;
+            }
+        }
+
+        if (previousDeadlineTask != null) {
+            previousDeadlineTask.cancel();
+        }
+
+        return this;
+    }
+
+    /**
+     * Returns a future completed with the transformed result of this one. Failures of this future
+     * propagate to the returned future, and cancelling the returned future cancels this one.
+     *
+     * @param transformer The transformation, run on the thread completing this future.
+     * @param <R>         The type of the transformed result.
+     * @return The transformed future.
+     */
+    public <R> ResultFuture<R> then(@NonNull final Transformer<T, R> transformer) {
+        final ResultFuture<R> transformed = new ResultFuture<>();
+
+        transformed.whenCancelled(new Runnable() {
+            @Override
+            public void run() {
+                cancel(true);
+            }
+        });
+
+        addListener(new TaskCompletedCallbackWithError<T, Throwable>() {
+            @Override
+            public void onTaskCompleted(final T result) {
+                try {
+                    transformed.setResult(transformer.apply(result));
+                } catch (final Exception e) {
+                    transformed.setException(e);
+                }
+            }
+
+            @Override
+            public void onError(final Throwable error) {
+                transformed.setException(error);
+            }
+        });
+
+        return transformed;
+    }
+
+    private boolean complete(@Nullable final T result,
+                             @Nullable final Throwable exception,
+                             final boolean abandoned) {
+        final List<TaskCompletedCallbackWithError<T, Throwable>> listeners;
+        final List<Runnable> cancellationActions;
+        final DeadlineTask deadlineTask;
+
+        synchronized (this) {
+            if (mCompleted) {
+                return false;
+            }
+
+            mCompleted = true;
+            mCancelled = abandoned && exception instanceof CancellationException;
+            mAbandoned = abandoned;
+            mResult = result;
+            mException = exception;
+            deadlineTask = mDeadlineTask;
+            mDeadlineTask = null;
+            listeners = new ArrayList<>(mListeners);
+            cancellationActions = abandoned
+                    ? new ArrayList<>(mCancellationActions)
+                    : new ArrayList<Runnable>();
+            mListeners.clear();
+            mCancellationActions.clear();
+        }
+
+        if (deadlineTask != null) {
+            deadlineTask.cancel();
+        }
+
+        for (final Runnable action : cancellationActions) {
+            runSafely(action);
+        }
+
         mCountDownLatch.countDown();
+
+        for (final TaskCompletedCallbackWithError<T, Throwable> listener : listeners) {
+            notifyListener(listener);
+        }
+
+        return true;
+    }
+
+    private void expire(@NonNull final Throwable error) {
+        complete(null, error, true);
+    }
+
+    private void notifyListener(@NonNull final TaskCompletedCallbackWithError<T, Throwable> listener) {
+        final T result;
+        final Throwable exception;
+
+        synchronized (this) {
+            result = mResult;
+            exception = mException;
+        }
+
+        if (exception == null) {
+            listener.onTaskCompleted(result);
+        } else {
+            listener.onError(exception);
+        }
+    }
+
+    private synchronized T getCompletedResult() throws ExecutionException, TimeoutException {
+        if (mCancelled) {
+            throw new CancellationException("The operation was cancelled.");
+        }
+
+        if (mAbandoned && mException instanceof TimeoutException) {
+            throw (TimeoutException) mException;
+        }
+
+        if (mException != null) {
+            throw new ExecutionException(mException);
+        }
+
+        return mResult;
+    }
+
+    private static void runSafely(@NonNull final Runnable action) {
+        try {
+            action.run();
+        } catch (final RuntimeException e) {
+            Logger.error(TAG, "Cancellation action failed.", e);
+        }
+    }
+
+    /**
+     * Expires a future once its deadline is reached. Cancelling a scheduled task only removes it
+     * from the scheduler queue from API 21, so the task also drops its reference to the future,
+     * letting completed futures be collected before their deadline.
+     */
+    private static final class DeadlineTask implements Runnable {
+
+        private final String mMessage;
+        private final Deadline mRequestDeadline;
+        private final String mOperation;
+        private volatile ResultFuture<?> mFuture;
+        private volatile ScheduledFuture<?> mScheduledTask;
+
+        DeadlineTask(@NonNull final ResultFuture<?> future,
+                     @NonNull final String message,
+                     @Nullable final Deadline requestDeadline,
+                     @Nullable final String operation) {
+            mFuture = future;
+            mMessage = message;
+            mRequestDeadline = requestDeadline;
+            mOperation = operation;
+        }
+
+        void schedule(final long timeout, @NonNull final TimeUnit timeUnit) {
+            mScheduledTask = sDeadlineScheduler.schedule(this, timeout, timeUnit);
+        }
+
+        void cancel() {
+            mFuture = null;
+
+            final ScheduledFuture<?> scheduledTask = mScheduledTask;
+
+            if (scheduledTask != null) {
+                scheduledTask.cancel(false);
+            }
+        }
+
+        @Override
+        public void run() {
+            final ResultFuture<?> future = mFuture;
+
+            if (future == null) {
+                return;
+            }
+
+            final TimeoutException timeoutException = new TimeoutException(mMessage);
+
+            if (mRequestDeadline == null || mOperation == null) {
+                future.expire(timeoutException);
+            } else {
+                future.expire(mRequestDeadline.newExpiredException(mOperation, timeoutException));
+            }
+        }
     }
 }
@@ -0,0 +1,218 @@
+// Copyright (c) Microsoft Corporation.
+// All rights reserved.
+//
+// This code is licensed under the MIT License.
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files(the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and / or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions :
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+package com.microsoft.identity.common.internal.telemetry.metrics;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * In-memory {@link IMetricsSink} aggregating counters and histograms per name and tag set.
+ * <p>
+ * Histograms use fixed exponential buckets (1, 2, 4 ... 2^27, i.e. 1us to ~134s for stage
+ * durations), which is enough to locate the p50/p95 of a stage on a device without keeping every
+ * sample.
+ */
+public class AggregatingMetricsSink implements IMetricsSink {
+
+    private static final int BUCKET_COUNT = 28;
+
+    private final ConcurrentMap<String, AtomicLong> mCounters = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Histogram> mHistograms = new ConcurrentHashMap<>();
+
+    @Override
+    public void incrementCounter(@NonNull final String name,
+                                 @NonNull final Map<String, String> tags,
+                                 final long delta) {
+        final String key = key(name, tags);
+        AtomicLong counter = mCounters.get(key);
+
+        if (counter == null) {
+            final AtomicLong newCounter = new AtomicLong();
+            counter = mCounters.putIfAbsent(key, newCounter);
+
+            if (counter == null) {
+                counter = newCounter;
+            }
+        }
+
+        counter.addAndGet(delta);
+    }
+
+    @Override
+    public void recordHistogram(@NonNull final String name,
+                                @NonNull final Map<String, String> tags,
+                                final long value) {
+        final String key = key(name, tags);
+        Histogram histogram = mHistograms.get(key);
+
+        if (histogram == null) {
+            final Histogram newHistogram = new Histogram();
+            histogram = mHistograms.putIfAbsent(key, newHistogram);
+
+            if (histogram == null) {
+                histogram = newHistogram;
+            }
+        }
+
+        histogram.record(value);
+    }
+
+    /**
+     * @return the counter value for the name and tags, 0 if never incremented.
+     */
+    public long getCounter(@NonNull final String name, @NonNull final Map<String, String> tags) {
+        final AtomicLong counter = mCounters.get(key(name, tags));
+        return counter == null ? 0 : counter.get();
+    }
+
+    /**
+     * @return the histogram for the name and tags, or null if nothing was recorded.
+     */
+    @Nullable
+    public Histogram getHistogram(@NonNull final String name, @NonNull final Map<String, String> tags) {
+        return mHistograms.get(key(name, tags));
+    }
+
+    /**
+     * @return a copy of all counters, keyed by name and sorted tags.
+     */
+    public Map<String, Long> getCounters() {
+        final Map<String, Long> counters = new TreeMap<>();
+
+        for (final Map.Entry<String, AtomicLong> entry : mCounters.entrySet()) {
+            counters.put(entry.getKey(), entry.getValue().get());
+        }
+
+        return counters;
+    }
+
+    /**
+     * @return all histograms, keyed by name and sorted tags.
+     */
+    public Map<String, Histogram> getHistograms() {
+        return new TreeMap<>(mHistograms);
+    }
+
+    /**
+     * Clears all aggregated values.
+     */
+    public void reset() {
+        mCounters.clear();
+        mHistograms.clear();
+    }
+
+    private static String key(@NonNull final String name, @NonNull final Map<String, String> tags) {
+        final StringBuilder builder = new StringBuilder(name);
+
+        for (final Map.Entry<String, String> tag : new TreeMap<>(tags).entrySet()) {
+            builder.append('|').append(tag.getKey()).append('=').append(tag.getValue());
+        }
+
+        return builder.toString();
+    }
+
+    /**
+     * Histogram with exponential buckets; bucket i holds values in [2^(i-1), 2^i).
+     */
+    public static final class Histogram {
+
+        private final AtomicLongArray mBuckets = new AtomicLongArray(BUCKET_COUNT);
+        private final AtomicLong mCount = new AtomicLong();
+        private final AtomicLong mSum = new AtomicLong();
+        private final AtomicLong mMax = new AtomicLong();
+
+        void record(final long value) {
+            final long sanitized = Math.max(0, value);
+            mBuckets.incrementAndGet(bucketOf(sanitized));
+            mCount.incrementAndGet();
+            mSum.addAndGet(sanitized);
+
+            long max;
+            do {
+                max = mMax.get();
+            } while (sanitized > max && !mMax.compareAndSet(max, sanitized));
+        }
+
+        private static int bucketOf(final long value) {
+            final int bucket = 64 - Long.numberOfLeadingZeros(value);
+            return Math.min(bucket, BUCKET_COUNT - 1);
+        }
+
+        public long getCount() {
+            return mCount.get();
+        }
+
+        public long getSum() {
+            return mSum.get();
+        }
+
+        public long getMax() {
+            return mMax.get();
+        }
+
+        /**
+         * Estimates a percentile as the upper bound of the bucket containing it.
+         *
+         * @param percentile the percentile, between 0 and 100.
+         * @return the estimated value, 0 if the histogram is empty.
+         */
+        public long getPercentile(final double percentile) {
+            final long count = mCount.get();
+
+            if (count == 0) {
+                return 0;
+            }
+
+            final long rank = (long) Math.ceil(count * Math.min(100d, Math.max(0d, percentile)) / 100d);
+            long seen = 0;
+
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                seen += mBuckets.get(i);
+
+                if (seen >= rank && seen > 0) {
+                    return i == BUCKET_COUNT - 1 ? mMax.get() : Math.min((1L << i) - 1, mMax.get());
+                }
+            }
+
+            return mMax.get();
+        }
+
+        @Override
+        public String toString() {
+            return "Histogram{"
+                    + "count=" + getCount()
+                    + ", sum=" + getSum()
+                    + ", p50=" + getPercentile(50)
+                    + ", p95=" + getPercentile(95)
+                    + ", max=" + getMax()
+                    + '}';
+        }
+    }
+}
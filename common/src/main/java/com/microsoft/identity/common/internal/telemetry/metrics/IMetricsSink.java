@@ -0,0 +1,52 @@
+// Copyright (c) Microsoft Corporation.
+// All rights reserved.
+//
+// This code is licensed under the MIT License.
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files(the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and / or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions :
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+package com.microsoft.identity.common.internal.telemetry.metrics;
+
+import java.util.Map;
+
+/**
+ * The interface for apps to implement if they want to receive latency metrics.
+ * <p>
+ * Sinks are called synchronously on the thread that recorded the metric, so implementations
+ * should be cheap and thread-safe (e.g. aggregate in memory and upload elsewhere).
+ */
+public interface IMetricsSink {
+
+    /**
+     * Invoked when a counter is incremented.
+     *
+     * @param name  name of the counter.
+     * @param tags  dimensions of the counter, e.g. stage, controller and outcome.
+     * @param delta amount to add to the counter.
+     */
+    void incrementCounter(String name, Map<String, String> tags, long delta);
+
+    /**
+     * Invoked when a value is recorded into a histogram.
+     *
+     * @param name  name of the histogram.
+     * @param tags  dimensions of the histogram, e.g. stage, controller and outcome.
+     * @param value the recorded value, in microseconds for durations.
+     */
+    void recordHistogram(String name, Map<String, String> tags, long value);
+}
@@ -0,0 +1,239 @@
+// Copyright (c) Microsoft Corporation.
+// All rights reserved.
+//
+// This code is licensed under the MIT License.
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files(the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and / or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions :
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+package com.microsoft.identity.common.internal.telemetry.metrics;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entry point for recording per-stage latency metrics of token acquisition.
+ * <p>
+ * Durations are recorded into the {@link #STAGE_DURATION} histogram and counted by the
+ * {@link #STAGE_COUNT} counter, both tagged by {@link Tag#STAGE}, {@link Tag#CONTROLLER} and
+ * {@link Tag#OUTCOME}. The controller tag is taken from the controller currently executing on the
+ * calling thread, see {@link #enterController(String)}.
+ * <p>
+ * Metrics are disabled until a sink is set; while disabled, {@link #startTimer(String)} returns a
+ * shared no-op timer and costs neither a clock read nor an allocation.
+ */
+public final class Metrics {
+
+    /**
+     * Name of the histogram holding stage durations, in microseconds. Stages such as an in-memory
+     * cache read complete well under a millisecond.
+     */
+    public static final String STAGE_DURATION = "stage_duration_us";
+
+    /**
+     * Name of the counter holding the number of times a stage was executed.
+     */
+    public static final String STAGE_COUNT = "stage_count";
+
+    /**
+     * Stages of token acquisition.
+     */
+    public static final class Stage {
+        public static final String CACHE_READ = "cache_read";
+        public static final String CACHE_WRITE = "cache_write";
+        public static final String DECRYPTION = "decryption";
+        public static final String DESERIALIZATION = "deserialization";
+        public static final String NETWORK = "network";
+        public static final String TOKEN_REQUEST = "token_request";
+    }
+
+    /**
+     * Tag names.
+     */
+    public static final class Tag {
+        public static final String STAGE = "stage";
+        public static final String CONTROLLER = "controller";
+        public static final String OUTCOME = "outcome";
+    }
+
+    /**
+     * Common outcome values. Stages may also report more specific outcomes, such as HTTP status codes.
+     */
+    public static final class Outcome {
+        public static final String SUCCESS = "success";
+        public static final String FAILURE = "failure";
+        public static final String ERROR = "error";
+    }
+
+    /**
+     * Controller tag used when no controller is executing on the calling thread.
+     */
+    public static final String NO_CONTROLLER = "none";
+
+    private static volatile IMetricsSink sSink;
+
+    private static final ThreadLocal<String> sCurrentController = new ThreadLocal<>();
+
+    private Metrics() {
+        // Utility class.
+    }
+
+    /**
+     * Set the sink receiving metrics. Pass null to disable metrics.
+     *
+     * @param sink IMetricsSink, may be null.
+     */
+    public static void setSink(@Nullable final IMetricsSink sink) {
+        sSink = sink;
+    }
+
+    /**
+     * @return true if a sink is set.
+     */
+    public static boolean isEnabled() {
+        return sSink != null;
+    }
+
+    /**
+     * Marks the calling thread as executing the supplied controller, so that stages recorded by
+     * lower layers (cache, network) are tagged with it.
+     *
+     * @param controllerName the name of the controller, usually its simple class name.
+     * @return the previously executing controller, to be passed to {@link #exitController(String)}.
+     */
+    @Nullable
+    public static String enterController(@NonNull final String controllerName) {
+        final String previous = sCurrentController.get();
+        sCurrentController.set(controllerName);
+        return previous;
+    }
+
+    /**
+     * @return the controller executing on the calling thread, or null if none is.
+     */
+    @Nullable
+    public static String getCurrentController() {
+        return sCurrentController.get();
+    }
+
+    /**
+     * Restores the controller that was executing before {@link #enterController(String)}.
+     *
+     * @param previousControllerName the value returned by enterController.
+     */
+    public static void exitController(@Nullable final String previousControllerName) {
+        if (previousControllerName == null) {
+            sCurrentController.remove();
+        } else {
+            sCurrentController.set(previousControllerName);
+        }
+    }
+
+    /**
+     * Starts timing a stage on the calling thread.
+     *
+     * @param stage one of {@link Stage}.
+     * @return a Timer to stop once the stage completes.
+     */
+    @NonNull
+    public static Timer startTimer(@NonNull final String stage) {
+        if (sSink == null) {
+            return Timer.NOOP;
+        }
+
+        return new Timer(stage, currentController(), System.nanoTime());
+    }
+
+    /**
+     * Increments a counter tagged with the current controller.
+     *
+     * @param name    name of the counter.
+     * @param outcome outcome tag value.
+     */
+    public static void incrementCounter(@NonNull final String name, @NonNull final String outcome) {
+        final IMetricsSink sink = sSink;
+
+        if (sink != null) {
+            sink.incrementCounter(name, tags(null, currentController(), outcome), 1);
+        }
+    }
+
+    private static String currentController() {
+        final String controller = sCurrentController.get();
+        return controller == null ? NO_CONTROLLER : controller;
+    }
+
+    private static Map<String, String> tags(@Nullable final String stage,
+                                            @NonNull final String controller,
+                                            @NonNull final String outcome) {
+        final Map<String, String> tags = new HashMap<>(4);
+
+        if (stage != null) {
+            tags.put(Tag.STAGE, stage);
+        }
+
+        tags.put(Tag.CONTROLLER, controller);
+        tags.put(Tag.OUTCOME, outcome);
+        return tags;
+    }
+
+    /**
+     * Measures the duration of one execution of a stage.
+     */
+    public static class Timer {
+
+        static final Timer NOOP = new Timer(null, null, 0) {
+            @Override
+            public long stop(@NonNull final String outcome) {
+                return 0;
+            }
+        };
+
+        private final String mStage;
+        private final String mController;
+        private final long mStartNanos;
+
+        Timer(final String stage, final String controller, final long startNanos) {
+            mStage = stage;
+            mController = controller;
+            mStartNanos = startNanos;
+        }
+
+        /**
+         * Stops the timer and reports the stage duration to the sink.
+         *
+         * @param outcome one of {@link Outcome}, or a more specific value such as an error code.
+         * @return the measured duration in microseconds.
+         */
+        public long stop(@NonNull final String outcome) {
+            final long durationMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - mStartNanos);
+            final IMetricsSink sink = sSink;
+
+            if (sink != null) {
+                final Map<String, String> tags = tags(mStage, mController, outcome);
+                sink.recordHistogram(STAGE_DURATION, tags, durationMicros);
+                sink.incrementCounter(STAGE_COUNT, tags, 1);
+            }
+
+            return durationMicros;
+        }
+    }
+}
@@ -23,9 +23,11 @@
 package com.microsoft.identity.common.internal.ui.browser;
 
 import android.app.Activity;
+import android.content.Context;
 import android.content.Intent;
 import android.net.Uri;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 
 import com.microsoft.identity.common.exception.ClientException;
 import com.microsoft.identity.common.internal.logging.Logger;
@@ -62,6 +64,49 @@ public class BrowserAuthorizationStrategy<GenericOAuth2Strategy extends OAuth2St
         mBrowserSafeList = browserSafeList;
     }
 
+    /**
+     * Opt-in: binds and warms up the browser that an upcoming interactive request will launch, and
+     * hints it to prefetch the authorization endpoint, so that the sign-in page paints faster once
+     * {@link #requestAuthorization(AuthorizationRequest, OAuth2Strategy)} is called.
+     * <p>
+     * Best effort: does nothing if no browser supporting custom tabs is available.
+     *
+     * @param context              The application context.
+     * @param browserSafeList      The browsers allowed for the interactive request.
+     * @param authorizationRequest The request likely to be sent, may be null to only warm up the browser.
+     */
+    public static void prewarm(@NonNull final Context context,
+                               @NonNull final List<BrowserDescriptor> browserSafeList,
+                               @Nullable final AuthorizationRequest authorizationRequest) {
+        final String methodName = ":prewarm";
+
+        try {
+            final Browser browser = BrowserSelector.select(context, browserSafeList);
+
+            if (!browser.isCustomTabsServiceSupported()) {
+                Logger.verbose(TAG + methodName, "CustomTabsService is NOT supported, skipping prewarm.");
+                return;
+            }
+
+            final Uri likelyUrl = authorizationRequest == null
+                    ? null
+                    : authorizationRequest.getAuthorizationRequestAsHttpRequest();
+
+            CustomTabsManager.prewarm(context, browser.getPackageName(), likelyUrl);
+        } catch (final ClientException e) {
+            Logger.warn(TAG + methodName, "Unable to prewarm the browser: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Releases the browser connection set up by
+     * {@link #prewarm(Context, List, AuthorizationRequest)} if no interactive request claimed it,
+     * e.g. when the user navigates away from the sign-in entry point.
+     */
+    public static void cancelPrewarm() {
+        CustomTabsManager.cancelPrewarm();
+    }
+
     @Override
     public Future<AuthorizationResult> requestAuthorization(
             GenericAuthorizationRequest authorizationRequest,
@@ -72,6 +117,12 @@ public class BrowserAuthorizationStrategy<GenericOAuth2Strategy extends OAuth2St
         mOAuth2Strategy = oAuth2Strategy;
         mAuthorizationRequest = authorizationRequest;
         mAuthorizationResultFuture = new ResultFuture<>();
+        mAuthorizationResultFuture.whenCancelled(new Runnable() {
+            @Override
+            public void run() {
+                dispose();
+            }
+        });
         final Browser browser = BrowserSelector.select(mReferencedActivity.get().getApplicationContext(), mBrowserSafeList);
 
         //ClientException will be thrown if no browser found.
@@ -81,8 +132,13 @@ public class BrowserAuthorizationStrategy<GenericOAuth2Strategy extends OAuth2St
                     TAG + methodName,
                     "CustomTabsService is supported."
             );
-            //create customTabsIntent
-            mCustomTabManager = new CustomTabsManager(mReferencedActivity.get().getApplicationContext());
+            //create customTabsIntent, reusing the connection set up by prewarm() if any
+            mCustomTabManager = CustomTabsManager.takePrewarmed(browser.getPackageName());
+
+            if (mCustomTabManager == null) {
+                mCustomTabManager = new CustomTabsManager(mReferencedActivity.get().getApplicationContext());
+            }
+
             mCustomTabManager.bind(browser.getPackageName());
             authIntent = mCustomTabManager.getCustomTabsIntent().intent;
         } else {
@@ -22,27 +22,56 @@
 // THE SOFTWARE.
 package com.microsoft.identity.common.internal.ui.browser;
 
+import android.content.BroadcastReceiver;
 import android.content.Context;
 import android.content.Intent;
+import android.content.IntentFilter;
 import android.content.pm.PackageInfo;
 import android.content.pm.PackageManager;
 import android.content.pm.ResolveInfo;
 import android.net.Uri;
 import android.os.Build;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 
 import com.microsoft.identity.common.exception.ClientException;
 import com.microsoft.identity.common.exception.ErrorStrings;
 import com.microsoft.identity.common.internal.logging.Logger;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class BrowserSelector {
     private static final String TAG = BrowserSelector.class.getSimpleName();
     private static final String SCHEME_HTTP = "http";
     private static final String SCHEME_HTTPS = "https";
+    private static final String SCHEME_PACKAGE = "package";
+
+    /**
+     * Browsers resolved by the last {@link #getAllBrowsers(Context)} call, or null if they must be
+     * resolved again. Cleared whenever a package is installed, removed or updated, and ignored once
+     * the default browser differs from the one it was resolved with.
+     */
+    private static volatile CachedBrowsers sCachedBrowsers;
+
+    /**
+     * Incremented on every package change, so that a query racing with a change is not cached.
+     */
+    private static final AtomicInteger sPackageGeneration = new AtomicInteger();
+
+    private static boolean sPackageReceiverRegistered;
+
+    private static final BroadcastReceiver sPackageChangedReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(final Context context, final Intent intent) {
+            Logger.verbose(TAG, "Package changed: " + intent.getAction() + ", clearing cached browsers.");
+            sPackageGeneration.incrementAndGet();
+            sCachedBrowsers = null;
+        }
+    };
 
     /**
      * Searches through all browsers for the best match.
@@ -81,12 +110,89 @@ public class BrowserSelector {
      * flag set to `true` in one and `false` in the other. The list is in the
      * order returned by the package manager, so indirectly reflects the user's preferences
      * (i.e. their default browser, if set, should be the first entry in the list).
+     * <p>
+     * The result is cached until a package is installed, removed or updated on the device, or the
+     * user picks another default browser. The default browser is resolved on every call, since
+     * changing it does not broadcast any package change.
      */
     public static List<Browser> getAllBrowsers(final Context context) {
-        //get the list of browsers
-        final Intent BROWSER_INTENT = new Intent(
+        final String defaultBrowserPackage = resolveDefaultBrowserPackage(context);
+        final CachedBrowsers cachedBrowsers = sCachedBrowsers;
+
+        if (cachedBrowsers != null && cachedBrowsers.isResolvedWith(defaultBrowserPackage)) {
+            Logger.verbose(TAG, null, "Found " + cachedBrowsers.mBrowsers.size() + " cached browsers.");
+            return new ArrayList<>(cachedBrowsers.mBrowsers);
+        }
+
+        // Register before querying, so that a change happening during the query is not missed.
+        final boolean cacheable = registerPackageReceiver(context);
+        final int generation = sPackageGeneration.get();
+        final List<Browser> browserList = queryAllBrowsers(context);
+
+        if (cacheable && generation == sPackageGeneration.get()) {
+            sCachedBrowsers = new CachedBrowsers(defaultBrowserPackage, browserList);
+        }
+
+        return browserList;
+    }
+
+    /**
+     * Clears the cached browsers, forcing the next {@link #getAllBrowsers(Context)} to query the
+     * {@link PackageManager}.
+     */
+    public static void clearCache() {
+        sPackageGeneration.incrementAndGet();
+        sCachedBrowsers = null;
+    }
+
+    private static synchronized boolean registerPackageReceiver(final Context context) {
+        if (!sPackageReceiverRegistered) {
+            final IntentFilter filter = new IntentFilter();
+            filter.addAction(Intent.ACTION_PACKAGE_ADDED);
+            filter.addAction(Intent.ACTION_PACKAGE_REMOVED);
+            filter.addAction(Intent.ACTION_PACKAGE_REPLACED);
+            filter.addAction(Intent.ACTION_PACKAGE_CHANGED);
+            filter.addDataScheme(SCHEME_PACKAGE);
+
+            try {
+                context.getApplicationContext().registerReceiver(sPackageChangedReceiver, filter);
+                sPackageReceiverRegistered = true;
+            } catch (final RuntimeException e) {
+                // Without invalidation the browser list cannot be cached safely.
+                Logger.warn(TAG, "Unable to register package receiver, browsers will not be cached.");
+            }
+        }
+
+        return sPackageReceiverRegistered;
+    }
+
+    /**
+     * Returns the package handling web links by default, or null if the user did not pick one
+     * (the resolver activity is returned instead) or no browser is installed.
+     */
+    @Nullable
+    private static String resolveDefaultBrowserPackage(final Context context) {
+        final ResolveInfo defaultActivity = context.getPackageManager().resolveActivity(
+                newBrowserIntent(),
+                PackageManager.MATCH_DEFAULT_ONLY
+        );
+
+        if (defaultActivity == null || defaultActivity.activityInfo == null) {
+            return null;
+        }
+
+        return defaultActivity.activityInfo.packageName;
+    }
+
+    private static Intent newBrowserIntent() {
+        return new Intent(
                 Intent.ACTION_VIEW,
                 Uri.parse("http://www.example.com"));
+    }
+
+    private static List<Browser> queryAllBrowsers(final Context context) {
+        //get the list of browsers
+        final Intent BROWSER_INTENT = newBrowserIntent();
 
         List<Browser> browserList = new ArrayList<>();
         PackageManager pm = context.getPackageManager();
@@ -165,4 +271,24 @@ public class BrowserSelector {
         // at least one of HTTP or HTTPS is not supported
         return false;
     }
+
+    private static final class CachedBrowsers {
+
+        @Nullable
+        private final String mDefaultBrowserPackage;
+
+        private final List<Browser> mBrowsers;
+
+        CachedBrowsers(@Nullable final String defaultBrowserPackage,
+                       @NonNull final List<Browser> browsers) {
+            mDefaultBrowserPackage = defaultBrowserPackage;
+            mBrowsers = Collections.unmodifiableList(new ArrayList<>(browsers));
+        }
+
+        boolean isResolvedWith(@Nullable final String defaultBrowserPackage) {
+            return mDefaultBrowserPackage == null
+                    ? defaultBrowserPackage == null
+                    : mDefaultBrowserPackage.equals(defaultBrowserPackage);
+        }
+    }
 }
\ No newline at end of file
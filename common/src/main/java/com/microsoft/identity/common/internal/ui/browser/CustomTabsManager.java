@@ -24,6 +24,7 @@ package com.microsoft.identity.common.internal.ui.browser;
 
 import android.content.ComponentName;
 import android.content.Context;
+import android.net.Uri;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.browser.customtabs.CustomTabsCallback;
@@ -36,6 +37,10 @@ import com.microsoft.identity.common.internal.logging.Logger;
 
 import java.lang.ref.WeakReference;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -50,30 +55,73 @@ public class CustomTabsManager {
      */
     private static final long CUSTOM_TABS_MAX_CONNECTION_TIMEOUT = 1L;
 
-    private final CountDownLatch mClientLatch;
+    /**
+     * How long a prewarmed connection is kept if no interactive request claims it.
+     */
+    public static final long PREWARM_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
+    private static final ScheduledExecutorService sPrewarmScheduler =
+            Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(@NonNull final Runnable runnable) {
+                    final Thread thread = new Thread(runnable, TAG);
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+
+    /**
+     * Counted down once the connection requested by the last {@link #bindService(String)} is
+     * established, or failed.
+     */
+    private volatile CountDownLatch mClientLatch;
 
     private final WeakReference<Context> mContextRef;
 
     private final AtomicReference<CustomTabsClient> mCustomTabsClient;
 
-    private boolean mCustomTabsServiceIsBound;
+    /**
+     * Whether a bind call succeeded and was not unbound yet, connected or not.
+     */
+    private boolean mBindRequested;
 
     private CustomTabsIntent mCustomTabsIntent;
 
+    /**
+     * The manager bound ahead of an interactive request by {@link #prewarm(Context, String, Uri)}.
+     * Guarded by the class lock.
+     */
+    private static CustomTabsManager sPrewarmedManager;
+
+    /**
+     * Releases {@link #sPrewarmedManager} if it is not claimed in time. Guarded by the class lock.
+     */
+    private static ScheduledFuture<?> sPrewarmRelease;
+
+    private String mBrowserPackage;
+
+    private CustomTabsSession mSession;
+
+    private Uri mLikelyUrl;
+
     private CustomTabsServiceConnection mCustomTabsServiceConnection = new CustomTabsServiceConnection() {
         @Override
         public void onCustomTabsServiceConnected(final ComponentName name, final CustomTabsClient client) {
             Logger.info(TAG, "CustomTabsService is connected");
             client.warmup(0L);
-            mCustomTabsServiceIsBound = true;
             mCustomTabsClient.set(client);
             mClientLatch.countDown();
+            prefetchLikelyUrl();
         }
 
         @Override
         public void onServiceDisconnected(final ComponentName name) {
             Logger.info(TAG, "CustomTabsService is disconnected");
-            mCustomTabsServiceIsBound = false;
+
+            synchronized (CustomTabsManager.this) {
+                mSession = null;
+            }
+
             mCustomTabsClient.set(null);
             mClientLatch.countDown();
         }
@@ -94,38 +142,245 @@ public class CustomTabsManager {
         mClientLatch = new CountDownLatch(1);
     }
 
+    /**
+     * Binds and warms up the custom tabs service of the supplied browser ahead of an interactive
+     * request, and hints it to prefetch the supplied url. Does not block the caller.
+     * <p>
+     * The next {@link BrowserAuthorizationStrategy} launching the same browser picks up the
+     * prewarmed connection instead of binding a new one, see {@link #takePrewarmed(String)}. If no
+     * request claims it within {@link #PREWARM_TIMEOUT_MILLIS}, or {@link #cancelPrewarm()} is
+     * called, the connection is released.
+     *
+     * @param context        The application context.
+     * @param browserPackage The package of the browser that will be launched.
+     * @param likelyUrl      The url likely to be launched, e.g. the authorization endpoint. May be null.
+     */
+    public static void prewarm(@NonNull final Context context,
+                               @NonNull final String browserPackage,
+                               @Nullable final Uri likelyUrl) {
+        prewarm(context, browserPackage, likelyUrl, PREWARM_TIMEOUT_MILLIS);
+    }
+
+    static void prewarm(@NonNull final Context context,
+                        @NonNull final String browserPackage,
+                        @Nullable final Uri likelyUrl,
+                        final long timeoutMillis) {
+        final CustomTabsManager previous;
+        final CustomTabsManager manager;
+
+        synchronized (CustomTabsManager.class) {
+            previous = sPrewarmedManager;
+
+            if (previous != null && browserPackage.equals(previous.mBrowserPackage)) {
+                scheduleRelease(previous, timeoutMillis);
+                previous.mayLaunchUrl(likelyUrl);
+                return;
+            }
+
+            manager = new CustomTabsManager(context.getApplicationContext());
+            sPrewarmedManager = manager;
+            scheduleRelease(manager, timeoutMillis);
+        }
+
+        if (previous != null) {
+            previous.unbind();
+        }
+
+        manager.mayLaunchUrl(likelyUrl);
+        manager.bindService(browserPackage);
+    }
+
+    /**
+     * Releases the connection set up by {@link #prewarm(Context, String, Uri)}, if it was not
+     * claimed yet. Safe to call at any time.
+     */
+    public static void cancelPrewarm() {
+        final CustomTabsManager manager;
+
+        synchronized (CustomTabsManager.class) {
+            manager = sPrewarmedManager;
+            clearPrewarmed();
+        }
+
+        if (manager != null) {
+            Logger.info(TAG, "Releasing the prewarmed custom tabs connection.");
+            manager.unbind();
+        }
+    }
+
+    /**
+     * Returns the manager prewarmed for the supplied browser, if any. The caller takes ownership of
+     * the returned manager and is responsible for unbinding it.
+     *
+     * @param browserPackage The package of the browser about to be launched.
+     * @return The prewarmed manager, or null if the browser was not prewarmed.
+     */
+    @Nullable
+    static synchronized CustomTabsManager takePrewarmed(@NonNull final String browserPackage) {
+        final CustomTabsManager manager = sPrewarmedManager;
+
+        if (manager == null || !browserPackage.equals(manager.mBrowserPackage)) {
+            return null;
+        }
+
+        clearPrewarmed();
+        return manager;
+    }
+
+    // Must be called with the class lock held.
+    private static void scheduleRelease(@NonNull final CustomTabsManager manager,
+                                        final long timeoutMillis) {
+        if (sPrewarmRelease != null) {
+            sPrewarmRelease.cancel(false);
+        }
+
+        sPrewarmRelease = sPrewarmScheduler.schedule(new Runnable() {
+            @Override
+            public void run() {
+                synchronized (CustomTabsManager.class) {
+                    if (sPrewarmedManager != manager) {
+                        // Claimed, cancelled or replaced in the meantime.
+                        return;
+                    }
+
+                    sPrewarmedManager = null;
+                    sPrewarmRelease = null;
+                }
+
+                Logger.info(TAG, "Prewarmed custom tabs connection was not claimed, releasing it.");
+                manager.unbind();
+            }
+        }, timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // Must be called with the class lock held.
+    private static void clearPrewarmed() {
+        if (sPrewarmRelease != null) {
+            sPrewarmRelease.cancel(false);
+            sPrewarmRelease = null;
+        }
+
+        sPrewarmedManager = null;
+    }
+
     /**
      * Method to bind Browser {@link androidx.browser.customtabs.CustomTabsService}.
      * Waits until the {@link CustomTabsServiceConnection} is connected.
+     * If this manager was already bound to the browser through {@link #prewarm(Context, String, Uri)},
+     * the existing connection and session are reused; if that bind failed, it is attempted again.
      */
-    public synchronized void bind(@NonNull String browserPackage) {
+    public void bind(@NonNull String browserPackage) {
+        synchronized (this) {
+            if (!browserPackage.equals(mBrowserPackage) || !mBindRequested) {
+                bindService(browserPackage);
+            }
+        }
+
+        // Create the Intent used to launch the Url. Waits for the connection without holding
+        // the lock, so the service callbacks are not blocked meanwhile.
+        final CustomTabsIntent.Builder builder = new CustomTabsIntent.Builder(getOrCreateSession());
+        final CustomTabsIntent customTabsIntent = builder.setShowTitle(true).build();
+        customTabsIntent.intent.setPackage(browserPackage);
+
+        synchronized (this) {
+            mCustomTabsIntent = customTabsIntent;
+        }
+    }
+
+    /**
+     * Hints the browser that the supplied url is likely to be launched, so that it can resolve and
+     * prefetch it. The hint is deferred until the service is connected.
+     *
+     * @param likelyUrl The url likely to be launched. Ignored if null.
+     */
+    public void mayLaunchUrl(@Nullable final Uri likelyUrl) {
+        if (likelyUrl == null) {
+            return;
+        }
+
+        synchronized (this) {
+            mLikelyUrl = likelyUrl;
+        }
+
+        if (mCustomTabsClient.get() != null) {
+            prefetchLikelyUrl();
+        }
+    }
+
+    private synchronized void bindService(@NonNull final String browserPackage) {
+        if (mBindRequested) {
+            // Switching browsers: release the previous connection first.
+            unbind();
+        }
+
+        mBrowserPackage = browserPackage;
+
+        if (mClientLatch.getCount() == 0) {
+            mClientLatch = new CountDownLatch(1);
+        }
+
         // Initiate the service-bind action
         if (mContextRef.get() == null
                 || !CustomTabsClient.bindCustomTabsService(mContextRef.get(), browserPackage, mCustomTabsServiceConnection)) {
             Logger.info(TAG, "Unable to bind custom tabs service");
             mClientLatch.countDown();
+        } else {
+            mBindRequested = true;
         }
+    }
+
+    private void prefetchLikelyUrl() {
+        final Uri likelyUrl;
 
-        // Create the Intent used to launch the Url
-        final CustomTabsIntent.Builder builder = new CustomTabsIntent.Builder(createSession(null));
-        mCustomTabsIntent = builder.setShowTitle(true).build();
-        mCustomTabsIntent.intent.setPackage(browserPackage);
+        synchronized (this) {
+            likelyUrl = mLikelyUrl;
+            mLikelyUrl = null;
+
+            if (likelyUrl == null) {
+                return;
+            }
+        }
+
+        final CustomTabsSession session = getOrCreateSession();
+
+        if (session != null && !session.mayLaunchUrl(likelyUrl, null, null)) {
+            Logger.verbose(TAG, "Browser declined to prefetch the authorization url.");
+        }
+    }
+
+    private CustomTabsSession getOrCreateSession() {
+        synchronized (this) {
+            if (mSession != null) {
+                return mSession;
+            }
+        }
+
+        // Waits for the connection outside of the lock.
+        final CustomTabsClient client = getClient();
+
+        if (client == null) {
+            Logger.warn(TAG, "Failed to create custom tabs session with null CustomTabClient.");
+        }
+
+        synchronized (this) {
+            if (mSession == null && client != null && client == mCustomTabsClient.get()) {
+                mSession = createSession(client, null);
+            }
+
+            return mSession;
+        }
     }
 
     /**
      * Creates a {@link androidx.browser.customtabs.CustomTabsSession custom tab session} for
      * use with a custom tab intent with optional callback. If no custom tab supporting browser
      * is available, this will return {@code null}.
+     * @param client The connected custom tabs client.
      * @param callback
      * @return CustomTabsSession custom tab session
      */
-    private CustomTabsSession createSession(@Nullable final CustomTabsCallback callback) {
-        final CustomTabsClient client = getClient();
-        if (client == null) {
-            Logger.warn(TAG, "Failed to create custom tabs session with null CustomTabClient.");
-            return null;
-        }
-
+    private CustomTabsSession createSession(@NonNull final CustomTabsClient client,
+                                            @Nullable final CustomTabsCallback callback) {
         final CustomTabsSession session = client.newSession(callback);
         if (session == null) {
             Logger.warn(TAG, "Failed to create custom tabs session through custom tabs client.");
@@ -140,11 +395,13 @@ public class CustomTabsManager {
      * {@link CustomTabsManager#CUSTOM_TABS_MAX_CONNECTION_TIMEOUT} is timed out.
      */
     public CustomTabsClient getClient() {
+        final CountDownLatch clientLatch = mClientLatch;
+
         try {
-            mClientLatch.await(CUSTOM_TABS_MAX_CONNECTION_TIMEOUT, TimeUnit.SECONDS);
+            clientLatch.await(CUSTOM_TABS_MAX_CONNECTION_TIMEOUT, TimeUnit.SECONDS);
         } catch (InterruptedException e) {
             Logger.info(TAG, "Interrupted while waiting for browser connection");
-            mClientLatch.countDown();
+            clientLatch.countDown();
         }
 
         return mCustomTabsClient.get();
@@ -154,13 +411,16 @@ public class CustomTabsManager {
      * Method to unbind custom tabs service {@link androidx.browser.customtabs.CustomTabsService}.
      */
     public synchronized void unbind() {
-        if (mContextRef.get() != null && mCustomTabsServiceIsBound) {
+        // A successful bind must be released even if the service never connected.
+        if (mContextRef.get() != null && mBindRequested) {
             mContextRef.get().unbindService(mCustomTabsServiceConnection);
         }
 
-        mCustomTabsServiceIsBound = false;
+        mBindRequested = false;
         mCustomTabsClient.set(null);
+        mSession = null;
+        mBrowserPackage = null;
 
         Logger.info(TAG, "CustomTabsService is unbound.");
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,80 @@
+// Copyright (c) Microsoft Corporation.
+// All rights reserved.
+//
+// This code is licensed under the MIT License.
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files(the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and / or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions :
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+package com.microsoft.identity.common.adal.internal.cache;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+@RunWith(JUnit4.class)
+public class SecretKeyCacheTest {
+
+    private static final String KEY_FILE_PATH = "/data/app/adalks";
+
+    private final byte[] mWrappedKey = {1, 2, 3, 4};
+    private final SecretKey mKey = new SecretKeySpec(new byte[32], "AES");
+
+    @After
+    public void tearDown() {
+        SecretKeyCache.clear();
+    }
+
+    @Test
+    public void testUnwrappedKeyIsSharedForSameKeyFile() {
+        SecretKeyCache.putUnwrappedKey(KEY_FILE_PATH, mWrappedKey, mKey);
+
+        assertSame(mKey, SecretKeyCache.getUnwrappedKey(KEY_FILE_PATH, new byte[]{1, 2, 3, 4}));
+        assertNull(SecretKeyCache.getUnwrappedKey("/data/other/adalks", mWrappedKey));
+    }
+
+    @Test
+    public void testUnwrappedKeyIsNotReturnedOnceKeyFileChanges() {
+        SecretKeyCache.putUnwrappedKey(KEY_FILE_PATH, mWrappedKey, mKey);
+
+        // The caller's buffer is copied.
+        mWrappedKey[0] = 9;
+
+        assertNull(SecretKeyCache.getUnwrappedKey(KEY_FILE_PATH, mWrappedKey));
+    }
+
+    @Test
+    public void testInvalidateDropsUnwrappedAndHMacKeys() {
+        final SecretKey hmacKey = new SecretKeySpec(new byte[]{5}, "AES");
+        SecretKeyCache.putUnwrappedKey(KEY_FILE_PATH, mWrappedKey, mKey);
+        SecretKeyCache.putHMacKey(mKey, hmacKey);
+
+        assertSame(hmacKey, SecretKeyCache.getHMacKey(new SecretKeySpec(new byte[32], "AES")));
+
+        SecretKeyCache.invalidate(KEY_FILE_PATH);
+
+        assertNull(SecretKeyCache.getUnwrappedKey(KEY_FILE_PATH, mWrappedKey));
+        assertNull(SecretKeyCache.getHMacKey(mKey));
+    }
+}
@@ -0,0 +1,118 @@
+// Copyright (c) Microsoft Corporation.
+// All rights reserved.
+//
+// This code is licensed under the MIT License.
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files(the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and / or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions :
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+package com.microsoft.identity.common.internal.broker;
+
+import com.google.gson.JsonElement;
+import com.microsoft.identity.common.internal.cache.CacheRecord;
+import com.microsoft.identity.common.internal.cache.ICacheRecord;
+import com.microsoft.identity.common.internal.dto.AccessTokenRecord;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class LazyCacheRecordListTest {
+
+    private static final String CLIENT_ID = "4b0db8c2-9f26-4417-8bde-3f0e3656f8e0";
+    private static final String SCOPES = "user.read openid profile offline_access";
+    private static final int TENANT_COUNT = 50;
+
+    @Test
+    public void testReadingResultDoesNotBindRecords() {
+        final BrokerResult decoded = roundTrip(newResult());
+
+        assertTrue(decoded.getTenantProfileData() instanceof LazyCacheRecordList);
+        assertFalse(((LazyCacheRecordList) decoded.getTenantProfileData()).isDecoded());
+    }
+
+    @Test
+    public void testForwardingResultKeepsRecordsUnbound() {
+        final BrokerResult result = newResult();
+        final BrokerResult decoded = roundTrip(result);
+        final BrokerResult forwarded = roundTrip(decoded);
+
+        // Writing the records back copies their JSON text as read.
+        assertFalse(((LazyCacheRecordList) decoded.getTenantProfileData()).isDecoded());
+        assertEquals(
+                BrokerIpcSerializer.getGson().toJson(result, BrokerResult.class),
+                BrokerIpcSerializer.getGson().toJson(decoded, BrokerResult.class)
+        );
+        assertEquals(result.getTenantProfileData(), forwarded.getTenantProfileData());
+    }
+
+    @Test
+    public void testRecordsBoundOnFirstAccess() {
+        final BrokerResult decoded = roundTrip(newResult());
+        final List<ICacheRecord> records = decoded.getTenantProfileData();
+
+        assertEquals(TENANT_COUNT, records.size());
+        assertTrue(((LazyCacheRecordList) records).isDecoded());
+        assertEquals("secret7", records.get(7).getAccessToken().getSecret());
+        assertEquals("1571500007", records.get(7).getAccessToken().getExpiresOn());
+    }
+
+    @Test
+    public void testWritingToJsonTreeBindsRecords() {
+        final BrokerResult decoded = roundTrip(newResult());
+
+        final JsonElement tree = BrokerIpcSerializer.getGson().toJsonTree(decoded, BrokerResult.class);
+
+        assertEquals(
+                BrokerIpcSerializer.getGson().toJsonTree(newResult(), BrokerResult.class),
+                tree
+        );
+    }
+
+    private static BrokerResult roundTrip(final BrokerResult result) {
+        return BrokerIpcSerializer.deserialize(
+                BrokerIpcSerializer.serialize(result, BrokerResult.class),
+                BrokerResult.class
+        );
+    }
+
+    private static BrokerResult newResult() {
+        final List<ICacheRecord> tenantProfileData = new ArrayList<>();
+
+        for (int i = 0; i < TENANT_COUNT; i++) {
+            final AccessTokenRecord accessToken = new AccessTokenRecord();
+            accessToken.setClientId(CLIENT_ID);
+            accessToken.setSecret("secret" + i);
+            accessToken.setTarget(SCOPES);
+            accessToken.setExpiresOn(String.valueOf(1571500000L + i));
+
+            final CacheRecord cacheRecord = new CacheRecord();
+            cacheRecord.setAccessToken(accessToken);
+            tenantProfileData.add(cacheRecord);
+        }
+
+        return new BrokerResult.Builder()
+                .tenantProfileRecords(tenantProfileData)
+                .success(true)
+                .build();
+    }
+}
@@ -0,0 +1,136 @@
+// Copyright (c) Microsoft Corporation.
+// All rights reserved.
+//
+// This code is licensed under the MIT License.
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files(the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and / or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions :
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+package com.microsoft.identity.common.internal.cache;
+
+import androidx.annotation.NonNull;
+
+import com.microsoft.identity.common.internal.result.ResultFuture;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class CachePreloaderTest {
+
+    private static final long TIMEOUT_SECONDS = 5;
+
+    @After
+    public void tearDown() {
+        CachePreloader.reset();
+    }
+
+    @Test
+    public void testPreloadsEachFileOnce() throws Exception {
+        final RecordingPreloader preloader = new RecordingPreloader();
+
+        final ResultFuture<Void> first = CachePreloader.preload(preloader, "a", "b");
+        first.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+
+        assertSame(first, CachePreloader.preload(preloader, "b", "a"));
+        assertEquals(Arrays.asList("a", "b"), preloader.getFileNames());
+    }
+
+    @Test
+    public void testLaterCallPreloadsNewFiles() throws Exception {
+        final RecordingPreloader preloader = new RecordingPreloader();
+
+        CachePreloader.preload(preloader, "a").get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        CachePreloader.preload(preloader, "a", "b").get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+
+        assertEquals(Arrays.asList("a", "b"), preloader.getFileNames());
+    }
+
+    @Test
+    public void testFailedPreloadIsRetried() throws Exception {
+        final RecordingPreloader preloader = new RecordingPreloader();
+        preloader.mFailuresLeft = 1;
+
+        try {
+            CachePreloader.preload(preloader, "a").get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            fail("The first preload should fail.");
+        } catch (final ExecutionException e) {
+            // Expected.
+        }
+
+        CachePreloader.preload(preloader, "a").get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+
+        assertEquals(Arrays.asList("a", "a"), preloader.getFileNames());
+    }
+
+    @Test
+    public void testAwaitPreloadWaitsForPreloadInProgress() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+
+        final ResultFuture<Void> preload = CachePreloader.preload(new CachePreloader.FilePreloader() {
+            @Override
+            public void preloadFile(@NonNull final String sharedPreferencesFileName) {
+                try {
+                    release.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }, "a");
+
+        // Times out while the preload is blocked, without throwing.
+        CachePreloader.awaitPreload(10);
+        assertFalse(preload.isDone());
+
+        release.countDown();
+        CachePreloader.awaitPreload(TimeUnit.SECONDS.toMillis(TIMEOUT_SECONDS));
+        assertTrue(preload.isDone());
+    }
+
+    private static class RecordingPreloader implements CachePreloader.FilePreloader {
+
+        private final List<String> mFileNames = Collections.synchronizedList(new ArrayList<String>());
+        private volatile int mFailuresLeft;
+
+        @Override
+        public void preloadFile(@NonNull final String sharedPreferencesFileName) {
+            mFileNames.add(sharedPreferencesFileName);
+
+            if (mFailuresLeft > 0) {
+                mFailuresLeft--;
+                throw new IllegalStateException("keystore unavailable");
+            }
+        }
+
+        List<String> getFileNames() {
+            return new ArrayList<>(mFileNames);
+        }
+    }
+}
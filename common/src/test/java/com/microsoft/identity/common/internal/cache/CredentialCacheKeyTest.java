@@ -0,0 +1,137 @@
+// Copyright (c) Microsoft Corporation.
+// All rights reserved.
+//
+// This code is licensed under the MIT License.
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files(the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and / or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions :
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+package com.microsoft.identity.common.internal.cache;
+
+import com.microsoft.identity.common.internal.dto.AccessTokenRecord;
+import com.microsoft.identity.common.internal.dto.AccountRecord;
+import com.microsoft.identity.common.internal.dto.CredentialType;
+import com.microsoft.identity.common.internal.dto.RefreshTokenRecord;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class CredentialCacheKeyTest {
+
+    private static final String HOME_ACCOUNT_ID = "29f3807a-4fb0-42f2-a44a-236aa0cb3f97.0287f963-2d72-4363-9e3a-5705c5b0f031";
+    private static final String OTHER_HOME_ACCOUNT_ID = "9b8e1c3f-5d2a-4b6e-8f0c-1a2b3c4d5e6f.0287f963-2d72-4363-9e3a-5705c5b0f031";
+    private static final String ENVIRONMENT = "login.microsoftonline.com";
+    private static final String CLIENT_ID = "0287f963-2d72-4363-9e3a-5705c5b0f031";
+    private static final String REALM = "3c62ac97-29eb-4aed-a3c8-add0298508d";
+    private static final String TARGET = "user.read user.write https://graph.windows.net";
+
+    private final CacheKeyValueDelegate mDelegate = new CacheKeyValueDelegate();
+
+    @Test
+    public void test_ParseAccessTokenKey() {
+        final CredentialCacheKey key = CredentialCacheKey.parse(mDelegate.generateCacheKey(newAccessToken()));
+
+        assertEquals(CredentialType.AccessToken, key.getCredentialType());
+        assertTrue(key.mayMatchCredential(HOME_ACCOUNT_ID, ENVIRONMENT, CredentialType.AccessToken, CLIENT_ID, REALM));
+        assertTrue(key.mayMatchCredential(HOME_ACCOUNT_ID.toUpperCase(), null, null, null, null));
+        assertTrue(key.mayMatchCredential(null, null, null, null, REALM));
+        assertFalse(key.mayMatchCredential(OTHER_HOME_ACCOUNT_ID, null, null, null, null));
+        assertFalse(key.mayMatchCredential(null, "login.windows.net", null, null, null));
+        assertFalse(key.mayMatchCredential(null, null, CredentialType.IdToken, null, null));
+        assertFalse(key.mayMatchCredential(null, null, null, "another-client-id", null));
+        assertFalse(key.mayMatchCredential(null, null, null, CLIENT_ID, "common"));
+        assertFalse(key.mayMatchAccount(HOME_ACCOUNT_ID, null, null));
+    }
+
+    @Test
+    public void test_FamilyRefreshTokenKeyMatchesAnyClientId() {
+        final RefreshTokenRecord refreshToken = new RefreshTokenRecord();
+        refreshToken.setHomeAccountId(HOME_ACCOUNT_ID);
+        refreshToken.setEnvironment(ENVIRONMENT);
+        refreshToken.setCredentialType(CredentialType.RefreshToken.name());
+        refreshToken.setClientId(CLIENT_ID);
+        refreshToken.setFamilyId("1");
+        refreshToken.setTarget(TARGET);
+
+        final CredentialCacheKey key = CredentialCacheKey.parse(mDelegate.generateCacheKey(refreshToken));
+
+        assertEquals(CredentialType.RefreshToken, key.getCredentialType());
+        assertTrue(key.mayMatchCredential(HOME_ACCOUNT_ID, ENVIRONMENT, CredentialType.RefreshToken, CLIENT_ID, REALM));
+        assertFalse(key.mayMatchCredential(OTHER_HOME_ACCOUNT_ID, null, null, null, null));
+    }
+
+    @Test
+    public void test_ParseAccountKey() {
+        final AccountRecord account = new AccountRecord();
+        account.setHomeAccountId(HOME_ACCOUNT_ID);
+        account.setEnvironment(ENVIRONMENT);
+        account.setRealm(REALM);
+
+        final CredentialCacheKey key = CredentialCacheKey.parse(mDelegate.generateCacheKey(account));
+
+        assertNull(key.getCredentialType());
+        assertTrue(key.mayMatchAccount(HOME_ACCOUNT_ID, ENVIRONMENT, REALM));
+        assertTrue(key.mayMatchAccount(null, null, null));
+        assertFalse(key.mayMatchAccount(OTHER_HOME_ACCOUNT_ID, null, null));
+        assertFalse(key.mayMatchAccount(null, "login.windows.net", null));
+        assertFalse(key.mayMatchAccount(null, null, "common"));
+        assertFalse(key.mayMatchCredential(HOME_ACCOUNT_ID, null, null, null, null));
+    }
+
+    @Test
+    public void test_GeneratedKeysAreWellFormed() {
+        final AccountRecord account = new AccountRecord();
+        account.setHomeAccountId(HOME_ACCOUNT_ID);
+        account.setEnvironment(ENVIRONMENT);
+        account.setRealm(REALM);
+
+        final RefreshTokenRecord refreshToken = new RefreshTokenRecord();
+        refreshToken.setHomeAccountId(HOME_ACCOUNT_ID);
+        refreshToken.setEnvironment(ENVIRONMENT);
+        refreshToken.setCredentialType(CredentialType.RefreshToken.name());
+        refreshToken.setClientId(CLIENT_ID);
+
+        assertTrue(CredentialCacheKey.isWellFormed(mDelegate.generateCacheKey(account)));
+        assertTrue(CredentialCacheKey.isWellFormed(mDelegate.generateCacheKey(newAccessToken())));
+        assertTrue(CredentialCacheKey.isWellFormed(mDelegate.generateCacheKey(refreshToken)));
+    }
+
+    @Test
+    public void test_MalformedKeys() {
+        assertFalse(CredentialCacheKey.isWellFormed(null));
+        assertFalse(CredentialCacheKey.isWellFormed(""));
+        assertFalse(CredentialCacheKey.isWellFormed("key"));
+        assertFalse(CredentialCacheKey.isWellFormed("home-environment"));
+        assertFalse(CredentialCacheKey.isWellFormed("home-accesstoken-client-realm-target"));
+        assertFalse(CredentialCacheKey.isWellFormed("home-environment-accesstoken-client"));
+    }
+
+    private static AccessTokenRecord newAccessToken() {
+        final AccessTokenRecord accessToken = new AccessTokenRecord();
+        accessToken.setHomeAccountId(HOME_ACCOUNT_ID);
+        accessToken.setEnvironment(ENVIRONMENT);
+        accessToken.setCredentialType(CredentialType.AccessToken.name());
+        accessToken.setClientId(CLIENT_ID);
+        accessToken.setRealm(REALM);
+        accessToken.setTarget(TARGET);
+        return accessToken;
+    }
+}
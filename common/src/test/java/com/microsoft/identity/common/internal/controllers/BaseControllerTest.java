@@ -0,0 +1,132 @@
+// Copyright (c) Microsoft Corporation.
+// All rights reserved.
+//
+// This code is licensed under the MIT License.
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files(the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and / or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions :
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+package com.microsoft.identity.common.internal.controllers;
+
+import com.microsoft.identity.common.internal.authorities.AccountsInOneOrganization;
+import com.microsoft.identity.common.internal.authorities.AllAccounts;
+import com.microsoft.identity.common.internal.authorities.AzureActiveDirectoryAuthority;
+import com.microsoft.identity.common.internal.cache.CacheRecord;
+import com.microsoft.identity.common.internal.dto.AccessTokenRecord;
+import com.microsoft.identity.common.internal.dto.AccountRecord;
+import com.microsoft.identity.common.internal.request.AcquireTokenSilentOperationParameters;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class BaseControllerTest {
+
+    private static final String HOME_TENANT = "f645ad92-e38d-4d1a-b510-d1b09a74a8ca";
+    private static final String OTHER_TENANT = "72f988bf-86f1-41af-91ab-2d7cd011db47";
+
+    private AcquireTokenSilentOperationParameters mParameters;
+    private CacheRecord mCacheRecord;
+
+    @Before
+    public void setUp() {
+        mParameters = new AcquireTokenSilentOperationParameters();
+        mParameters.setAuthority(new AzureActiveDirectoryAuthority(new AccountsInOneOrganization(HOME_TENANT)));
+
+        final AccountRecord account = new AccountRecord();
+        account.setRealm(HOME_TENANT);
+
+        mCacheRecord = new CacheRecord();
+        mCacheRecord.setAccount(account);
+        mCacheRecord.setAccessToken(accessToken(HOME_TENANT, -60, 3600));
+    }
+
+    @Test
+    public void testExpiredTokenWithinExtendedLifetimeIsServed() {
+        assertTrue(BaseController.canServeExtendedLifetimeAccessToken(mParameters, mCacheRecord));
+    }
+
+    @Test
+    public void testTokenPastExtendedLifetimeIsNotServed() {
+        mCacheRecord.setAccessToken(accessToken(HOME_TENANT, -120, -60));
+
+        assertFalse(BaseController.canServeExtendedLifetimeAccessToken(mParameters, mCacheRecord));
+    }
+
+    @Test
+    public void testTokenWithoutExtendedLifetimeIsNotServed() {
+        final AccessTokenRecord accessToken = accessToken(HOME_TENANT, -60, 0);
+        accessToken.setExtendedExpiresOn(null);
+        mCacheRecord.setAccessToken(accessToken);
+
+        assertFalse(BaseController.canServeExtendedLifetimeAccessToken(mParameters, mCacheRecord));
+    }
+
+    @Test
+    public void testMissingTokenIsNotServed() {
+        mCacheRecord.setAccessToken(null);
+
+        assertFalse(BaseController.canServeExtendedLifetimeAccessToken(mParameters, mCacheRecord));
+    }
+
+    @Test
+    public void testForceRefreshIsNotAnsweredFromCache() {
+        mParameters.setForceRefresh(true);
+
+        assertFalse(BaseController.canServeExtendedLifetimeAccessToken(mParameters, mCacheRecord));
+    }
+
+    @Test
+    public void testClaimsRequestIsNotAnsweredFromCache() {
+        mParameters.setClaimsRequest("{\"access_token\":{\"xms_cc\":{\"values\":[\"cp1\"]}}}");
+
+        assertFalse(BaseController.canServeExtendedLifetimeAccessToken(mParameters, mCacheRecord));
+    }
+
+    @Test
+    public void testTokenOfAnotherRealmIsNotServed() {
+        mParameters.setAuthority(new AzureActiveDirectoryAuthority(new AccountsInOneOrganization(OTHER_TENANT)));
+
+        assertFalse(BaseController.canServeExtendedLifetimeAccessToken(mParameters, mCacheRecord));
+    }
+
+    @Test
+    public void testTenantAliasMatchesHomeRealm() {
+        mParameters.setAuthority(new AzureActiveDirectoryAuthority(new AllAccounts()));
+
+        assertTrue(BaseController.canServeExtendedLifetimeAccessToken(mParameters, mCacheRecord));
+
+        mCacheRecord.setAccessToken(accessToken(OTHER_TENANT, -60, 3600));
+
+        assertFalse(BaseController.canServeExtendedLifetimeAccessToken(mParameters, mCacheRecord));
+    }
+
+    private static AccessTokenRecord accessToken(final String realm,
+                                                 final long expiresInSeconds,
+                                                 final long extendedExpiresInSeconds) {
+        final long now = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis());
+        final AccessTokenRecord accessToken = new AccessTokenRecord();
+        accessToken.setRealm(realm);
+        accessToken.setExpiresOn(String.valueOf(now + expiresInSeconds));
+        accessToken.setExtendedExpiresOn(String.valueOf(now + extendedExpiresInSeconds));
+        return accessToken;
+    }
+}
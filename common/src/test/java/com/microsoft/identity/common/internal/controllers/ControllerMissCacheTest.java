@@ -0,0 +1,258 @@
+// Copyright (c) Microsoft Corporation.
+// All rights reserved.
+//
+// This code is licensed under the MIT License.
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files(the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and / or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions :
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+package com.microsoft.identity.common.internal.controllers;
+
+import android.content.Intent;
+
+import com.microsoft.identity.common.internal.cache.CacheKeyValueDelegate;
+import com.microsoft.identity.common.internal.cache.ICacheRecord;
+import com.microsoft.identity.common.internal.cache.ISharedPreferencesFileManager;
+import com.microsoft.identity.common.internal.cache.SharedPreferencesAccountCredentialCache;
+import com.microsoft.identity.common.internal.dto.AccountRecord;
+import com.microsoft.identity.common.internal.request.AcquireTokenOperationParameters;
+import com.microsoft.identity.common.internal.request.AcquireTokenSilentOperationParameters;
+import com.microsoft.identity.common.internal.request.OperationParameters;
+import com.microsoft.identity.common.internal.result.AcquireTokenResult;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ControllerMissCacheTest {
+
+    private static final String CLIENT_ID = "client-id";
+
+    private final BaseController mLocalController = new LocalController();
+    private final BaseController mBrokerController = new BrokerController();
+
+    @Before
+    public void setUp() {
+        ControllerMissCache.invalidate();
+    }
+
+    @After
+    public void tearDown() {
+        ControllerMissCache.invalidate();
+    }
+
+    @Test
+    public void testMissIsTrackedPerController() {
+        final OperationParameters parameters = parametersFor("uid.utid");
+
+        ControllerMissCache.recordMiss(parameters, mLocalController);
+
+        assertTrue(ControllerMissCache.isKnownMiss(parameters, mLocalController));
+        assertFalse(ControllerMissCache.isKnownMiss(parameters, mBrokerController));
+    }
+
+    @Test
+    public void testMissIsTrackedPerAccount() {
+        ControllerMissCache.recordMiss(parametersFor("uid.utid"), mLocalController);
+
+        assertFalse(ControllerMissCache.isKnownMiss(parametersFor("other.utid"), mLocalController));
+    }
+
+    @Test
+    public void testMissWithoutAccountIsNotTracked() {
+        final OperationParameters parameters = new OperationParameters();
+        parameters.setClientId(CLIENT_ID);
+
+        ControllerMissCache.recordMiss(parameters, mLocalController);
+
+        assertFalse(ControllerMissCache.isKnownMiss(parameters, mLocalController));
+    }
+
+    @Test
+    public void testInvalidateDropsMisses() {
+        final OperationParameters parameters = parametersFor("uid.utid");
+        ControllerMissCache.recordMiss(parameters, mLocalController);
+
+        ControllerMissCache.invalidate();
+
+        assertFalse(ControllerMissCache.isKnownMiss(parameters, mLocalController));
+    }
+
+    @Test
+    public void testSavingAccountDropsMisses() {
+        final OperationParameters parameters = parametersFor("uid.utid");
+        ControllerMissCache.recordMiss(parameters, mLocalController);
+
+        final AccountRecord account = new AccountRecord();
+        account.setHomeAccountId("uid.utid");
+        account.setEnvironment("login.microsoftonline.com");
+        account.setRealm("utid");
+        account.setLocalAccountId("uid");
+        account.setUsername("user@contoso.com");
+        account.setAuthorityType("MSSTS");
+        newAccountCredentialCache().saveAccount(account);
+
+        assertFalse(ControllerMissCache.isKnownMiss(parameters, mLocalController));
+    }
+
+    @Test
+    public void testClearAllDropsMisses() {
+        final OperationParameters parameters = parametersFor("uid.utid");
+        ControllerMissCache.recordMiss(parameters, mLocalController);
+
+        newAccountCredentialCache().clearAll();
+
+        assertFalse(ControllerMissCache.isKnownMiss(parameters, mLocalController));
+    }
+
+    @Test
+    public void testImportDropsMisses() throws Exception {
+        final OperationParameters parameters = parametersFor("uid.utid");
+        ControllerMissCache.recordMiss(parameters, mLocalController);
+
+        newAccountCredentialCache().importFrom(new StringReader("{\"version\": 1, \"entries\": []}"));
+
+        assertFalse(ControllerMissCache.isKnownMiss(parameters, mLocalController));
+    }
+
+    private static OperationParameters parametersFor(final String homeAccountId) {
+        final AccountRecord account = new AccountRecord();
+        account.setHomeAccountId(homeAccountId);
+
+        final OperationParameters parameters = new OperationParameters();
+        parameters.setClientId(CLIENT_ID);
+        parameters.setAccount(account);
+        return parameters;
+    }
+
+    private static SharedPreferencesAccountCredentialCache newAccountCredentialCache() {
+        return new SharedPreferencesAccountCredentialCache(
+                new CacheKeyValueDelegate(),
+                new InMemoryFileManager()
+        );
+    }
+
+    private static class LocalController extends BaseController {
+
+        @Override
+        public AcquireTokenResult acquireToken(final AcquireTokenOperationParameters request) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void completeAcquireToken(final int requestCode, final int resultCode, final Intent data) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public AcquireTokenResult acquireTokenSilent(final AcquireTokenSilentOperationParameters request) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public List<ICacheRecord> getAccounts(final OperationParameters parameters) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean removeAccount(final OperationParameters parameters) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private static class BrokerController extends LocalController {
+    }
+
+    private static class InMemoryFileManager implements ISharedPreferencesFileManager {
+
+        private final Map<String, String> mEntries = new HashMap<>();
+
+        @Override
+        public void putString(final String key, final String value) {
+            mEntries.put(key, value);
+        }
+
+        @Override
+        public void putStrings(final Map<String, String> entries) {
+            mEntries.putAll(entries);
+        }
+
+        @Override
+        public void replaceAll(final Map<String, String> entries) {
+            mEntries.clear();
+            mEntries.putAll(entries);
+        }
+
+        @Override
+        public String getString(final String key) {
+            return mEntries.get(key);
+        }
+
+        @Override
+        public String getSharedPreferencesFileName() {
+            return "in-memory";
+        }
+
+        @Override
+        public Map<String, String> getAll() {
+            return new HashMap<>(mEntries);
+        }
+
+        @Override
+        public Map<String, String> getAllFilteredByKey(final IKeyFilter keyFilter) {
+            final Map<String, String> result = new HashMap<>();
+
+            for (final Map.Entry<String, String> entry : mEntries.entrySet()) {
+                if (keyFilter.accept(entry.getKey())) {
+                    result.put(entry.getKey(), entry.getValue());
+                }
+            }
+
+            return result;
+        }
+
+        @Override
+        public Set<String> getKeys() {
+            return new HashSet<>(mEntries.keySet());
+        }
+
+        @Override
+        public boolean contains(final String key) {
+            return mEntries.containsKey(key);
+        }
+
+        @Override
+        public void clear() {
+            mEntries.clear();
+        }
+
+        @Override
+        public void remove(final String key) {
+            mEntries.remove(key);
+        }
+    }
+}
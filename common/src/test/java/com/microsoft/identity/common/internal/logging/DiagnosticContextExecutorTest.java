@@ -0,0 +1,162 @@
+// Copyright (c) Microsoft Corporation.
+// All rights reserved.
+//
+// This code is licensed under the MIT License.
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files(the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and / or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions :
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+package com.microsoft.identity.common.internal.logging;
+
+import com.microsoft.identity.common.internal.request.Deadline;
+import com.microsoft.identity.common.internal.telemetry.metrics.Metrics;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class DiagnosticContextExecutorTest {
+
+    private final ExecutorService mExecutor = new DiagnosticContextExecutor(Executors.newSingleThreadExecutor());
+
+    @After
+    public void tearDown() {
+        mExecutor.shutdownNow();
+        DiagnosticContext.clear();
+        Deadline.enter(null);
+        Metrics.exitController(null);
+    }
+
+    @Test
+    public void test_PropagatesRequestContext() throws Exception {
+        setCorrelationId("first");
+        assertEquals("first", mExecutor.submit(getCorrelationId()).get());
+
+        // The pooled thread picks up the context of each submitter, not the one it last ran with.
+        setCorrelationId("second");
+        assertEquals("second", mExecutor.submit(getCorrelationId()).get());
+    }
+
+    @Test
+    public void test_RestoresContextAfterTask() throws Exception {
+        setCorrelationId("first");
+        mExecutor.submit(getCorrelationId()).get();
+
+        final ExecutorService rawExecutor = Executors.newSingleThreadExecutor();
+
+        try {
+            final Runnable wrapped = DiagnosticContext.wrap(new Runnable() {
+                @Override
+                public void run() {
+                }
+            });
+            final String correlationId = rawExecutor.submit(new Callable<String>() {
+                @Override
+                public String call() throws Exception {
+                    wrapped.run();
+                    return getCorrelationId().call();
+                }
+            }).get();
+
+            assertEquals("UNSET", correlationId);
+        } finally {
+            rawExecutor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void test_DoesNotShareContextWithSubmitter() throws Exception {
+        setCorrelationId("first");
+        mExecutor.submit(new Runnable() {
+            @Override
+            public void run() {
+                DiagnosticContext.getRequestContext().put(DiagnosticContext.CORRELATION_ID, "changed");
+            }
+        }).get();
+
+        assertEquals("first", DiagnosticContext.getRequestContext().get(DiagnosticContext.CORRELATION_ID));
+    }
+
+    @Test
+    public void test_PropagatesDeadlineAndController() throws Exception {
+        final Deadline deadline = Deadline.after(1, TimeUnit.MINUTES);
+        Deadline.enter(deadline);
+        Metrics.enterController("LocalMSALController");
+
+        final Object[] state = mExecutor.submit(new Callable<Object[]>() {
+            @Override
+            public Object[] call() {
+                return new Object[]{Deadline.current(), Metrics.getCurrentController()};
+            }
+        }).get();
+
+        assertSame(deadline, state[0]);
+        assertEquals("LocalMSALController", state[1]);
+    }
+
+    @Test
+    public void test_RestoresDeadlineAndControllerAfterTask() throws Exception {
+        Deadline.enter(Deadline.after(1, TimeUnit.MINUTES));
+        Metrics.enterController("LocalMSALController");
+
+        final Runnable wrapped = DiagnosticContext.wrap(new Runnable() {
+            @Override
+            public void run() {
+            }
+        });
+
+        final ExecutorService rawExecutor = Executors.newSingleThreadExecutor();
+
+        try {
+            final Object[] state = rawExecutor.submit(new Callable<Object[]>() {
+                @Override
+                public Object[] call() {
+                    wrapped.run();
+                    return new Object[]{Deadline.current(), Metrics.getCurrentController()};
+                }
+            }).get();
+
+            assertNull(state[0]);
+            assertNull(state[1]);
+        } finally {
+            rawExecutor.shutdownNow();
+        }
+    }
+
+    private static void setCorrelationId(final String correlationId) {
+        final RequestContext requestContext = new RequestContext();
+        requestContext.put(DiagnosticContext.CORRELATION_ID, correlationId);
+        DiagnosticContext.setRequestContext(requestContext);
+    }
+
+    private static Callable<String> getCorrelationId() {
+        return new Callable<String>() {
+            @Override
+            public String call() {
+                return DiagnosticContext.getRequestContext().get(DiagnosticContext.CORRELATION_ID);
+            }
+        };
+    }
+}
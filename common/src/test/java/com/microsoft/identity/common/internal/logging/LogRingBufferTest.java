@@ -0,0 +1,135 @@
+// Copyright (c) Microsoft Corporation.
+// All rights reserved.
+//
+// This code is licensed under the MIT License.
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files(the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and / or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions :
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+package com.microsoft.identity.common.internal.logging;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class LogRingBufferTest {
+
+    @Test
+    public void test_DrainInOrder() throws InterruptedException {
+        final LogRingBuffer<String> buffer = new LogRingBuffer<>(4, Logger.OverflowPolicy.DROP_OLDEST);
+        buffer.put("a", true);
+        buffer.put("b", true);
+        buffer.put("c", true);
+
+        final List<String> drained = new ArrayList<>();
+        assertEquals(2, buffer.drainTo(drained, 2));
+        assertEquals(1, buffer.drainTo(drained, 2));
+        assertEquals(Arrays.asList("a", "b", "c"), drained);
+    }
+
+    @Test
+    public void test_DropOldestWhenFull() throws InterruptedException {
+        final LogRingBuffer<String> buffer = new LogRingBuffer<>(2, Logger.OverflowPolicy.DROP_OLDEST);
+        buffer.put("a", true);
+        buffer.put("b", true);
+        buffer.put("c", true);
+        buffer.put("d", true);
+
+        final List<String> drained = new ArrayList<>();
+        buffer.drainTo(drained, 10);
+        assertEquals(Arrays.asList("c", "d"), drained);
+        assertEquals(2, buffer.getDroppedCount());
+    }
+
+    @Test
+    public void test_BlockWhenFull() throws InterruptedException {
+        final LogRingBuffer<String> buffer = new LogRingBuffer<>(1, Logger.OverflowPolicy.BLOCK);
+        buffer.put("a", true);
+
+        final CountDownLatch added = new CountDownLatch(1);
+        final Thread producer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                buffer.put("b", true);
+                added.countDown();
+            }
+        });
+        producer.start();
+
+        assertFalse(added.await(100, TimeUnit.MILLISECONDS));
+
+        final List<String> drained = new ArrayList<>();
+        buffer.drainTo(drained, 1);
+        assertTrue(added.await(1, TimeUnit.SECONDS));
+
+        buffer.drainTo(drained, 1);
+        assertEquals(Arrays.asList("a", "b"), drained);
+        assertEquals(0, buffer.getDroppedCount());
+    }
+
+    @Test
+    public void test_NonBlockingPutDropsWhenFull() throws InterruptedException {
+        final LogRingBuffer<String> buffer = new LogRingBuffer<>(1, Logger.OverflowPolicy.BLOCK);
+        buffer.put("a", true);
+        buffer.put("b", false);
+
+        final List<String> drained = new ArrayList<>();
+        buffer.drainTo(drained, 10);
+        assertEquals(Arrays.asList("b"), drained);
+        assertEquals(1, buffer.getDroppedCount());
+    }
+
+    @Test
+    public void test_AwaitCompletion() throws InterruptedException {
+        final LogRingBuffer<String> buffer = new LogRingBuffer<>(4, Logger.OverflowPolicy.DROP_OLDEST);
+        buffer.put("a", true);
+        buffer.put("b", true);
+
+        assertFalse(buffer.awaitCompletion(10));
+
+        final List<String> drained = new ArrayList<>();
+        buffer.drainTo(drained, 10);
+        assertFalse(buffer.awaitCompletion(10));
+
+        buffer.onDelivered(drained.size());
+        assertTrue(buffer.awaitCompletion(10));
+    }
+
+    @Test
+    public void test_ShrinkDropsOldest() throws InterruptedException {
+        final LogRingBuffer<String> buffer = new LogRingBuffer<>(4, Logger.OverflowPolicy.DROP_OLDEST);
+        buffer.put("a", true);
+        buffer.put("b", true);
+        buffer.put("c", true);
+
+        buffer.configure(2, Logger.OverflowPolicy.DROP_OLDEST);
+        buffer.put("d", true);
+
+        final List<String> drained = new ArrayList<>();
+        buffer.drainTo(drained, 10);
+        assertEquals(Arrays.asList("c", "d"), drained);
+        assertEquals(2, buffer.getDroppedCount());
+    }
+}
@@ -0,0 +1,239 @@
+// Copyright (c) Microsoft Corporation.
+// All rights reserved.
+//
+// This code is licensed under the MIT License.
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files(the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and / or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions :
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+package com.microsoft.identity.common.internal.migration;
+
+import androidx.annotation.NonNull;
+
+import com.microsoft.identity.common.internal.cache.ADALTokenCacheItem;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TokenRenewalPipelineTest {
+
+    private final ExecutorService mExecutor = Executors.newCachedThreadPool();
+
+    @After
+    public void tearDown() {
+        mExecutor.shutdownNow();
+    }
+
+    @Test
+    public void testRenewsEveryToken() {
+        final List<ADALTokenCacheItem> items = itemsFor("https://login.microsoftonline.com/common", 10);
+
+        final List<String> results = newPipeline(
+                new TokenRenewalPipeline.IRenewer<ADALTokenCacheItem, String>() {
+                    @Override
+                    public String renew(@NonNull final ADALTokenCacheItem item) {
+                        return item.getClientId();
+                    }
+                },
+                4,
+                0,
+                TimeUnit.SECONDS.toMillis(10)
+        ).renew(items, null);
+
+        assertEquals(10, results.size());
+    }
+
+    @Test
+    public void testConcurrencyIsBounded() {
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger maxInFlight = new AtomicInteger();
+
+        newPipeline(
+                new TokenRenewalPipeline.IRenewer<ADALTokenCacheItem, String>() {
+                    @Override
+                    public String renew(@NonNull final ADALTokenCacheItem item) {
+                        final int current = inFlight.incrementAndGet();
+
+                        synchronized (maxInFlight) {
+                            maxInFlight.set(Math.max(maxInFlight.get(), current));
+                        }
+
+                        sleep(20);
+                        inFlight.decrementAndGet();
+                        return item.getClientId();
+                    }
+                },
+                2,
+                0,
+                TimeUnit.SECONDS.toMillis(10)
+        ).renew(itemsFor("https://login.microsoftonline.com/common", 8), null);
+
+        assertEquals(2, maxInFlight.get());
+    }
+
+    @Test
+    public void testRequestsToSameAuthorityAreSpaced() {
+        final List<Long> startTimes = Collections.synchronizedList(new ArrayList<Long>());
+
+        newPipeline(
+                new TokenRenewalPipeline.IRenewer<ADALTokenCacheItem, String>() {
+                    @Override
+                    public String renew(@NonNull final ADALTokenCacheItem item) {
+                        startTimes.add(System.nanoTime());
+                        return item.getClientId();
+                    }
+                },
+                4,
+                50,
+                TimeUnit.SECONDS.toMillis(10)
+        ).renew(itemsFor("https://login.microsoftonline.com/common", 3), null);
+
+        final List<Long> sorted = new ArrayList<>(startTimes);
+        Collections.sort(sorted);
+
+        assertEquals(3, sorted.size());
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(sorted.get(2) - sorted.get(0)) >= 90);
+    }
+
+    @Test
+    public void testTimeoutReturnsCompletedRenewals() {
+        final CountDownLatch release = new CountDownLatch(1);
+
+        final List<String> results = newPipeline(
+                new TokenRenewalPipeline.IRenewer<ADALTokenCacheItem, String>() {
+                    @Override
+                    public String renew(@NonNull final ADALTokenCacheItem item) {
+                        if ("client-0".equals(item.getClientId())) {
+                            return item.getClientId();
+                        }
+
+                        try {
+                            release.await();
+                        } catch (final InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+
+                        return item.getClientId();
+                    }
+                },
+                1,
+                0,
+                200
+        ).renew(itemsFor("https://login.microsoftonline.com/common", 3), null);
+
+        release.countDown();
+
+        assertEquals(Collections.singletonList("client-0"), results);
+    }
+
+    @Test
+    public void testFailedRenewalsAreReportedAndSkipped() {
+        final AtomicInteger lastCompleted = new AtomicInteger();
+        final AtomicInteger lastSucceeded = new AtomicInteger();
+
+        final List<String> results = newPipeline(
+                new TokenRenewalPipeline.IRenewer<ADALTokenCacheItem, String>() {
+                    @Override
+                    public String renew(@NonNull final ADALTokenCacheItem item) {
+                        if ("client-1".equals(item.getClientId())) {
+                            throw new IllegalStateException("Renewal failed.");
+                        }
+
+                        return "client-2".equals(item.getClientId()) ? null : item.getClientId();
+                    }
+                },
+                1,
+                0,
+                TimeUnit.SECONDS.toMillis(10)
+        ).renew(
+                itemsFor("https://login.microsoftonline.com/common", 4),
+                new IRenewalProgressListener() {
+                    @Override
+                    public void onProgress(final int completed, final int succeeded, final int total) {
+                        lastCompleted.set(completed);
+                        lastSucceeded.set(succeeded);
+                    }
+                }
+        );
+
+        assertEquals(2, results.size());
+        assertEquals(4, lastCompleted.get());
+        assertEquals(2, lastSucceeded.get());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testZeroConcurrencyIsRejected() {
+        newPipeline(
+                new TokenRenewalPipeline.IRenewer<ADALTokenCacheItem, String>() {
+                    @Override
+                    public String renew(@NonNull final ADALTokenCacheItem item) {
+                        return null;
+                    }
+                },
+                0,
+                0,
+                0
+        );
+    }
+
+    private TokenRenewalPipeline<ADALTokenCacheItem, String> newPipeline(
+            @NonNull final TokenRenewalPipeline.IRenewer<ADALTokenCacheItem, String> renewer,
+            final int maxConcurrency,
+            final long minAuthorityIntervalMillis,
+            final long timeoutMillis) {
+        return new TokenRenewalPipeline<>(
+                mExecutor,
+                renewer,
+                maxConcurrency,
+                minAuthorityIntervalMillis,
+                timeoutMillis
+        );
+    }
+
+    private static List<ADALTokenCacheItem> itemsFor(@NonNull final String authority, final int count) {
+        final List<ADALTokenCacheItem> items = new ArrayList<>();
+
+        for (int ii = 0; ii < count; ii++) {
+            final ADALTokenCacheItem item = new ADALTokenCacheItem();
+            item.setAuthority(authority);
+            item.setClientId("client-" + ii);
+            items.add(item);
+        }
+
+        return items;
+    }
+
+    private static void sleep(final long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
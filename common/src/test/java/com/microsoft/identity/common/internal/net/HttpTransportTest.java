@@ -0,0 +1,308 @@
+// Copyright (c) Microsoft Corporation.
+// All rights reserved.
+//
+// This code is licensed under the MIT License.
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files(the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and / or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions :
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+package com.microsoft.identity.common.internal.net;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class HttpTransportTest {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    @After
+    public void tearDown() {
+        HttpTransport.setConnectionProvider(null);
+    }
+
+    @Test
+    public void testConfigureAppliesSettings() throws Exception {
+        final FakeConnection connection = new FakeConnection();
+
+        HttpTransport.configure(
+                connection,
+                Collections.singletonMap("x-client-SKU", "MSAL.Android"),
+                1000,
+                2000,
+                true
+        );
+
+        assertEquals("MSAL.Android", connection.getRequestProperty("x-client-SKU"));
+        assertEquals(1000, connection.getConnectTimeout());
+        assertEquals(2000, connection.getReadTimeout());
+        assertTrue(connection.getUseCaches());
+        assertTrue(connection.getInstanceFollowRedirects());
+    }
+
+    @Test
+    public void testConfigureCanDisableCaches() throws Exception {
+        final FakeConnection connection = new FakeConnection();
+
+        HttpTransport.configure(connection, new HashMap<String, String>(), 1000, 1000, false);
+
+        assertFalse(connection.getUseCaches());
+    }
+
+    @Test
+    public void testExecuteWritesBodyAndReadsResponse() throws Exception {
+        final FakeConnection connection = new FakeConnection();
+        connection.mResponseCode = 200;
+        connection.mInputStream = stream("{\"a\":1}\r\n");
+
+        final HttpTransport.Response response = HttpTransport.execute(
+                connection,
+                "POST",
+                "grant_type=refresh_token".getBytes(UTF_8),
+                "application/x-www-form-urlencoded",
+                false
+        );
+
+        assertEquals("POST", connection.getRequestMethod());
+        assertEquals("application/x-www-form-urlencoded", connection.getRequestProperty("Content-Type"));
+        assertEquals("grant_type=refresh_token", new String(connection.mOutput.toByteArray(), UTF_8));
+        assertEquals(200, response.getStatusCode());
+        // Bodies are returned as received.
+        assertEquals("{\"a\":1}\r\n", response.getBody());
+    }
+
+    @Test
+    public void testExecuteReadsErrorStream() throws Exception {
+        final FakeConnection connection = new FakeConnection();
+        connection.mResponseCode = 400;
+        connection.mInputException = new IOException("400");
+        connection.mErrorStream = stream("{\"error\":\"invalid_grant\"}");
+
+        final HttpTransport.Response response = HttpTransport.execute(connection, "GET", null, null, true);
+
+        assertEquals(400, response.getStatusCode());
+        assertEquals("{\"error\":\"invalid_grant\"}", response.getBody());
+    }
+
+    @Test
+    public void testExecuteWithoutAnyStream() throws Exception {
+        final FakeConnection connection = new FakeConnection();
+        connection.mResponseCode = 204;
+        connection.mInputException = new IOException("No content");
+
+        final HttpTransport.Response response = HttpTransport.execute(connection, "GET", null, null, false);
+
+        assertEquals(204, response.getStatusCode());
+        assertEquals("", response.getBody());
+    }
+
+    @Test(expected = IOException.class)
+    public void testExecuteRethrowsWhenResponseStreamRequired() throws Exception {
+        final FakeConnection connection = new FakeConnection();
+        connection.mInputException = new IOException("Connection reset");
+
+        HttpTransport.execute(connection, "GET", null, null, true);
+    }
+
+    @Test(expected = SocketTimeoutException.class)
+    public void testExecuteAlwaysPropagatesSocketTimeout() throws Exception {
+        final FakeConnection connection = new FakeConnection();
+        connection.mInputException = new SocketTimeoutException("Read timed out");
+        connection.mErrorStream = stream("ignored");
+
+        HttpTransport.execute(connection, "GET", null, null, false);
+    }
+
+    @Test
+    public void testJoinLinesNormalizesLineBreaks() {
+        assertEquals("a\nb\nc", HttpTransport.joinLines("a\r\nb\rc\n"));
+        assertEquals("{\"a\":1}", HttpTransport.joinLines("{\"a\":1}"));
+        assertEquals("", HttpTransport.joinLines(""));
+    }
+
+    @Test
+    public void testReadBodyDecodesUtf8() throws Exception {
+        assertEquals("café", HttpTransport.readBody(stream("café")));
+    }
+
+    @Test
+    public void testOpenConnectionUsesProvider() throws Exception {
+        final FakeConnection connection = new FakeConnection();
+        HttpTransport.setConnectionProvider(new HttpTransport.IConnectionProvider() {
+            @Override
+            public HttpURLConnection openConnection(final URL url) {
+                return connection;
+            }
+        });
+
+        assertSame(connection, HttpTransport.openConnection(new URL("https://login.microsoftonline.com")));
+    }
+
+    @Test
+    public void testProviderRoutesRequestsToLoopbackServer() throws Exception {
+        final String responseBody = "{\"issuer\":\"https://login.microsoftonline.com/common/v2.0\"}";
+        final AtomicReference<String> requestLine = new AtomicReference<>();
+        final ServerSocket serverSocket = new ServerSocket(0, 1, InetAddress.getByName("127.0.0.1"));
+        final Thread server = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    final Socket socket = serverSocket.accept();
+
+                    try {
+                        final BufferedReader reader = new BufferedReader(
+                                new InputStreamReader(socket.getInputStream(), UTF_8)
+                        );
+                        requestLine.set(reader.readLine());
+
+                        String header;
+                        while ((header = reader.readLine()) != null && !header.isEmpty()) {
+                            // Skip the request headers.
+                        }
+
+                        final byte[] body = responseBody.getBytes(UTF_8);
+                        final OutputStream out = socket.getOutputStream();
+                        out.write(("HTTP/1.1 200 OK\r\n"
+                                + "Content-Type: application/json\r\n"
+                                + "Content-Length: " + body.length + "\r\n"
+                                + "Connection: close\r\n\r\n").getBytes(UTF_8));
+                        out.write(body);
+                        out.flush();
+                    } finally {
+                        socket.close();
+                    }
+                } catch (final IOException e) {
+                    // The client fails the test.
+                }
+            }
+        });
+        server.start();
+
+        try {
+            final int port = serverSocket.getLocalPort();
+            HttpTransport.setConnectionProvider(new HttpTransport.IConnectionProvider() {
+                @Override
+                public HttpURLConnection openConnection(final URL url) throws IOException {
+                    return (HttpURLConnection) new URL("http", "127.0.0.1", port, url.getFile()).openConnection();
+                }
+            });
+
+            final HttpURLConnection connection = HttpTransport.openConnection(
+                    new URL("https://login.microsoftonline.com/common/v2.0/.well-known/openid-configuration")
+            );
+            HttpTransport.configure(connection, new HashMap<String, String>(), 5000, 5000, false);
+
+            final HttpTransport.Response response = HttpTransport.execute(connection, "GET", null, null, true);
+
+            assertEquals(200, response.getStatusCode());
+            assertEquals(responseBody, response.getBody());
+            assertEquals("GET /common/v2.0/.well-known/openid-configuration HTTP/1.1", requestLine.get());
+        } finally {
+            serverSocket.close();
+            server.join(5000);
+        }
+    }
+
+    private static InputStream stream(final String content) {
+        return new ByteArrayInputStream(content.getBytes(UTF_8));
+    }
+
+    private static final class FakeConnection extends HttpURLConnection {
+
+        private final Map<String, String> mRequestProperties = new HashMap<>();
+        private final ByteArrayOutputStream mOutput = new ByteArrayOutputStream();
+        private int mResponseCode = 200;
+        private InputStream mInputStream;
+        private InputStream mErrorStream;
+        private IOException mInputException;
+
+        FakeConnection() throws IOException {
+            super(new URL("https://login.microsoftonline.com/common/oauth2/v2.0/token"));
+        }
+
+        @Override
+        public void setRequestProperty(final String key, final String value) {
+            mRequestProperties.put(key, value);
+        }
+
+        @Override
+        public String getRequestProperty(final String key) {
+            return mRequestProperties.get(key);
+        }
+
+        @Override
+        public OutputStream getOutputStream() {
+            return mOutput;
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            if (mInputException != null) {
+                throw mInputException;
+            }
+
+            return mInputStream;
+        }
+
+        @Override
+        public InputStream getErrorStream() {
+            return mErrorStream;
+        }
+
+        @Override
+        public int getResponseCode() {
+            return mResponseCode;
+        }
+
+        @Override
+        public void disconnect() {
+        }
+
+        @Override
+        public boolean usingProxy() {
+            return false;
+        }
+
+        @Override
+        public void connect() {
+        }
+    }
+}
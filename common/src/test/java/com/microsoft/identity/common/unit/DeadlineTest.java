@@ -0,0 +1,82 @@
+// Copyright (c) Microsoft Corporation.
+// All rights reserved.
+//
+// This code is licensed under the MIT License.
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files(the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and / or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions :
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+package com.microsoft.identity.common.unit;
+
+import com.microsoft.identity.common.exception.ClientException;
+import com.microsoft.identity.common.internal.request.Deadline;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+@RunWith(JUnit4.class)
+public class DeadlineTest {
+
+    @Test
+    public void testClampsTimeoutsToRemainingTime() {
+        final Deadline deadline = Deadline.after(5, TimeUnit.SECONDS);
+
+        assertFalse(deadline.isExpired());
+        assertEquals(1000, deadline.clampTimeoutMillis(1000));
+        assertTrue(deadline.clampTimeoutMillis(30000) <= 5000);
+    }
+
+    @Test
+    public void testExpiredDeadline() {
+        final Deadline deadline = Deadline.after(0, TimeUnit.MILLISECONDS);
+
+        assertTrue(deadline.isExpired());
+        assertEquals(0, deadline.getRemainingMillis());
+        // Never 0, which would disable the timeout altogether.
+        assertEquals(1, deadline.clampTimeoutMillis(30000));
+
+        try {
+            deadline.throwIfExpired("the test");
+            fail("Expected a ClientException.");
+        } catch (final ClientException e) {
+            assertEquals(ClientException.DEADLINE_EXCEEDED, e.getErrorCode());
+        }
+    }
+
+    @Test
+    public void testEnterAndRestore() {
+        final Deadline outer = Deadline.after(1, TimeUnit.MINUTES);
+        final Deadline inner = Deadline.after(1, TimeUnit.SECONDS);
+
+        assertNull(Deadline.enter(outer));
+        assertSame(outer, Deadline.enter(inner));
+        assertSame(inner, Deadline.current());
+        assertSame(inner, Deadline.enter(outer));
+        assertSame(outer, Deadline.enter(null));
+        assertNull(Deadline.current());
+    }
+}
@@ -0,0 +1,131 @@
+// Copyright (c) Microsoft Corporation.
+// All rights reserved.
+//
+// This code is licensed under the MIT License.
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files(the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and / or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions :
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+package com.microsoft.identity.common.unit;
+
+import com.microsoft.identity.common.internal.telemetry.metrics.AggregatingMetricsSink;
+import com.microsoft.identity.common.internal.telemetry.metrics.Metrics;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(JUnit4.class)
+public class MetricsTest {
+
+    private AggregatingMetricsSink mSink;
+
+    @Before
+    public void setUp() {
+        mSink = new AggregatingMetricsSink();
+        Metrics.setSink(mSink);
+    }
+
+    @After
+    public void tearDown() {
+        Metrics.setSink(null);
+    }
+
+    @Test
+    public void test_TimerTaggedWithCurrentController() {
+        final String previous = Metrics.enterController("LocalMSALController");
+
+        try {
+            Metrics.startTimer(Metrics.Stage.CACHE_READ).stop(Metrics.Outcome.SUCCESS);
+        } finally {
+            Metrics.exitController(previous);
+        }
+
+        Metrics.startTimer(Metrics.Stage.CACHE_READ).stop(Metrics.Outcome.SUCCESS);
+
+        assertEquals(1, mSink.getCounter(
+                Metrics.STAGE_COUNT,
+                tags(Metrics.Stage.CACHE_READ, "LocalMSALController", Metrics.Outcome.SUCCESS)
+        ));
+        assertEquals(1, mSink.getCounter(
+                Metrics.STAGE_COUNT,
+                tags(Metrics.Stage.CACHE_READ, Metrics.NO_CONTROLLER, Metrics.Outcome.SUCCESS)
+        ));
+        assertNotNull(mSink.getHistogram(
+                Metrics.STAGE_DURATION,
+                tags(Metrics.Stage.CACHE_READ, "LocalMSALController", Metrics.Outcome.SUCCESS)
+        ));
+    }
+
+    @Test
+    public void test_NothingRecordedWithoutSink() {
+        Metrics.setSink(null);
+        Metrics.startTimer(Metrics.Stage.NETWORK).stop("200");
+
+        assertTrue(mSink.getCounters().isEmpty());
+        assertTrue(mSink.getHistograms().isEmpty());
+    }
+
+    @Test
+    public void test_DurationRecordedInMicroseconds() throws InterruptedException {
+        final Metrics.Timer timer = Metrics.startTimer(Metrics.Stage.CACHE_READ);
+        Thread.sleep(2);
+        final long durationMicros = timer.stop(Metrics.Outcome.SUCCESS);
+
+        final AggregatingMetricsSink.Histogram histogram = mSink.getHistogram(
+                Metrics.STAGE_DURATION,
+                tags(Metrics.Stage.CACHE_READ, Metrics.NO_CONTROLLER, Metrics.Outcome.SUCCESS)
+        );
+        assertTrue(durationMicros >= 2000);
+        assertEquals(durationMicros, histogram.getMax());
+    }
+
+    @Test
+    public void test_HistogramPercentiles() {
+        final Map<String, String> tags = tags(Metrics.Stage.NETWORK, Metrics.NO_CONTROLLER, "200");
+
+        for (int i = 1; i <= 100; i++) {
+            mSink.recordHistogram(Metrics.STAGE_DURATION, tags, i);
+        }
+
+        final AggregatingMetricsSink.Histogram histogram = mSink.getHistogram(Metrics.STAGE_DURATION, tags);
+        assertEquals(100, histogram.getCount());
+        assertEquals(5050, histogram.getSum());
+        assertEquals(100, histogram.getMax());
+        assertEquals(63, histogram.getPercentile(50));
+        assertEquals(100, histogram.getPercentile(99));
+    }
+
+    private static Map<String, String> tags(final String stage,
+                                            final String controller,
+                                            final String outcome) {
+        final Map<String, String> tags = new HashMap<>();
+        tags.put(Metrics.Tag.STAGE, stage);
+        tags.put(Metrics.Tag.CONTROLLER, controller);
+        tags.put(Metrics.Tag.OUTCOME, outcome);
+        return tags;
+    }
+}
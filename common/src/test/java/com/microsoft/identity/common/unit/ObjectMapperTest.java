@@ -23,6 +23,7 @@
 package com.microsoft.identity.common.unit;
 
 import com.microsoft.identity.common.internal.net.ObjectMapper;
+import com.microsoft.identity.common.internal.providers.microsoft.microsoftsts.MicrosoftStsTokenRequest;
 import com.microsoft.identity.common.internal.providers.oauth2.TokenRequest;
 
 import junit.framework.Assert;
@@ -32,6 +33,8 @@ import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
 
 import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.util.UUID;
 
 @RunWith(JUnit4.class)
 public class ObjectMapperTest {
@@ -62,6 +65,35 @@ public class ObjectMapperTest {
 
     }
 
+    @Test
+    public void test_MicrosoftStsTokenRequestToFormUrlEncoding() throws UnsupportedEncodingException {
+        final UUID correlationId = UUID.randomUUID();
+        final String redirectUri = "msauth://com.microsoft.identity.client/hash=";
+
+        final MicrosoftStsTokenRequest tr = new MicrosoftStsTokenRequest();
+        tr.setClientId(CLIENT_ID);
+        tr.setGrantType(GRANT_TYPE);
+        tr.setScope(SCOPES);
+        tr.setRedirectUri(redirectUri);
+        tr.setCorrelationId(correlationId);
+        tr.setClaims("{\"access_token\":{\"deviceid\":{\"essential\":true}}}");
+        tr.setClientAppName("Contoso \u00e9\ud83d\ude00");
+
+        final String expected = "claims=" + URLEncoder.encode(tr.getClaims(), ObjectMapper.ENCODING_SCHEME)
+                + "&client-request-id=" + correlationId.toString()
+                + "&client_id=" + CLIENT_ID
+                + "&client_info=1"
+                + "&grant_type=" + GRANT_TYPE
+                + "&redirect_uri=" + URLEncoder.encode(redirectUri, ObjectMapper.ENCODING_SCHEME)
+                + "&scope=" + URLEncoder.encode(SCOPES, ObjectMapper.ENCODING_SCHEME)
+                + "&x-app-name=" + URLEncoder.encode(tr.getClientAppName(), ObjectMapper.ENCODING_SCHEME);
+
+        Assert.assertEquals(expected, ObjectMapper.serializeObjectToFormUrlEncoded(tr));
+        Assert.assertEquals(
+                expected,
+                new String(ObjectMapper.serializeObjectToFormUrlEncodedBytes(tr), ObjectMapper.ENCODING_SCHEME)
+        );
+    }
 
     @Test
     public void test_JsonToObject() {
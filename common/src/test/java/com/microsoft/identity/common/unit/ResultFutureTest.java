@@ -0,0 +1,249 @@
+// Copyright (c) Microsoft Corporation.
+// All rights reserved.
+//
+// This code is licensed under the MIT License.
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files(the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and / or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions :
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+package com.microsoft.identity.common.unit;
+
+import com.microsoft.identity.common.exception.ClientException;
+import com.microsoft.identity.common.internal.controllers.TaskCompletedCallbackWithError;
+import com.microsoft.identity.common.internal.request.Deadline;
+import com.microsoft.identity.common.internal.result.ResultFuture;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.lang.ref.WeakReference;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+@RunWith(JUnit4.class)
+public class ResultFutureTest {
+
+    @Test
+    public void test_ListenerNotifiedOnceWithResult() throws Exception {
+        final ResultFuture<String> future = new ResultFuture<>();
+        final AtomicReference<String> received = new AtomicReference<>();
+        future.addListener(new RecordingCallback<>(received, new AtomicReference<Throwable>()));
+
+        future.setResult("result");
+        future.setResult("ignored");
+
+        assertEquals("result", received.get());
+        assertEquals("result", future.get());
+    }
+
+    @Test
+    public void test_ListenerAddedAfterCompletionNotifiedImmediately() {
+        final ResultFuture<String> future = new ResultFuture<>();
+        future.setResult("result");
+
+        final AtomicReference<String> received = new AtomicReference<>();
+        future.addListener(new RecordingCallback<>(received, new AtomicReference<Throwable>()));
+
+        assertEquals("result", received.get());
+    }
+
+    @Test
+    public void test_ExceptionReportedThroughGet() throws Exception {
+        final ResultFuture<String> future = new ResultFuture<>();
+        final IllegalStateException failure = new IllegalStateException();
+        future.setException(failure);
+
+        try {
+            future.get();
+            fail();
+        } catch (final ExecutionException e) {
+            assertEquals(failure, e.getCause());
+        }
+    }
+
+    @Test
+    public void test_CancelRunsCancellationActions() throws Exception {
+        final ResultFuture<String> future = new ResultFuture<>();
+        final AtomicInteger unbound = new AtomicInteger();
+        future.whenCancelled(new CountingRunnable(unbound));
+
+        assertTrue(future.cancel(true));
+        assertFalse(future.cancel(true));
+        assertTrue(future.isCancelled());
+        assertEquals(1, unbound.get());
+
+        try {
+            future.get();
+            fail();
+        } catch (final CancellationException e) {
+            // Expected.
+        }
+    }
+
+    @Test
+    public void test_CancellationActionsSkippedOnSuccess() {
+        final ResultFuture<String> future = new ResultFuture<>();
+        final AtomicInteger unbound = new AtomicInteger();
+        future.whenCancelled(new CountingRunnable(unbound));
+
+        future.setResult("result");
+
+        assertFalse(future.cancel(true));
+        assertEquals(0, unbound.get());
+    }
+
+    @Test
+    public void test_ThenTransformsResult() throws Exception {
+        final ResultFuture<String> future = new ResultFuture<>();
+        final ResultFuture<Integer> length = future.then(new ResultFuture.Transformer<String, Integer>() {
+            @Override
+            public Integer apply(final String result) {
+                return result.length();
+            }
+        });
+
+        future.setResult("result");
+
+        assertEquals(Integer.valueOf(6), length.get());
+    }
+
+    @Test
+    public void test_CancellingDerivedFutureCancelsSource() {
+        final ResultFuture<String> future = new ResultFuture<>();
+        final AtomicInteger unbound = new AtomicInteger();
+        future.whenCancelled(new CountingRunnable(unbound));
+
+        final ResultFuture<Integer> length = future.then(new ResultFuture.Transformer<String, Integer>() {
+            @Override
+            public Integer apply(final String result) {
+                return result.length();
+            }
+        });
+
+        length.cancel(true);
+
+        assertTrue(future.isCancelled());
+        assertEquals(1, unbound.get());
+    }
+
+    @Test
+    public void test_DeadlineFailsPendingFuture() throws Exception {
+        final ResultFuture<String> future = new ResultFuture<>();
+        final AtomicInteger unbound = new AtomicInteger();
+        future.whenCancelled(new CountingRunnable(unbound));
+        future.setDeadline(10, TimeUnit.MILLISECONDS);
+
+        try {
+            future.get(5, TimeUnit.SECONDS);
+            fail();
+        } catch (final TimeoutException e) {
+            // Expected.
+        }
+
+        try {
+            future.get();
+            fail();
+        } catch (final ExecutionException e) {
+            assertTrue(e.getCause() instanceof TimeoutException);
+        }
+
+        assertEquals(1, unbound.get());
+    }
+
+    @Test
+    public void test_RequestDeadlineFailsWithDeadlineExceeded() throws Exception {
+        final ResultFuture<String> future = new ResultFuture<>();
+        final AtomicInteger unbound = new AtomicInteger();
+        future.whenCancelled(new CountingRunnable(unbound));
+        future.setDeadline(Deadline.after(10, TimeUnit.MILLISECONDS), "the connection to the broker");
+
+        try {
+            future.get(5, TimeUnit.SECONDS);
+            fail();
+        } catch (final ExecutionException e) {
+            final ClientException clientException = (ClientException) e.getCause();
+            assertEquals(ClientException.DEADLINE_EXCEEDED, clientException.getErrorCode());
+            assertTrue(clientException.getCause() instanceof TimeoutException);
+        }
+
+        assertEquals(1, unbound.get());
+    }
+
+    @Test
+    public void test_CompletionReleasesDeadline() throws Exception {
+        ResultFuture<String> future = new ResultFuture<>();
+        future.setDeadline(1, TimeUnit.HOURS);
+        future.setResult("result");
+
+        final WeakReference<ResultFuture<String>> reference = new WeakReference<>(future);
+        future = null;
+
+        // The pending deadline task must not keep the completed future reachable.
+        for (int i = 0; i < 50 && reference.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+
+        assertNull(reference.get());
+    }
+
+    private static class CountingRunnable implements Runnable {
+
+        private final AtomicInteger mCount;
+
+        CountingRunnable(final AtomicInteger count) {
+            mCount = count;
+        }
+
+        @Override
+        public void run() {
+            mCount.incrementAndGet();
+        }
+    }
+
+    private static class RecordingCallback<T> implements TaskCompletedCallbackWithError<T, Throwable> {
+
+        private final AtomicReference<T> mResult;
+        private final AtomicReference<Throwable> mError;
+
+        RecordingCallback(final AtomicReference<T> result, final AtomicReference<Throwable> error) {
+            mResult = result;
+            mError = error;
+        }
+
+        @Override
+        public void onTaskCompleted(final T result) {
+            mResult.set(result);
+        }
+
+        @Override
+        public void onError(final Throwable error) {
+            mError.set(error);
+        }
+    }
+}
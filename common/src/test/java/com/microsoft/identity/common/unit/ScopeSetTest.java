@@ -0,0 +1,91 @@
+// Copyright (c) Microsoft Corporation.
+// All rights reserved.
+//
+// This code is licensed under the MIT License.
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files(the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and / or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions :
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+package com.microsoft.identity.common.unit;
+
+import com.microsoft.identity.common.internal.dto.AccessTokenRecord;
+import com.microsoft.identity.common.internal.dto.ScopeSet;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(JUnit4.class)
+public class ScopeSetTest {
+
+    private static final String TARGET = "User.Read openid\tprofile  user.read";
+
+    @Test
+    public void test_normalization() {
+        final ScopeSet scopeSet = ScopeSet.of(TARGET);
+
+        assertEquals(3, scopeSet.size());
+        assertEquals("[openid, profile, user.read]", scopeSet.toString());
+        assertTrue(scopeSet.contains("USER.READ"));
+    }
+
+    @Test
+    public void test_emptyTargets() {
+        assertSame(ScopeSet.EMPTY, ScopeSet.of(null));
+        assertTrue(ScopeSet.of(" \t ").isEmpty());
+        assertTrue(ScopeSet.of(TARGET).containsAll(ScopeSet.EMPTY));
+    }
+
+    @Test
+    public void test_interning() {
+        assertSame(ScopeSet.of(TARGET), ScopeSet.of(TARGET));
+    }
+
+    @Test
+    public void test_containsAll() {
+        final ScopeSet scopeSet = ScopeSet.of(TARGET);
+
+        assertTrue(scopeSet.containsAll(ScopeSet.of("openid user.READ")));
+        assertFalse(scopeSet.containsAll(ScopeSet.of("openid mail.read")));
+        assertFalse(ScopeSet.of("openid").containsAll(scopeSet));
+    }
+
+    @Test
+    public void test_intersects() {
+        final ScopeSet scopeSet = ScopeSet.of(TARGET);
+
+        assertTrue(scopeSet.intersects(ScopeSet.of("mail.read PROFILE")));
+        assertFalse(scopeSet.intersects(ScopeSet.of("mail.read mail.send")));
+        assertFalse(scopeSet.intersects(ScopeSet.EMPTY));
+    }
+
+    @Test
+    public void test_accessTokenRecordScopeSet() {
+        final AccessTokenRecord accessToken = new AccessTokenRecord();
+        accessToken.setTarget(TARGET);
+        assertEquals(ScopeSet.of(TARGET), accessToken.getScopeSet());
+
+        accessToken.setTarget("mail.read");
+        assertTrue(accessToken.getScopeSet().contains("mail.read"));
+        assertFalse(accessToken.getScopeSet().contains("openid"));
+    }
+}